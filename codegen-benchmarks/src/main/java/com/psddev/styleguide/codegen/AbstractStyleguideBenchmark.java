@@ -0,0 +1,90 @@
+package com.psddev.styleguide.codegen;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Base class for the codegen pipeline benchmarks. Writes a
+ * {@link SyntheticStyleguide} of the configured size and shape to a temp
+ * directory once per trial, and deletes it afterwards. Subclasses prepare
+ * the input for the phase they measure in their own setup methods, using a
+ * new context whenever the phase would otherwise hit the caches filled by
+ * the previous invocation, so that only the phase itself is timed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public abstract class AbstractStyleguideBenchmark {
+
+    @Param({ "100", "1000" })
+    public int fileCount;
+
+    @Param({ "1", "4" })
+    public int dataUrlDepth;
+
+    @Param({ "2" })
+    public int fanOut;
+
+    protected Path directory;
+
+    protected List<Path> paths;
+
+    protected ViewClassGeneratorContext context;
+
+    /**
+     * Writes the synthetic styleguide and creates a context pointing to it.
+     *
+     * @throws IOException if the styleguide could not be written.
+     */
+    protected void createStyleguide() throws IOException {
+
+        // the real path so that file paths match the ones JsonDirectory creates
+        directory = Files.createTempDirectory(getClass().getSimpleName()).toRealPath();
+
+        paths = new SyntheticStyleguide(fileCount, dataUrlDepth, fanOut).write(directory);
+
+        context = createContext();
+    }
+
+    /**
+     * Creates a new context pointing to the styleguide, without any of the
+     * state cached by a previous one.
+     *
+     * @return a new context.
+     */
+    protected ViewClassGeneratorContext createContext() {
+
+        ViewClassGeneratorContext context = new ViewClassGeneratorContext();
+        context.setJsonDirectories(Collections.singleton(directory));
+        context.setJavaSourceDirectory(directory.resolve("output"));
+
+        return context;
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteStyleguide() throws IOException {
+        if (directory != null) {
+            FileUtils.deleteDirectory(directory.toFile());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.psddev.styleguide.codegen;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link JsonFileNormalizer#normalize()} over every file in the
+ * styleguide. The files are parsed up front, in a new directory for every
+ * invocation, so that the paths normalized by the previous invocation
+ * aren't served from its cache.
+ */
+public class JsonFileNormalizerBenchmark extends AbstractStyleguideBenchmark {
+
+    private List<JsonFile> files;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        createStyleguide();
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+
+        JsonDirectory jsonDirectory = new JsonDirectory(createContext());
+
+        files = paths.stream()
+                .map(path -> new JsonFile(jsonDirectory, path))
+                .collect(Collectors.toList());
+
+        files.forEach(JsonFile::parse);
+    }
+
+    @Benchmark
+    public void normalize(Blackhole blackhole) {
+        for (JsonFile file : files) {
+            blackhole.consume(new JsonFileNormalizer(file).normalize());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.psddev.styleguide.codegen;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link JsonFileParser#parse()} over every file in the styleguide,
+ * including reading the files from disk, along with parsing and normalizing
+ * the files both in separate passes and in a single fused pass.
+ */
+public class JsonFileParserBenchmark extends AbstractStyleguideBenchmark {
+
+    @Param({ "utf8", "javax" })
+    public String parser;
+
+    private JsonDirectory jsonDirectory;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        createStyleguide();
+        context.setParserBackend(JsonParserBackend.forName(parser));
+        jsonDirectory = new JsonDirectory(context);
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        for (Path path : paths) {
+            blackhole.consume(new JsonFileParser(new JsonFile(jsonDirectory, path)).parse());
+        }
+    }
+
+    @Benchmark
+    public void parseThenNormalize(Blackhole blackhole) {
+        for (Path path : paths) {
+            JsonFile file = new JsonFile(jsonDirectory, path);
+            JsonFileNormalizer normalizer = new JsonFileNormalizer(file);
+            blackhole.consume(normalizer.normalize(new JsonFileParser(file).parse()));
+        }
+    }
+
+    @Benchmark
+    public void parseAndNormalize(Blackhole blackhole) {
+        for (Path path : paths) {
+            JsonFile file = new JsonFile(jsonDirectory, path);
+            blackhole.consume(new JsonFileParser(file).parse(new JsonFileNormalizer(file)));
+        }
+    }
+}
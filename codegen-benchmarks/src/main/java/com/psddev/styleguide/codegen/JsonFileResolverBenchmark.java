@@ -0,0 +1,41 @@
+package com.psddev.styleguide.codegen;
+
+import java.io.IOException;
+import java.util.Set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link JsonFileResolver#resolve()} over every file in the
+ * styleguide, which is where the _dataUrl depth and fan-out come into play.
+ * The files are parsed and normalized up front, in a new directory and
+ * context for every invocation, so that the resolutions cached by the
+ * previous invocation aren't measured instead.
+ */
+public class JsonFileResolverBenchmark extends AbstractStyleguideBenchmark {
+
+    private Set<JsonFile> files;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        createStyleguide();
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+
+        files = new JsonDirectory(createContext()).getFiles();
+
+        files.forEach(JsonFile::normalize);
+    }
+
+    @Benchmark
+    public void resolve(Blackhole blackhole) {
+        for (JsonFile file : files) {
+            blackhole.consume(new JsonFileResolver(file).resolve());
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.psddev.styleguide.codegen;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.psddev.dari.util.ObjectUtils;
+
+/**
+ * Writes a synthetic styleguide directory of JSON files and templates that
+ * can be fed to the view class generator. The files are spread evenly across
+ * {@code dataUrlDepth + 1} levels, and every file on a level other than the
+ * last references {@code fanOut} files on the next level down via
+ * {@code _dataUrl}, so resolving any top level file pulls in a chain of
+ * {@code dataUrlDepth} nested files. The output is fully deterministic for a
+ * given set of settings.
+ */
+class SyntheticStyleguide {
+
+    static final String JAVA_PACKAGE = "benchmark";
+
+    private static final int TEMPLATES_PER_LEVEL = 10;
+
+    private int fileCount;
+
+    private int dataUrlDepth;
+
+    private int fanOut;
+
+    /**
+     * Creates a new synthetic styleguide.
+     *
+     * @param fileCount the total number of JSON files to write.
+     * @param dataUrlDepth the number of nested _dataUrl references from a top
+     *                     level file down to the leaf files.
+     * @param fanOut the number of _dataUrl references in each non-leaf file.
+     */
+    public SyntheticStyleguide(int fileCount, int dataUrlDepth, int fanOut) {
+
+        if (fileCount < dataUrlDepth + 1) {
+            throw new IllegalArgumentException("At least [" + (dataUrlDepth + 1) + "] files are needed for a _dataUrl depth of [" + dataUrlDepth + "]!");
+        }
+
+        this.fileCount = fileCount;
+        this.dataUrlDepth = dataUrlDepth;
+        this.fanOut = fanOut;
+    }
+
+    /**
+     * Writes the styleguide files into the given directory.
+     *
+     * @param directory the directory to write the styleguide to.
+     * @return the paths of all the JSON files that were written, excluding
+     *         the config file.
+     * @throws IOException if the files could not be written.
+     */
+    public List<Path> write(Path directory) throws IOException {
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("javaPackage", JAVA_PACKAGE);
+        config.put("templateEngine", "hbs");
+
+        writeJson(directory.resolve(JsonDirectory.CONFIG_FILE_NAME), config);
+
+        List<Path> paths = new ArrayList<>();
+
+        int levelCount = dataUrlDepth + 1;
+
+        for (int level = 0; level < levelCount; level++) {
+
+            Path levelDirectory = directory.resolve(getLevelDirectoryName(level));
+            Files.createDirectories(levelDirectory);
+
+            int levelSize = getLevelSize(level);
+
+            for (int template = 0; template < Math.min(TEMPLATES_PER_LEVEL, levelSize); template++) {
+                Files.write(levelDirectory.resolve(getTemplateName(level, template)), new byte[0]);
+            }
+
+            for (int index = 0; index < levelSize; index++) {
+
+                Map<String, Object> data = new LinkedHashMap<>();
+                data.put("_template", getTemplateName(level, index % TEMPLATES_PER_LEVEL));
+                data.put("title", "Title " + level + "-" + index);
+                data.put("count", index);
+                data.put("enabled", index % 2 == 0);
+                data.put("tags", Arrays.asList("one", "two", "three"));
+
+                if (level + 1 < levelCount) {
+
+                    int nextLevelSize = getLevelSize(level + 1);
+
+                    for (int child = 0; child < fanOut; child++) {
+
+                        Map<String, Object> reference = new LinkedHashMap<>();
+                        reference.put("_dataUrl", "/" + getLevelDirectoryName(level + 1) + "/" + getFileName(level + 1, (index * fanOut + child) % nextLevelSize));
+
+                        data.put("item" + child, reference);
+                    }
+                }
+
+                Path path = levelDirectory.resolve(getFileName(level, index));
+                writeJson(path, data);
+                paths.add(path);
+            }
+        }
+
+        return paths;
+    }
+
+    /*
+     * Gets the number of files on the given level. Any remainder goes to the
+     * top level.
+     */
+    private int getLevelSize(int level) {
+        int levelCount = dataUrlDepth + 1;
+        int levelSize = fileCount / levelCount;
+        return level == 0 ? levelSize + fileCount % levelCount : levelSize;
+    }
+
+    private static String getLevelDirectoryName(int level) {
+        return "level" + level;
+    }
+
+    private static String getFileName(int level, int index) {
+        return "Level" + level + "Data" + index + ".json";
+    }
+
+    private static String getTemplateName(int level, int template) {
+        return "Level" + level + "Module" + template + ".hbs";
+    }
+
+    private static void writeJson(Path path, Map<String, Object> data) throws IOException {
+        Files.write(path, ObjectUtils.toJson(data).getBytes(StandardCharsets.UTF_8));
+    }
+}
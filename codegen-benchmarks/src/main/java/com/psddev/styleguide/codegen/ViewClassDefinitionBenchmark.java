@@ -0,0 +1,29 @@
+package com.psddev.styleguide.codegen;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Measures {@link ViewClassDefinition#createDefinitions(ViewClassGeneratorContext, Set)}
+ * for the styleguide. The view maps are resolved up front.
+ */
+public class ViewClassDefinitionBenchmark extends AbstractStyleguideBenchmark {
+
+    private Set<JsonViewMap> jsonViewMaps;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        createStyleguide();
+        jsonViewMaps = new JsonDirectory(context).resolveViewMaps();
+    }
+
+    @Benchmark
+    public List<ViewClassDefinition> createDefinitions() {
+        return ViewClassDefinition.createDefinitions(context, jsonViewMaps);
+    }
+}
@@ -0,0 +1,31 @@
+package com.psddev.styleguide.codegen;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link ViewClassSourceGenerator#generateSources()} for every class
+ * definition in the styleguide. The definitions are created up front.
+ */
+public class ViewClassSourceGeneratorBenchmark extends AbstractStyleguideBenchmark {
+
+    private List<ViewClassDefinition> classDefinitions;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        createStyleguide();
+        classDefinitions = ViewClassDefinition.createDefinitions(context, new JsonDirectory(context).resolveViewMaps());
+    }
+
+    @Benchmark
+    public void generateSources(Blackhole blackhole) {
+        for (ViewClassDefinition classDefinition : classDefinitions) {
+            blackhole.consume(new ViewClassSourceGenerator(context, classDefinition).generateSources());
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.psddev.styleguide.codegen;
+
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Matches paths relative to a JSON directory against a set of exclusion
+ * patterns that are compiled once up front. Three kinds of patterns are
+ * supported:
+ * <ul>
+ *     <li>A plain name, such as {@code drafts}, which matches any file or
+ *     directory with exactly that name at any depth.</li>
+ *     <li>A glob without a slash, such as {@code *.draft.json}, which
+ *     matches any file or directory whose name matches the glob at any
+ *     depth.</li>
+ *     <li>A pattern with a slash, such as {@code /styleguide/legacy} or
+ *     {@code examples/**&#47;*.json}, which is a glob matched against the
+ *     whole path relative to the directory. A leading slash is optional.</li>
+ * </ul>
+ * A trailing slash on any pattern means that it only matches directories.
+ * Everything within a matched directory is excluded as well, so a walker
+ * can skip the whole subtree as soon as it reaches the directory.
+ */
+class ExcludedPathMatcher {
+
+    private static final String GLOB_CHARACTERS = "*?[{";
+
+    // exact names, which are by far the most common, are looked up directly
+    private final Set<String> names = new HashSet<>();
+    private final Set<String> directoryNames = new HashSet<>();
+
+    private final List<Rule> rules = new ArrayList<>();
+
+    private ExcludedPathMatcher() {
+    }
+
+    /**
+     * Compiles the given patterns into a matcher.
+     *
+     * @param patterns the exclusion patterns.
+     * @return a new matcher for the patterns.
+     * @throws IllegalArgumentException if a pattern is not a valid glob.
+     */
+    public static ExcludedPathMatcher compile(Collection<String> patterns) {
+
+        ExcludedPathMatcher matcher = new ExcludedPathMatcher();
+        FileSystem fileSystem = FileSystems.getDefault();
+
+        for (String pattern : patterns) {
+
+            if (pattern == null) {
+                continue;
+            }
+
+            String glob = pattern.trim();
+
+            boolean directoryOnly = glob.endsWith("/");
+            if (directoryOnly) {
+                glob = glob.substring(0, glob.length() - 1);
+            }
+
+            boolean wholePath = glob.contains("/");
+            if (glob.startsWith("/")) {
+                glob = glob.substring(1);
+            }
+
+            if (glob.isEmpty()) {
+                continue;
+            }
+
+            if (!wholePath && !isGlob(glob)) {
+                (directoryOnly ? matcher.directoryNames : matcher.names).add(glob);
+                continue;
+            }
+
+            try {
+                matcher.rules.add(new Rule(fileSystem.getPathMatcher("glob:" + glob), wholePath, directoryOnly));
+
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException("Invalid excluded path pattern [" + pattern + "]: " + e.getDescription(), e);
+            }
+        }
+
+        return matcher;
+    }
+
+    /**
+     * Checks if the path itself matches any of the patterns, without checking
+     * its parent directories, which is meant for walkers that have already
+     * checked the parents on their way down.
+     *
+     * @param relativePath the path relative to the JSON directory.
+     * @param directory true if the path is a directory.
+     * @return true if the path is excluded.
+     */
+    public boolean matches(Path relativePath, boolean directory) {
+
+        Path fileName = relativePath.getFileName();
+
+        if (fileName == null) {
+            return false;
+        }
+
+        String name = fileName.toString();
+
+        if (names.contains(name) || (directory && directoryNames.contains(name))) {
+            return true;
+        }
+
+        for (Rule rule : rules) {
+            if ((directory || !rule.directoryOnly)
+                    && rule.matcher.matches(rule.wholePath ? relativePath : fileName)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks if the file at the given path, or any of its parent
+     * directories, matches any of the patterns.
+     *
+     * @param relativePath the path of a file relative to the JSON directory.
+     * @return true if the file is excluded.
+     */
+    public boolean isExcluded(Path relativePath) {
+
+        int nameCount = relativePath.getNameCount();
+
+        for (int i = 1; i < nameCount; i++) {
+            if (matches(relativePath.subpath(0, i), true)) {
+                return true;
+            }
+        }
+
+        return matches(relativePath, false);
+    }
+
+    private static boolean isGlob(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            if (GLOB_CHARACTERS.indexOf(pattern.charAt(i)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * A single compiled glob pattern.
+     */
+    private static final class Rule {
+
+        private final PathMatcher matcher;
+
+        // true if matched against the whole relative path, or false if only
+        // against the name.
+        private final boolean wholePath;
+
+        private final boolean directoryOnly;
+
+        private Rule(PathMatcher matcher, boolean wholePath, boolean directoryOnly) {
+            this.matcher = matcher;
+            this.wholePath = wholePath;
+            this.directoryOnly = directoryOnly;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.psddev.styleguide.codegen;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.json.Json;
+import javax.json.stream.JsonLocation;
+import javax.json.stream.JsonParser;
+
+/**
+ * Parses JSON files with the javax.json streaming parser. The file is
+ * streamed directly into the parser so its raw text is never held in memory
+ * as a whole. Kept for compatibility with the original implementation, and to
+ * test the other backends against.
+ */
+class JavaxJsonParserBackend implements JsonParserBackend {
+
+    @Override
+    public String getName() {
+        return "javax";
+    }
+
+    @Override
+    public JsonValue parse(JsonFile file, InputStream input, JsonFileNormalizer normalizer) {
+        return new Parse(file, normalizer).parse(input);
+    }
+
+    /*
+     * The state of parsing a single file.
+     */
+    private static final class Parse {
+
+        private JsonFile file;
+
+        private JsonStringPool stringPool;
+
+        private JsonFileNormalizer normalizer;
+
+        private Parse(JsonFile file, JsonFileNormalizer normalizer) {
+            this.file = file;
+            this.stringPool = file.getBaseDirectory().getStringPool();
+            this.normalizer = normalizer;
+        }
+
+        private JsonValue parse(InputStream input) {
+
+            JsonParser parser = null;
+            try {
+                parser = Json.createParser(new InputStreamReader(input, StandardCharsets.UTF_8));
+                return processRoot(parser);
+
+            } catch (RuntimeException e) {
+                throw new JsonParserBackendException(e, parser != null ? new JsonDataLocation(file, getCurrentParserLocation(parser)) : null);
+            }
+        }
+
+        private JsonValue processRoot(JsonParser parser) {
+
+            JsonParser.Event event = parser.next();
+            switch (event) {
+                case START_OBJECT: {
+                    return processObject(parser);
+                }
+                case START_ARRAY: {
+                    return processArray(parser);
+                }
+                default: {
+                    throw new IllegalStateException("Illegal event start event: " + event.name());
+                }
+            }
+        }
+
+        private JsonMap processObject(JsonParser parser) {
+
+            Map<JsonKey, JsonValue> map = new LinkedHashMap<>();
+
+            long objectStartLocation = getCurrentParserLocation(parser);
+
+            JsonKey key = null;
+            JsonValue value;
+
+            while (parser.hasNext()) {
+
+                JsonParser.Event event = parser.next();
+
+                if (key == null) {
+                    switch (event) {
+                        case KEY_NAME: {
+                            key = new JsonKey(stringPool.intern(parser.getString()), file, getCurrentParserLocation(parser));
+                            break;
+                        }
+                        case END_OBJECT: {
+                            return new JsonMap(file, objectStartLocation, map);
+                        }
+                        default: {
+                            throw new IllegalStateException("Illegal event during key processing: " + event.name());
+                        }
+                    }
+                } else { // process value
+                    value = processValue(parser, event);
+                    map.put(key, normalizer != null ? normalizer.normalizeEntry(key, value) : value);
+                    key = null;
+                }
+            }
+
+            throw new IllegalStateException("Never received an " + JsonParser.Event.END_OBJECT + " event!");
+        }
+
+        private JsonList processArray(JsonParser parser) {
+
+            List<JsonValue> values = new ArrayList<>();
+
+            long arrayStartLocation = getCurrentParserLocation(parser);
+
+            while (parser.hasNext()) {
+
+                JsonParser.Event event = parser.next();
+
+                switch (event) {
+                    case END_ARRAY: {
+                        return new JsonList(file, arrayStartLocation, values);
+                    }
+                    default: {
+                        values.add(processValue(parser, event));
+                    }
+                }
+            }
+
+            throw new IllegalStateException("Never received an " + JsonParser.Event.END_ARRAY + " event!");
+        }
+
+        private JsonValue processValue(JsonParser parser, JsonParser.Event event) {
+            switch (event) {
+                case START_OBJECT: {
+                    return processObject(parser);
+                }
+                case START_ARRAY: {
+                    return processArray(parser);
+                }
+                case VALUE_STRING: {
+                    return new JsonString(file, getCurrentParserLocation(parser), stringPool.internValue(parser.getString()));
+                }
+                case VALUE_NUMBER: {
+                    if (parser.isIntegralNumber()) {
+                        return new JsonNumber(file, getCurrentParserLocation(parser), parser.getLong());
+                    } else {
+                        return new JsonNumber(file, getCurrentParserLocation(parser), parser.getBigDecimal().doubleValue());
+                    }
+                }
+                case VALUE_TRUE: {
+                    return new JsonBoolean(file, getCurrentParserLocation(parser), true);
+                }
+                case VALUE_FALSE: {
+                    return new JsonBoolean(file, getCurrentParserLocation(parser), false);
+                }
+                case VALUE_NULL: {
+                    return new JsonNull(file, getCurrentParserLocation(parser));
+                }
+                default: {
+                    throw new IllegalStateException("Illegal event during value processing: " + event.name());
+                }
+            }
+        }
+
+        /*
+         * Gets the packed location code of the parser's current position, which
+         * the keys and values store without materializing a JsonDataLocation.
+         */
+        private long getCurrentParserLocation(JsonParser parser) {
+            JsonLocation location = parser.getLocation();
+            return JsonDataLocation.encode(file,
+                    location.getLineNumber(),
+                    location.getColumnNumber(),
+                    location.getStreamOffset());
+        }
+    }
+}
@@ -18,6 +18,18 @@ class JsonBoolean extends JsonValue {
         this.value = value;
     }
 
+    /**
+     * Creates a boolean JSON object from the compact form of its location.
+     *
+     * @param locationFile the file containing the boolean value, or null if unknown.
+     * @param locationCode the packed location of the boolean value within the file.
+     * @param value the boolean value.
+     */
+    JsonBoolean(JsonFile locationFile, long locationCode, boolean value) {
+        super(locationFile, locationCode);
+        this.value = value;
+    }
+
     @Override
     public Boolean toRawValue() {
         return value;
@@ -7,12 +7,34 @@ import com.psddev.dari.util.ObjectUtils;
 /**
  * Contains location information for a piece of JSON data, such as the
  * originating file, and line number information.
+ * <p>
+ * The line, column, and offset are packed into a single primitive
+ * {@link #encode(JsonFile, long, long, long) location code}, which is what
+ * {@link JsonValue values} and {@link JsonKey keys} actually store, so that
+ * instances of this class are only materialized when the location is needed,
+ * such as when reporting an error or documenting where a value came from.
  */
 class JsonDataLocation implements Comparable<JsonDataLocation> {
 
+    /**
+     * The location code for an unknown location.
+     */
+    static final long UNKNOWN = 0;
+
+    private static final int LINE_BITS = 20;
+    private static final int COLUMN_BITS = 20;
+    private static final int OFFSET_BITS = 23;
+
+    private static final int COLUMN_SHIFT = OFFSET_BITS;
+    private static final int LINE_SHIFT = OFFSET_BITS + COLUMN_BITS;
+
+    private static final int LINE = 0;
+    private static final int COLUMN = 1;
+    private static final int OFFSET = 2;
+
     private JsonFile file;
 
-    private JsonLocation location;
+    private long code;
 
     /**
      * Creates a new data location within a JSON file.
@@ -21,8 +43,46 @@ class JsonDataLocation implements Comparable<JsonDataLocation> {
      * @param location the location of the data within the file.
      */
     public JsonDataLocation(JsonFile file, JsonLocation location) {
+        this(file, location != null
+                ? encode(file, location.getLineNumber(), location.getColumnNumber(), location.getStreamOffset())
+                : UNKNOWN);
+    }
+
+    /**
+     * Creates a new data location within a JSON file from its location code.
+     *
+     * @param file the JSON file containing the data.
+     * @param code the location code returned by {@link #encode(JsonFile, long, long, long)}.
+     */
+    JsonDataLocation(JsonFile file, long code) {
         this.file = file;
-        this.location = location;
+        this.code = code;
+    }
+
+    /**
+     * Packs the line, column, and offset of a piece of data into a single
+     * location code. Each number is stored plus one, so that zero means
+     * unknown. In the rare case that any of them is too large to be packed,
+     * such as in a huge minified file, they are stored in the file instead,
+     * and the code is the negative index of the stored location.
+     *
+     * @param file the JSON file containing the data.
+     * @param lineNumber the line number, or -1 if unknown.
+     * @param columnNumber the column number, or -1 if unknown.
+     * @param streamOffset the character offset, or -1 if unknown.
+     * @return the location code.
+     */
+    static long encode(JsonFile file, long lineNumber, long columnNumber, long streamOffset) {
+
+        long line = Math.max(lineNumber, -1) + 1;
+        long column = Math.max(columnNumber, -1) + 1;
+        long offset = Math.max(streamOffset, -1) + 1;
+
+        if (line >>> LINE_BITS == 0 && column >>> COLUMN_BITS == 0 && offset >>> OFFSET_BITS == 0) {
+            return line << LINE_SHIFT | column << COLUMN_SHIFT | offset;
+        }
+
+        return -1L - file.addOverflowLocation(new long[] { lineNumber, columnNumber, streamOffset });
     }
 
     /**
@@ -34,14 +94,22 @@ class JsonDataLocation implements Comparable<JsonDataLocation> {
         return file;
     }
 
+    /**
+     * Gets the packed location code of a piece of data within its file.
+     *
+     * @return the location code.
+     */
+    long getCode() {
+        return code;
+    }
+
     /**
      * Gets the line number for where a piece of data starts.
      *
      * @return the line number.
      */
     public Long getLineNumber() {
-        long value = location != null ? location.getLineNumber() : -1;
-        return value >= 0 ? value : null;
+        return toObject(decode(LINE));
     }
 
     /**
@@ -50,8 +118,7 @@ class JsonDataLocation implements Comparable<JsonDataLocation> {
      * @return the column number.
      */
     public Long getColumnNumber() {
-        long value = location != null ? location.getColumnNumber() : -1;
-        return value >= 0 ? value : null;
+        return toObject(decode(COLUMN));
     }
 
     /**
@@ -60,10 +127,39 @@ class JsonDataLocation implements Comparable<JsonDataLocation> {
      * @return the character offset within the file.
      */
     public Long getStreamOffset() {
-        long value = location != null ? location.getStreamOffset() : -1;
+        return toObject(decode(OFFSET));
+    }
+
+    // Unpacks one of the numbers from the code, returning -1 if it's unknown.
+    private long decode(int index) {
+
+        if (code < 0) {
+            return file.getOverflowLocation((int) (-1L - code))[index];
+        }
+
+        switch (index) {
+            case LINE:
+                return (code >>> LINE_SHIFT) - 1;
+            case COLUMN:
+                return (code >>> COLUMN_SHIFT & ((1L << COLUMN_BITS) - 1)) - 1;
+            default:
+                return (code & ((1L << OFFSET_BITS) - 1)) - 1;
+        }
+    }
+
+    private static Long toObject(long value) {
         return value >= 0 ? value : null;
     }
 
+    // Compares two decoded numbers with unknown ones last.
+    private static int compareNumbers(long x, long y) {
+        return Long.compare(x >= 0 ? x : Long.MAX_VALUE, y >= 0 ? y : Long.MAX_VALUE);
+    }
+
+    private String getRelativePathString() {
+        return file.getRelativePath().toString();
+    }
+
     @Override
     public int compareTo(JsonDataLocation other) {
 
@@ -71,18 +167,18 @@ class JsonDataLocation implements Comparable<JsonDataLocation> {
             return 1;
         }
 
-        int result = ObjectUtils.compare(file.getRelativePath().toString(), other.getFile().getRelativePath().toString(), true);
+        int result = file == other.file ? 0 : ObjectUtils.compare(getRelativePathString(), other.getRelativePathString(), true);
 
         if (result == 0) {
-            result = ObjectUtils.compare(getLineNumber(), other.getLineNumber(), true);
+            result = compareNumbers(decode(LINE), other.decode(LINE));
         }
 
         if (result == 0) {
-            result = ObjectUtils.compare(getColumnNumber(), other.getColumnNumber(), true);
+            result = compareNumbers(decode(COLUMN), other.decode(COLUMN));
         }
 
         if (result == 0) {
-            result = ObjectUtils.compare(getStreamOffset(), other.getStreamOffset(), true);
+            result = compareNumbers(decode(OFFSET), other.decode(OFFSET));
         }
 
         return result;
@@ -107,18 +203,18 @@ class JsonDataLocation implements Comparable<JsonDataLocation> {
 
         JsonDataLocation that = (JsonDataLocation) o;
 
-        return ObjectUtils.equals(file.getRelativePath().toString(), that.getFile().getRelativePath().toString())
-                && ObjectUtils.equals(getLineNumber(), that.getLineNumber())
-                && ObjectUtils.equals(getColumnNumber(), that.getColumnNumber())
-                && ObjectUtils.equals(getStreamOffset(), that.getStreamOffset());
+        return (file == that.file || getRelativePathString().equals(that.getRelativePathString()))
+                && decode(LINE) == that.decode(LINE)
+                && decode(COLUMN) == that.decode(COLUMN)
+                && decode(OFFSET) == that.decode(OFFSET);
     }
 
     @Override
     public int hashCode() {
-        return ObjectUtils.hashCode(
-                file.getRelativePath().toString(),
-                getLineNumber(),
-                getColumnNumber(),
-                getStreamOffset());
+        int result = getRelativePathString().hashCode();
+        result = 31 * result + Long.hashCode(decode(LINE));
+        result = 31 * result + Long.hashCode(decode(COLUMN));
+        result = 31 * result + Long.hashCode(decode(OFFSET));
+        return result;
     }
 }
@@ -0,0 +1,130 @@
+package com.psddev.styleguide.codegen;
+
+import java.nio.file.Path;
+
+/**
+ * An immutable chain of the relative paths of the files visited through
+ * _dataUrl references while resolving a file, used to detect cyclic
+ * references. Each link only points to its parent, so extending the chain
+ * is a single allocation that shares everything before it, and branches of
+ * the resolution never see each other's links. A small bloom filter of all
+ * the paths in the chain lets most lookups finish without walking it.
+ */
+final class JsonDataUrlChain {
+
+    /**
+     * The chain with no paths in it.
+     */
+    public static final JsonDataUrlChain EMPTY = new JsonDataUrlChain(null, null, 0L, 0);
+
+    private final Path path;
+
+    private final JsonDataUrlChain parent;
+
+    // the bloom filter bits of every path in the chain
+    private final long filter;
+
+    private final int size;
+
+    private JsonDataUrlChain(Path path, JsonDataUrlChain parent, long filter, int size) {
+        this.path = path;
+        this.parent = parent;
+        this.filter = filter;
+        this.size = size;
+    }
+
+    /**
+     * Creates a new chain with the given path appended to this one, leaving
+     * this chain as is.
+     *
+     * @param path the path to append.
+     * @return the extended chain.
+     */
+    public JsonDataUrlChain append(Path path) {
+        return new JsonDataUrlChain(path, this, filter | getFilterBits(path), size + 1);
+    }
+
+    /**
+     * Checks if the given path is anywhere in this chain.
+     *
+     * @param path the path to look for.
+     * @return true if the path is in the chain.
+     */
+    public boolean contains(Path path) {
+
+        long bits = getFilterBits(path);
+
+        if ((filter & bits) != bits) {
+            return false;
+        }
+
+        for (JsonDataUrlChain link = this; link.size > 0; link = link.parent) {
+            if (link.path.equals(path)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks if any of the given paths are in this chain.
+     *
+     * @param paths the paths to look for.
+     * @return true if any of the paths are in the chain.
+     */
+    public boolean containsAny(Iterable<Path> paths) {
+
+        if (size == 0) {
+            return false;
+        }
+
+        for (Path path : paths) {
+            if (contains(path)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets the number of paths in this chain.
+     *
+     * @return the size of the chain.
+     */
+    public int size() {
+        return size;
+    }
+
+    // Sets two bits of the 64 bit filter from independent parts of the hash.
+    private static long getFilterBits(Path path) {
+        int hash = path.hashCode();
+        return (1L << (hash & 63)) | (1L << ((hash >>> 6) & 63));
+    }
+
+    /**
+     * Formats the chain like a list of its paths, from the first path
+     * appended to the last.
+     */
+    @Override
+    public String toString() {
+
+        Path[] paths = new Path[size];
+
+        for (JsonDataUrlChain link = this; link.size > 0; link = link.parent) {
+            paths[link.size - 1] = link.path;
+        }
+
+        StringBuilder builder = new StringBuilder("[");
+
+        for (int i = 0; i < paths.length; ++i) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(paths[i]);
+        }
+
+        return builder.append("]").toString();
+    }
+}
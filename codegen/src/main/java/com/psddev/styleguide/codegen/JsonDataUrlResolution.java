@@ -0,0 +1,80 @@
+package com.psddev.styleguide.codegen;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The fully resolved contents of a JSON file referenced via _dataUrl. Any
+ * _dataUrl references at the root of the file's maps, and in turn of the maps
+ * they reference, have been fetched and merged in, but the overrides of the
+ * map that referenced the file have not been applied, so the same resolution
+ * can be shared by every reference to the file.
+ */
+class JsonDataUrlResolution {
+
+    private Path path;
+
+    private List<JsonMap> maps;
+
+    private Set<Path> paths;
+
+    private boolean containsDataUrl;
+
+    /**
+     * Creates a new resolution.
+     *
+     * @param path the relative path of the file.
+     * @param maps the resolved maps of the file.
+     * @param paths the relative paths of the file and all the files fetched
+     *              while resolving it.
+     * @param containsDataUrl true if any of the file's maps contain a
+     *                        _dataUrl key anywhere within them.
+     */
+    public JsonDataUrlResolution(Path path, List<JsonMap> maps, Set<Path> paths, boolean containsDataUrl) {
+        this.path = path;
+        this.maps = Collections.unmodifiableList(maps);
+        this.paths = Collections.unmodifiableSet(paths);
+        this.containsDataUrl = containsDataUrl;
+    }
+
+    /**
+     * Gets the relative path of the file.
+     *
+     * @return the relative path.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the resolved maps of the file.
+     *
+     * @return the resolved maps.
+     */
+    public List<JsonMap> getMaps() {
+        return maps;
+    }
+
+    /**
+     * Gets the relative paths of the file and all of the files that were
+     * fetched while resolving it.
+     *
+     * @return the relative paths.
+     */
+    public Set<Path> getPaths() {
+        return paths;
+    }
+
+    /**
+     * Returns true if any of the file's maps contain a _dataUrl key anywhere
+     * within them, in which case the file must be tracked as visited to
+     * detect cyclic references.
+     *
+     * @return true if the file contains a _dataUrl key.
+     */
+    public boolean containsDataUrl() {
+        return containsDataUrl;
+    }
+}
@@ -1,7 +1,5 @@
 package com.psddev.styleguide.codegen;
 
-import java.io.File;
-import java.io.FileFilter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -9,23 +7,15 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
-
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.filefilter.DirectoryFileFilter;
-import org.apache.commons.io.filefilter.FileFileFilter;
-import org.apache.commons.io.filefilter.FileFilterUtils;
-import org.apache.commons.io.filefilter.IOFileFilter;
-import org.apache.commons.io.filefilter.TrueFileFilter;
 
 import com.psddev.dari.util.StringUtils;
 
@@ -40,10 +30,12 @@ class JsonDirectory {
     public static final String PACKAGE_JSON_FILE_NAME = "package.json";
     public static final String WRAPPER_JSON_FILE_NAME = "_wrapper.json";
     public static final String BOWER_COMPONENTS_DIRECTORY_NAME = "bower_components";
+    public static final String NAME_FILE_NAME = "_name";
 
     private ViewClassGeneratorContext context;
 
-    private Path path;
+    private JsonDirectoryOverlay overlay;
+    private JsonDirectoryIndex index;
     private Set<JsonFile> files;
     private Set<JsonViewMap> viewMaps;
 
@@ -51,6 +43,31 @@ class JsonDirectory {
     // directory path, normalized to be the most succinct representation.
     private Map<Path, JsonFile> normalizedFilePathsCache;
 
+    // the relative paths of all the files that were read while resolving a
+    // file, keyed off of the relative path of the file being resolved.
+    private Map<Path, Set<Path>> fileDependencies = new ConcurrentHashMap<>();
+
+    // the fully resolved contents of the files referenced via _dataUrl keyed
+    // off of the relative path of the referenced file.
+    private Map<Path, JsonDataUrlResolution> dataUrlResolutionsCache = new ConcurrentHashMap<>();
+
+    // the normalized form of every raw path referenced by the files, keyed
+    // off of the directory the path is relative to and the raw path itself.
+    private Map<NormalizedPathKey, JsonNormalizedPath> normalizedPathsCache = new ConcurrentHashMap<>();
+
+    // the view configurations of each directory, keyed off of the directory
+    // path relative to this directory path.
+    private Map<Path, List<ViewConfiguration>> viewConfigurationsCache = new ConcurrentHashMap<>();
+
+    // the excluded paths compiled once on the first scan.
+    private ExcludedPathMatcher excludedPathMatcher;
+
+    private ExcludedPathMatcher styleguideFileMatcher;
+
+    // the strings shared by the files in this directory, which are released
+    // along with the directory when the classes are fully regenerated.
+    private JsonStringPool stringPool = new JsonStringPool();
+
     /**
      * Creates a new JsonDirectory with the given context.
      *
@@ -70,95 +87,58 @@ class JsonDirectory {
     }
 
     /**
-     * Gets the JSON directory path.
+     * Gets the pool of strings that is shared by every JSON file parsed
+     * within this directory.
+     *
+     * @return the string pool.
+     */
+    public JsonStringPool getStringPool() {
+        return stringPool;
+    }
+
+    /**
+     * Gets the JSON directory path. When multiple JSON directories are
+     * specified, this is the root of the {@link JsonDirectoryOverlay overlay}
+     * of all of them, and paths within it must be mapped with
+     * {@link #getRealPath(Path)} before being read.
      *
      * @return the directory path.
      */
     public Path getPath() {
-        if (path == null) {
-
-            Path jsonDir;
+        return getOverlay().getRoot();
+    }
 
-            Set<Path> jsonDirs = context.getJsonDirectories();
+    /**
+     * Gets the path of the actual file or directory for the given path
+     * relative to this directory.
+     *
+     * @param relativePath the relative path.
+     * @return the real path.
+     */
+    public Path getRealPath(Path relativePath) {
+        return getOverlay().resolve(relativePath);
+    }
 
-            if (jsonDirs.isEmpty()) {
-                throw new ViewClassGeneratorException("No JSON directory specified!");
+    private JsonDirectoryOverlay getOverlay() {
+        if (overlay == null) {
 
-            } else if (jsonDirs.size() > 1) {
+            Set<Path> jsonDirs = context.getJsonDirectories();
 
+            if (jsonDirs.size() > 1) {
                 LOGGER.yellow().append("Multiple directories specified...").log();
                 jsonDirs.forEach(dir -> LOGGER.yellow().append("JSON directory: ").reset().append(dir).log());
-
-                try {
-                    jsonDir = createTempDirectory(jsonDirs);
-                } catch (IOException e) {
-                    throw new ViewClassGeneratorException(e);
-                }
-
-            } else {
-                jsonDir = jsonDirs.iterator().next();
-            }
-
-            // resolve the path to make sure it actually exists.
-            try {
-                jsonDir = jsonDir.toRealPath();
-            } catch (IOException e) {
-                throw new ViewClassGeneratorException(e);
             }
 
-            path = jsonDir;
+            overlay = JsonDirectoryOverlay.create(jsonDirs);
         }
-        return path;
+        return overlay;
     }
 
-    /*
-     * To support backward compatibility, this method takes multiple directories
-     * and copies the contents of each of them into a temp directory. It also
-     * searches for a template directory relative to it based on the standard
-     * maven project directory structure, and copies the contents of that
-     * directory too if it exists. This puts all templates and JSON files into
-     * a single directory so that the view generator can correctly resolve
-     * the template paths.
-     */
-    private Path createTempDirectory(Set<Path> jsonDirs) throws IOException {
-
-        Path tempDir = Files.createTempDirectory("view-class-generator-");
-        LOGGER.yellow().append("Created temp directory: ").reset().append(tempDir).log();
-
-        // Create a filter for directories and handlebars files
-        FileFilter templateFilter = FileFilterUtils.or(
-                DirectoryFileFilter.DIRECTORY,
-                FileFilterUtils.and(
-                        FileFileFilter.FILE,
-                        FileFilterUtils.or(Stream.of(TemplateType.values())
-                                .map(templateType -> FileFilterUtils.suffixFileFilter("." + templateType.getExtension()))
-                                .toArray(IOFileFilter[]::new))));
-
-        // For backward compatibility
-        for (Path jsonDir : jsonDirs) {
-
-            // Copy the entire JSON directory using the filter
-            FileUtils.copyDirectory(jsonDir.toFile(), tempDir.toFile());
-            LOGGER.yellow().append("Copied files to temp directory from: ").reset().append(jsonDir).log();
-
-            for (String templateDirPath : new String[] {
-                    "../src/main/webapp",
-                    "../src/main/resources" }) {
-
-                // Copy the template directory if it exists
-                Path templateDir = jsonDir.resolve(templateDirPath);
-                if (templateDir.toFile().exists()) {
-
-                    FileUtils.copyDirectory(templateDir.toFile(), tempDir.toFile(), templateFilter);
-                    LOGGER.yellow().append("Copied templates to temp directory from: ").reset().append(templateDir.normalize()).log();
-                }
-            }
+    private JsonDirectoryIndex getIndex() {
+        if (index == null) {
+            index = new JsonDirectoryIndex(getOverlay());
         }
-
-        // Delete the temp directory and all sub-directories on exit
-        FileUtils.listFilesAndDirs(tempDir.toFile(), TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE).forEach(File::deleteOnExit);
-
-        return tempDir;
+        return index;
     }
 
     /**
@@ -177,6 +157,47 @@ class JsonDirectory {
      * @return the normalized path.
      */
     public Path getNormalizedPath(JsonFile ref, Path filePath, boolean packageJsonRelative) {
+        return getNormalizedPath(ref, filePath.toString(), packageJsonRelative).getPath();
+    }
+
+    /**
+     * Gets the normalized form of the given raw path in the same way as
+     * {@link #getNormalizedPath(JsonFile, Path, boolean)}. The result is
+     * cached, so that every reference to the same raw path from the same
+     * directory is only normalized once.
+     *
+     * @param ref the file to use to resolve relative paths.
+     * @param filePath the raw path to normalize.
+     * @param packageJsonRelative true if paths starting with "/" should be
+     *                            considered relative to the nearest
+     *                            package.json file's parent directory.
+     * @return the normalized path.
+     */
+    public JsonNormalizedPath getNormalizedPath(JsonFile ref, String filePath, boolean packageJsonRelative) {
+
+        // absolute paths only depend on the referencing file if they're
+        // relative to its nearest package.json file.
+        Path refDirectory = ref != null && (packageJsonRelative || !filePath.startsWith("/"))
+                ? ref.getPath().getParent()
+                : null;
+
+        NormalizedPathKey key = new NormalizedPathKey(refDirectory, filePath, packageJsonRelative);
+
+        JsonNormalizedPath normalizedPath = normalizedPathsCache.get(key);
+
+        if (normalizedPath == null) {
+            normalizedPath = new JsonNormalizedPath(normalizePath(ref, Paths.get(filePath), packageJsonRelative));
+
+            JsonNormalizedPath existing = normalizedPathsCache.putIfAbsent(key, normalizedPath);
+            if (existing != null) {
+                normalizedPath = existing;
+            }
+        }
+
+        return normalizedPath;
+    }
+
+    private Path normalizePath(JsonFile ref, Path filePath, boolean packageJsonRelative) {
 
         Path normalizedPath;
         // resolve it relative to the json base directory... sort of.
@@ -228,12 +249,27 @@ class JsonDirectory {
      * @return the file relative to the given file or this directory.
      */
     public JsonFile getNormalizedFile(JsonFile ref, Path filePath) {
+        return getNormalizedFile(ref, filePath.toString());
+    }
+
+    /**
+     * Tries to find a known JSON file at the given raw path in the same way
+     * as {@link #getNormalizedFile(JsonFile, Path)}.
+     *
+     * @param ref the file the path is relative to.
+     * @param filePath the raw path to look up.
+     * @return the file relative to the given file or this directory.
+     */
+    public JsonFile getNormalizedFile(JsonFile ref, String filePath) {
 
         // get the normalized path.
-        Path normalizedPath = getNormalizedPath(ref, filePath, false);
+        JsonNormalizedPath normalized = getNormalizedPath(ref, filePath, false);
+        Path normalizedPath = normalized.getPath();
 
         // ensure that it is within the scope of this directory.
-        if (!"..".equals(normalizedPath.getName(0).toString())) {
+        if (!normalized.isExternal()) {
+
+            addDependency(ref, normalizedPath);
 
             // check to see if the file is already in the directory cache.
             JsonFile normalizedFile = normalizedFilePathsCache.get(normalizedPath);
@@ -247,9 +283,13 @@ class JsonDirectory {
                 // reads, parses, and normalizes the file.
                 normalizedFile.normalize();
 
-                // if the file was successfully normalized, add it to the directory cache
+                // if the file was successfully normalized, add it to the directory
+                // cache, deferring to any copy concurrently added by another thread.
                 if (normalizedFile.isNormalized()) {
-                    normalizedFilePathsCache.put(normalizedPath, normalizedFile);
+                    JsonFile existingFile = normalizedFilePathsCache.putIfAbsent(normalizedPath, normalizedFile);
+                    if (existingFile != null) {
+                        normalizedFile = existingFile;
+                    }
                 }
             }
 
@@ -292,31 +332,9 @@ class JsonDirectory {
             return getPath();
         }
 
-        while (true) {
+        Path packageJsonDirectory = getIndex().getPackageJsonDirectory(relativePath);
 
-            if (relativePath == null) {
-                relativePath = Paths.get("");
-            }
-
-            Path resolvedPath = getPath().resolve(relativePath);
-
-            Path packageJsonPath = resolvedPath.resolve(PACKAGE_JSON_FILE_NAME);
-
-            if (packageJsonPath.toFile().exists()) {
-                return resolvedPath;
-            }
-
-            if (relativePath != null
-                    && relativePath.getNameCount() > 0
-                    && !relativePath.getName(0).toString().isEmpty()) {
-
-                relativePath = relativePath.getParent();
-            } else {
-                break;
-            }
-        }
-
-        return getPath();
+        return packageJsonDirectory != null ? getPath().resolve(packageJsonDirectory) : getPath();
     }
 
     /**
@@ -327,36 +345,39 @@ class JsonDirectory {
      * the base directory.
      *
      * @param normalizedPath the normalized path to start the search.
-     * @return the list of view configurations for the normalized path.
+     * @return the shared, unmodifiable list of view configurations for the normalized path.
      */
     public List<ViewConfiguration> getViewConfigurations(Path normalizedPath) {
 
-        List<ViewConfiguration> viewConfigs = new ArrayList<>();
-
         if (normalizedPath != null) {
 
             // calls getNormalizedPath after pre-pending a slash so it knows
             // to treat the path as relative to this directory.
-            normalizedPath = getNormalizedPath(null, Paths.get(StringUtils.ensureStart(normalizedPath.toString(), "/")), false);
+            JsonNormalizedPath normalized = getNormalizedPath(null, StringUtils.ensureStart(normalizedPath.toString(), "/"), false);
 
             // If the path is outside of the directory, return null immediately
-            if (normalizedPath.getName(0).startsWith("..")) {
-                return viewConfigs;
+            if (normalized.isExternal()) {
+                return Collections.emptyList();
             }
+
+            normalizedPath = normalized.getPath();
+
+        } else {
+            normalizedPath = Paths.get("");
         }
 
-        while (true) {
+        List<ViewConfiguration> viewConfigs = viewConfigurationsCache.get(normalizedPath);
 
-            if (normalizedPath == null) {
-                normalizedPath = Paths.get("");
-            }
+        if (viewConfigs == null) {
 
-            Path configFilePath = getPath().resolve(normalizedPath).resolve(CONFIG_FILE_NAME);
+            viewConfigs = new ArrayList<>();
 
-            File configFile = configFilePath.toFile();
-            if (configFile.exists()) {
+            for (Path configFileRelativePath : getIndex().getConfigFiles(normalizedPath)) {
                 try {
-                    viewConfigs.add(new ViewConfiguration(configFilePath));
+                    viewConfigs.add(context.getViewConfigurationCache().get(
+                            getPath().resolve(configFileRelativePath),
+                            getRealPath(configFileRelativePath),
+                            context.getMetrics()));
 
                 } catch (IOException e) {
                     // TODO: Handle this error more gracefully
@@ -364,19 +385,33 @@ class JsonDirectory {
                 }
             }
 
-            if (normalizedPath != null
-                    && normalizedPath.getNameCount() > 0
-                    && !normalizedPath.getName(0).toString().isEmpty()) {
+            viewConfigs = Collections.unmodifiableList(viewConfigs);
 
-                normalizedPath = normalizedPath.getParent();
-            } else {
-                break;
+            List<ViewConfiguration> existing = viewConfigurationsCache.putIfAbsent(normalizedPath, viewConfigs);
+            if (existing != null) {
+                viewConfigs = existing;
             }
         }
 
         return viewConfigs;
     }
 
+    /**
+     * Checks if a template file exists at the given path, and records it as a
+     * dependency of the given file so that the file is resolved again when
+     * the template is added or removed.
+     *
+     * @param ref the file that references the template.
+     * @param templatePath the template path relative to this directory.
+     * @return true if the template file exists.
+     */
+    public boolean containsTemplate(JsonFile ref, Path templatePath) {
+
+        addDependency(ref, templatePath);
+
+        return getIndex().containsTemplateFile(templatePath);
+    }
+
     /**
      * Get the wrapper JSON for the given file by traversing up the directory
      * tree of the given file.
@@ -390,40 +425,22 @@ class JsonDirectory {
             return null;
         }
 
-        return getNearestWrapperJsonFile(getPath().relativize(jsonFile.getPath().getParent()));
+        return getNearestWrapperJsonFile(jsonFile, getPath().relativize(jsonFile.getPath().getParent()));
     }
 
-    private JsonFile getNearestWrapperJsonFile(Path relativePath) {
+    private JsonFile getNearestWrapperJsonFile(JsonFile jsonFile, Path relativePath) {
 
         if (relativePath == null) {
             return null;
         }
 
-        while (true) {
-
-            if (relativePath == null) {
-                relativePath = Paths.get("");
-            }
-
-            Path resolvedPath = getPath().resolve(relativePath);
-
-            Path wrapperJsonPath = resolvedPath.resolve(WRAPPER_JSON_FILE_NAME);
+        Path wrapperJsonPath = getIndex().getWrapperJsonFile(relativePath);
 
-            if (wrapperJsonPath.toFile().exists()) {
+        if (wrapperJsonPath != null) {
 
-                Path foo = getPath().relativize(wrapperJsonPath);
-
-                return normalizedFilePathsCache.get(foo);
-            }
+            addDependency(jsonFile, wrapperJsonPath);
 
-            if (relativePath != null
-                    && relativePath.getNameCount() > 0
-                    && !relativePath.getName(0).toString().isEmpty()) {
-
-                relativePath = relativePath.getParent();
-            } else {
-                break;
-            }
+            return normalizedFilePathsCache.get(wrapperJsonPath);
         }
 
         return null;
@@ -445,40 +462,255 @@ class JsonDirectory {
             Path directory = getPath();
             LOGGER.green().append("Scanning Directory ").reset().append(directory).log();
 
-            Set<JsonFile> files = getFiles();
+            Set<JsonFile> files;
+
+            try (ViewClassGeneratorMetrics.Timing timing = context.getMetrics().time(ViewClassGeneratorMetrics.Phase.SCANNING)) {
+                files = getFiles();
+            }
 
             // check for errors
             checkForErrors(files);
 
-            // parse each file
-            files.forEach(JsonFile::parse);
+            // parse, normalize, and resolve each file
+            resolveFiles(files);
 
-            // check for errors
-            checkForErrors(files);
+            // find all the nested view maps
+            viewMaps = collectViewMaps();
+        }
 
-            // normalize each file
-            files.forEach(JsonFile::normalize);
+        return viewMaps;
+    }
 
-            // check for errors
-            checkForErrors(files);
+    /**
+     * Incrementally updates this directory after the JSON files at the given
+     * paths were modified, or the template files at the given paths were
+     * added or removed. Only the modified files, and the files that read
+     * them while being resolved (via _dataUrl, _include, or _wrapper) or that
+     * reference the templates, are processed again. The resolved view maps of
+     * every other file are reused as is. This works the same for an overlay
+     * of multiple JSON directories, since the paths are mapped back to the
+     * overlay first. Changes that can affect how the directory itself is
+     * scanned or how paths are resolved, such as a modified _config.json,
+     * package.json or _name file, or a path outside of the directory, can't
+     * be applied incrementally, in which case this method returns false and
+     * the directory should be discarded and re-created instead.
+     *
+     * @param modifiedPaths the paths of the files that were modified.
+     * @return true if the directory was updated, or false if it must be re-created.
+     */
+    public boolean update(Collection<Path> modifiedPaths) {
 
-            // resolve each file
-            Set<JsonViewMap> fileViewMaps = files.stream()
-                    .map(JsonFile::resolve)
-                    .filter(Objects::nonNull)
-                    .flatMap(Collection::stream)
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toSet());
+        // nothing to update yet
+        if (viewMaps == null) {
+            return false;
+        }
 
-            // check for errors
-            checkForErrors(files);
+        Set<Path> modifiedRelativePaths = new HashSet<>();
 
-            // find all the nested view maps
-            viewMaps = new LinkedHashSet<>();
-            fileViewMaps.forEach(viewMap -> populateNestedViewMaps(viewMaps, viewMap));
+        for (Path modifiedPath : modifiedPaths) {
+
+            boolean template = TemplateType.findByFile(modifiedPath) != null;
+
+            Path relativePath;
+            try {
+                // removed templates no longer exist, so only their directory can be resolved
+                relativePath = getOverlay().relativize(template && !Files.exists(modifiedPath)
+                        ? modifiedPath.toAbsolutePath().getParent().toRealPath().resolve(modifiedPath.getFileName())
+                        : modifiedPath.toRealPath());
+
+            } catch (IOException e) {
+                return false;
+            }
+
+            if (relativePath == null || relativePath.getNameCount() == 0) {
+                return false;
+            }
+
+            if (template) {
+
+                // the contents of templates don't matter, only whether they exist
+                boolean existed = getIndex().containsTemplateFile(relativePath);
+                getIndex().updateTemplateFile(relativePath);
+
+                if (existed != getIndex().containsTemplateFile(relativePath)) {
+                    modifiedRelativePaths.add(relativePath);
+                }
+                continue;
+            }
+
+            String fileName = relativePath.getFileName().toString();
+
+            if (CONFIG_FILE_NAME.equals(fileName)
+                    || PACKAGE_JSON_FILE_NAME.equals(fileName)
+                    || NAME_FILE_NAME.equals(fileName)) {
+                return false;
+            }
+
+            // only the existence of any other type of file matters
+            if (fileName.endsWith(".json")) {
+                modifiedRelativePaths.add(relativePath);
+            }
         }
 
-        return viewMaps;
+        // find all of the files affected by the modified files
+        Set<Path> affectedPaths = new HashSet<>(modifiedRelativePaths);
+
+        boolean found;
+        do {
+            found = false;
+
+            for (Map.Entry<Path, Set<Path>> entry : fileDependencies.entrySet()) {
+
+                if (!affectedPaths.contains(entry.getKey())
+                        && entry.getValue().stream().anyMatch(affectedPaths::contains)) {
+
+                    affectedPaths.add(entry.getKey());
+                    found = true;
+                }
+            }
+        } while (found);
+
+        for (Path affectedPath : affectedPaths) {
+            normalizedFilePathsCache.remove(affectedPath);
+            fileDependencies.remove(affectedPath);
+        }
+
+        dataUrlResolutionsCache.values().removeIf(resolution -> !Collections.disjoint(resolution.getPaths(), affectedPaths));
+
+        // replace the affected files with new unprocessed ones, keeping the
+        // overall order of the files the same as a full scan.
+        Set<JsonFile> updatedFiles = new LinkedHashSet<>();
+
+        files = files.stream()
+                .map(file -> {
+                    if (affectedPaths.contains(file.getRelativePath())) {
+                        JsonFile updatedFile = new JsonFile(this, file.getPath());
+                        updatedFiles.add(updatedFile);
+                        return updatedFile;
+
+                    } else {
+                        return file;
+                    }
+                })
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        for (JsonFile file : updatedFiles) {
+            normalizedFilePathsCache.put(file.getRelativePath(), file);
+        }
+
+        if (!updatedFiles.isEmpty()) {
+            LOGGER.green().append("Updating Directory ").reset().append(getPath())
+                    .green().append(" (").reset().append(updatedFiles.size())
+                    .green().append(updatedFiles.size() == 1 ? " file)" : " files)").log();
+
+            viewMaps = null;
+
+            // parse, normalize, and resolve only the affected files
+            resolveFiles(updatedFiles);
+
+            viewMaps = collectViewMaps();
+        }
+
+        return true;
+    }
+
+    /*
+     * Parses, normalizes, and resolves each of the files, checking for errors
+     * after each phase.
+     */
+    private void resolveFiles(Set<JsonFile> files) {
+
+        ViewClassGeneratorMetrics metrics = context.getMetrics();
+
+        // parse each file
+        try (ViewClassGeneratorMetrics.Timing timing = metrics.time(ViewClassGeneratorMetrics.Phase.PARSING)) {
+            context.process(files, JsonFile::parse);
+        }
+
+        // check for errors
+        checkForErrors(files);
+
+        // normalize each file
+        try (ViewClassGeneratorMetrics.Timing timing = metrics.time(ViewClassGeneratorMetrics.Phase.NORMALIZING)) {
+            context.process(files, JsonFile::normalize);
+        }
+
+        // check for errors
+        checkForErrors(files);
+
+        // resolve each file
+        try (ViewClassGeneratorMetrics.Timing timing = metrics.time(ViewClassGeneratorMetrics.Phase.RESOLVING)) {
+            context.process(files, JsonFile::resolve);
+        }
+
+        // check for errors
+        checkForErrors(files);
+    }
+
+    /*
+     * Collects the view maps, including all of the nested ones, of every
+     * resolved file in this directory.
+     */
+    private Set<JsonViewMap> collectViewMaps() {
+
+        Set<JsonViewMap> fileViewMaps = files.stream()
+                .map(JsonFile::resolve)
+                .filter(Objects::nonNull)
+                .flatMap(Collection::stream)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        // find all the nested view maps
+        Set<JsonViewMap> nestedViewMaps = new LinkedHashSet<>();
+        fileViewMaps.forEach(viewMap -> populateNestedViewMaps(nestedViewMaps, viewMap));
+
+        context.getMetrics().add(ViewClassGeneratorMetrics.Counter.VIEW_MAPS, nestedViewMaps.size());
+
+        return nestedViewMaps;
+    }
+
+    /**
+     * Gets the cached resolution of the file at the given path that was
+     * referenced via _dataUrl.
+     *
+     * @param relativePath the relative path of the referenced file.
+     * @return the cached resolution, or null if there isn't one.
+     */
+    public JsonDataUrlResolution getDataUrlResolution(Path relativePath) {
+        return dataUrlResolutionsCache.get(relativePath);
+    }
+
+    /**
+     * Caches the resolution of the file at the given path that was
+     * referenced via _dataUrl so that it can be shared by all the other
+     * references to the same file.
+     *
+     * @param relativePath the relative path of the referenced file.
+     * @param resolution the resolution to cache.
+     */
+    public void putDataUrlResolution(Path relativePath, JsonDataUrlResolution resolution) {
+        dataUrlResolutionsCache.putIfAbsent(relativePath, resolution);
+    }
+
+    /**
+     * Records that the files at the dependency paths were read while
+     * resolving the ref file.
+     *
+     * @param ref the file being resolved.
+     * @param dependencyPaths the relative paths of the files that were read.
+     */
+    public void addDependencies(JsonFile ref, Collection<Path> dependencyPaths) {
+        dependencyPaths.forEach(dependencyPath -> addDependency(ref, dependencyPath));
+    }
+
+    /*
+     * Records that the file at the dependency path was read while resolving
+     * the ref file.
+     */
+    private void addDependency(JsonFile ref, Path dependencyPath) {
+        if (ref != null) {
+            fileDependencies.computeIfAbsent(ref.getRelativePath(), key -> ConcurrentHashMap.newKeySet()).add(dependencyPath);
+        }
     }
 
     /*
@@ -488,77 +720,107 @@ class JsonDirectory {
         if (files == null) {
             files = getFilePaths().stream()
                     .map(path -> new JsonFile(this, path))
-                    .collect(Collectors.toSet());
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
 
-            normalizedFilePathsCache = new HashMap<>();
+            normalizedFilePathsCache = new ConcurrentHashMap<>();
             for (JsonFile file : files) {
                 normalizedFilePathsCache.put(file.getRelativePath(), file);
             }
+
+            context.getMetrics().add(ViewClassGeneratorMetrics.Counter.FILES_SCANNED, files.size());
         }
         return files;
     }
 
+    /**
+     * Gets the real paths of all the JSON and template files within the JSON
+     * directories, including the config files, so that changes to them can
+     * be detected between builds. Excluded directories and node_modules are
+     * pruned the same way as when discovering the JSON files.
+     *
+     * @return the real paths of the JSON and template files.
+     */
+    Set<Path> getStyleguideFilePaths() {
+
+        if (styleguideFileMatcher == null) {
+
+            Set<String> excludedPaths = context.getExcludedPaths().stream().collect(Collectors.toCollection(LinkedHashSet::new));
+            excludedPaths.add(BOWER_COMPONENTS_DIRECTORY_NAME);
+
+            styleguideFileMatcher = ExcludedPathMatcher.compile(excludedPaths);
+        }
+
+        String projectPath = getProjectPath();
+        Set<Path> filePaths = new HashSet<>();
+
+        for (Path jsonDir : getOverlay().getJsonDirectories()) {
+
+            JsonDirectoryScanner scanner = new JsonDirectoryScanner(jsonDir, styleguideFileMatcher, projectPath);
+            scanner.setIncludeTemplateFiles(true);
+
+            filePaths.addAll(scanner.scan(context));
+        }
+
+        return filePaths;
+    }
+
     /*
      * Gets the list of file paths that should be discoverable within this directory.
      */
     private Set<Path> getFilePaths() {
 
-        Set<String> excludedPaths = context.getExcludedPaths().stream().collect(Collectors.toCollection(HashSet::new));
+        if (excludedPathMatcher == null) {
 
-        // exclude some well known paths
-        excludedPaths.add("dari-reflections.json");
-        excludedPaths.add(CONFIG_FILE_NAME);
-        excludedPaths.add(PACKAGE_JSON_FILE_NAME);
-        excludedPaths.add(BOWER_COMPONENTS_DIRECTORY_NAME);
+            Set<String> excludedPaths = context.getExcludedPaths().stream().collect(Collectors.toCollection(LinkedHashSet::new));
 
-        String projectPath;
-        Path namePath = getPath().resolve("_name");
+            // exclude some well known paths
+            excludedPaths.add("dari-reflections.json");
+            excludedPaths.add(CONFIG_FILE_NAME);
+            excludedPaths.add(PACKAGE_JSON_FILE_NAME);
+            excludedPaths.add(BOWER_COMPONENTS_DIRECTORY_NAME);
 
-        if (Files.exists(namePath)) {
-            byte[] pointerBytes;
+            excludedPathMatcher = ExcludedPathMatcher.compile(excludedPaths);
+        }
 
-            try {
-                projectPath = "/node_modules/" + new String(Files.readAllBytes(namePath), StandardCharsets.UTF_8).trim() + "/";
+        String projectPath = getProjectPath();
 
-            } catch (IOException error) {
-                throw new IllegalStateException(error);
-            }
+        // get each json file in this directory, skipping excluded directories and node_modules entirely
+        List<Path> jsonDirs = getOverlay().getJsonDirectories();
 
-        } else {
-            projectPath = null;
+        if (jsonDirs.size() == 1) {
+            return new JsonDirectoryScanner(getPath(), excludedPathMatcher, projectPath, getIndex()).scan(context);
         }
 
-        // get each json file in this directory
-        return FileUtils.listFiles(getPath().toFile(), new String[] { "json" }, true).stream()
+        // merge the files of each layer, mapping them to paths within the root
+        Set<Path> filePaths = new HashSet<>();
 
-                // convert the file to a path
-                .map(file -> Paths.get(file.toURI()))
-
-                // remove excluded paths
-                .filter(path -> isPathExcluded(getPath().relativize(path), excludedPaths))
-
-                // Remove node_modules.
-                .filter(path -> {
-                    String pathString = path.toString();
-                    return !pathString.contains("/node_modules/")
-                            || (projectPath != null
-                            && pathString.contains(projectPath));
-                })
+        for (Path jsonDir : jsonDirs) {
+            for (Path filePath : new JsonDirectoryScanner(jsonDir, excludedPathMatcher, projectPath, getIndex()).scan(context)) {
+                filePaths.add(getPath().resolve(jsonDir.relativize(filePath)));
+            }
+        }
 
-                // add each file to the set
-                .collect(Collectors.toSet());
+        return filePaths;
     }
 
     /*
-     * This just does a String match on each path part with each excluded path.
-     * TODO: Need to come up with requirements for how excludes should work.
+     * Gets the path of the project's package within node_modules in the form
+     * "/node_modules/name/" based on the _name file, or null if there isn't one.
      */
-    private static boolean isPathExcluded(Path path, Set<String> excludedPaths) {
-        return !IntStream.range(0, path.getNameCount())
-                .mapToObj(path::getName)
-                .map(Path::toString)
-                .anyMatch(name -> excludedPaths.stream()
-                        .anyMatch(pattern -> pattern.equals(name)));
+    private String getProjectPath() {
+
+        Path namePath = getRealPath(Paths.get(NAME_FILE_NAME));
+
+        if (!Files.exists(namePath)) {
+            return null;
+        }
+
+        try {
+            return "/node_modules/" + new String(Files.readAllBytes(namePath), StandardCharsets.UTF_8).trim() + "/";
+
+        } catch (IOException error) {
+            throw new IllegalStateException(error);
+        }
     }
 
     /*
@@ -585,7 +847,7 @@ class JsonDirectory {
         // check for errors
         Set<JsonFile> errorFiles = files.stream()
                 .filter(JsonFile::hasAnyErrors)
-                .collect(Collectors.toSet());
+                .collect(Collectors.toCollection(LinkedHashSet::new));
 
         // if there are errors, log them and stop
         if (!errorFiles.isEmpty()) {
@@ -669,4 +931,47 @@ class JsonDirectory {
                 + totalErrorCount
                 + " previous error" + (totalErrorCount == 1 ? "" : "s") + ".");
     }
+
+    /*
+     * The key of a normalized path, i.e. the raw path along with the
+     * directory it's relative to, which is null if it isn't relative to any
+     * particular directory.
+     */
+    private static final class NormalizedPathKey {
+
+        private final Path directory;
+
+        private final String path;
+
+        private final boolean packageJsonRelative;
+
+        private NormalizedPathKey(Path directory, String path, boolean packageJsonRelative) {
+            this.directory = directory;
+            this.path = path;
+            this.packageJsonRelative = packageJsonRelative;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+
+            if (this == other) {
+                return true;
+            }
+
+            if (!(other instanceof NormalizedPathKey)) {
+                return false;
+            }
+
+            NormalizedPathKey that = (NormalizedPathKey) other;
+
+            return packageJsonRelative == that.packageJsonRelative
+                    && path.equals(that.path)
+                    && Objects.equals(directory, that.directory);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(directory, path, packageJsonRelative);
+        }
+    }
 }
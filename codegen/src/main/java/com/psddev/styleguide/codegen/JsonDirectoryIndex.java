@@ -0,0 +1,311 @@
+package com.psddev.styleguide.codegen;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An in-memory index of the special files that affect how the files within
+ * each directory of a {@link JsonDirectory} are resolved, namely the nearest
+ * package.json, _wrapper.json, and the chain of _config.json files up the
+ * directory tree, as well as of the template files. The
+ * {@link JsonDirectoryScanner scanner} records which of these files exist as
+ * it walks each directory, so the lookups can be answered without touching
+ * the filesystem. Directories that weren't walked, such as excluded ones, are
+ * checked on the filesystem once instead.
+ */
+class JsonDirectoryIndex {
+
+    private static final int PACKAGE_JSON = 1;
+    private static final int WRAPPER_JSON = 1 << 1;
+    private static final int CONFIG = 1 << 2;
+
+    private static final Path ROOT = Paths.get("");
+
+    private static final Entry EMPTY_ENTRY = new Entry(null, null, Collections.emptyList());
+
+    private JsonDirectoryOverlay overlay;
+
+    private Set<Path> walkedDirectories = ConcurrentHashMap.newKeySet();
+
+    private Set<Path> prunedDirectories = ConcurrentHashMap.newKeySet();
+
+    // the special files found in each walked directory
+    private Map<Path, Integer> directoryFiles = new ConcurrentHashMap<>();
+
+    private Map<Path, Entry> entries = new ConcurrentHashMap<>();
+
+    // the template files found in the walked directories
+    private Set<Path> templateFiles = ConcurrentHashMap.newKeySet();
+
+    // whether each template file outside of the walked directories exists
+    private Map<Path, Boolean> checkedTemplateFiles = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new empty index for the given overlay.
+     *
+     * @param overlay the overlay used to check the directories that weren't walked.
+     */
+    public JsonDirectoryIndex(JsonDirectoryOverlay overlay) {
+        this.overlay = overlay;
+    }
+
+    /**
+     * Records that all the files within the directory are being walked.
+     *
+     * @param relativeDirectory the directory path relative to the root.
+     */
+    public void addDirectory(Path relativeDirectory) {
+        walkedDirectories.add(relativeDirectory);
+    }
+
+    /**
+     * Records that the directory was skipped along with all of its
+     * subdirectories.
+     *
+     * @param relativeDirectory the directory path relative to the root.
+     */
+    public void addPrunedDirectory(Path relativeDirectory) {
+        prunedDirectories.add(relativeDirectory);
+    }
+
+    /**
+     * Records a file that was found while walking a directory.
+     *
+     * @param relativeFile the file path relative to the root.
+     */
+    public void addFile(Path relativeFile) {
+
+        if (TemplateType.findByFile(relativeFile) != null) {
+            templateFiles.add(relativeFile);
+            return;
+        }
+
+        int type = getType(relativeFile.getFileName().toString());
+
+        if (type != 0) {
+            Path parent = relativeFile.getParent();
+            directoryFiles.merge(parent != null ? parent : ROOT, type, (a, b) -> a | b);
+        }
+    }
+
+    /**
+     * Gets the directory closest to the given directory up the directory tree
+     * that contains a package.json file.
+     *
+     * @param relativeDirectory the directory path relative to the root.
+     * @return the relative path of the nearest package.json parent directory,
+     *         or null if there is none.
+     */
+    public Path getPackageJsonDirectory(Path relativeDirectory) {
+        return getEntry(relativeDirectory).packageJsonDirectory;
+    }
+
+    /**
+     * Gets the _wrapper.json file closest to the given directory up the
+     * directory tree.
+     *
+     * @param relativeDirectory the directory path relative to the root.
+     * @return the relative path of the nearest wrapper file, or null if there
+     *         is none.
+     */
+    public Path getWrapperJsonFile(Path relativeDirectory) {
+        return getEntry(relativeDirectory).wrapperJsonFile;
+    }
+
+    /**
+     * Gets all the _config.json files from the given directory up to the
+     * root.
+     *
+     * @param relativeDirectory the directory path relative to the root.
+     * @return the relative paths of the config files, nearest first.
+     */
+    public List<Path> getConfigFiles(Path relativeDirectory) {
+        return getEntry(relativeDirectory).configFiles;
+    }
+
+    /**
+     * Checks if the template file exists.
+     *
+     * @param relativeTemplateFile the template file path relative to the root.
+     * @return true if the template file exists.
+     */
+    public boolean containsTemplateFile(Path relativeTemplateFile) {
+
+        // only files with a known template extension are recorded
+        if (TemplateType.findByFile(relativeTemplateFile) != null && isTemplateFileWalked(relativeTemplateFile)) {
+            return templateFiles.contains(relativeTemplateFile);
+        }
+
+        return checkedTemplateFiles.computeIfAbsent(relativeTemplateFile, overlay::exists);
+    }
+
+    /**
+     * Checks the template file on the filesystem again after it was added or
+     * removed.
+     *
+     * @param relativeTemplateFile the template file path relative to the root.
+     */
+    public void updateTemplateFile(Path relativeTemplateFile) {
+
+        checkedTemplateFiles.remove(relativeTemplateFile);
+
+        if (isTemplateFileWalked(relativeTemplateFile)) {
+            if (overlay.exists(relativeTemplateFile)) {
+                templateFiles.add(relativeTemplateFile);
+            } else {
+                templateFiles.remove(relativeTemplateFile);
+            }
+        }
+    }
+
+    /*
+     * Checks if the directory of the template file was walked. Template only
+     * directories of an overlay are never walked, so the template files in
+     * them are always checked on the filesystem.
+     */
+    private boolean isTemplateFileWalked(Path relativeTemplateFile) {
+
+        if (overlay.hasTemplateDirectories()) {
+            return false;
+        }
+
+        Path parent = relativeTemplateFile.getParent();
+
+        return isWalked(parent != null ? parent : ROOT);
+    }
+
+    /*
+     * Gets the entry for the directory, building it from the entry of its
+     * parent the first time. This can't use computeIfAbsent since the map
+     * would be modified recursively.
+     */
+    private Entry getEntry(Path relativeDirectory) {
+
+        Entry entry = entries.get(relativeDirectory);
+
+        if (entry == null) {
+
+            Entry parentEntry;
+
+            if (relativeDirectory.toString().isEmpty()) {
+                parentEntry = EMPTY_ENTRY;
+
+            } else {
+                Path parent = relativeDirectory.getParent();
+                parentEntry = getEntry(parent != null ? parent : ROOT);
+            }
+
+            int types = getTypes(relativeDirectory);
+
+            Path packageJsonDirectory = (types & PACKAGE_JSON) != 0
+                    ? relativeDirectory
+                    : parentEntry.packageJsonDirectory;
+
+            Path wrapperJsonFile = (types & WRAPPER_JSON) != 0
+                    ? relativeDirectory.resolve(JsonDirectory.WRAPPER_JSON_FILE_NAME)
+                    : parentEntry.wrapperJsonFile;
+
+            // shares the parent's list whenever the directory has no config
+            List<Path> configFiles = parentEntry.configFiles;
+
+            if ((types & CONFIG) != 0) {
+                configFiles = new ArrayList<>(parentEntry.configFiles.size() + 1);
+                configFiles.add(relativeDirectory.resolve(JsonDirectory.CONFIG_FILE_NAME));
+                configFiles.addAll(parentEntry.configFiles);
+                configFiles = Collections.unmodifiableList(configFiles);
+            }
+
+            entry = new Entry(packageJsonDirectory, wrapperJsonFile, configFiles);
+
+            Entry existing = entries.putIfAbsent(relativeDirectory, entry);
+            if (existing != null) {
+                entry = existing;
+            }
+        }
+
+        return entry;
+    }
+
+    /*
+     * Gets the special files within the directory, from the scan if the
+     * directory was walked in full, or from the filesystem otherwise.
+     */
+    private int getTypes(Path relativeDirectory) {
+
+        if (isWalked(relativeDirectory)) {
+            return directoryFiles.getOrDefault(relativeDirectory, 0);
+        }
+
+        int types = 0;
+
+        for (String name : new String[] {
+                JsonDirectory.PACKAGE_JSON_FILE_NAME,
+                JsonDirectory.WRAPPER_JSON_FILE_NAME,
+                JsonDirectory.CONFIG_FILE_NAME }) {
+
+            if (overlay.exists(relativeDirectory.resolve(name))) {
+                types |= getType(name);
+            }
+        }
+
+        return types;
+    }
+
+    /*
+     * Checks if the directory was walked, and that it wasn't skipped within
+     * any other layer of the overlay.
+     */
+    private boolean isWalked(Path relativeDirectory) {
+
+        if (!walkedDirectories.contains(relativeDirectory)) {
+            return false;
+        }
+
+        if (!prunedDirectories.isEmpty()) {
+            for (Path path = relativeDirectory; path != null; path = path.getParent()) {
+                if (prunedDirectories.contains(path)) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private static int getType(String fileName) {
+        switch (fileName) {
+            case JsonDirectory.PACKAGE_JSON_FILE_NAME:
+                return PACKAGE_JSON;
+            case JsonDirectory.WRAPPER_JSON_FILE_NAME:
+                return WRAPPER_JSON;
+            case JsonDirectory.CONFIG_FILE_NAME:
+                return CONFIG;
+            default:
+                return 0;
+        }
+    }
+
+    /*
+     * The resolved lookups for a single directory.
+     */
+    private static final class Entry {
+
+        private final Path packageJsonDirectory;
+
+        private final Path wrapperJsonFile;
+
+        private final List<Path> configFiles;
+
+        private Entry(Path packageJsonDirectory, Path wrapperJsonFile, List<Path> configFiles) {
+            this.packageJsonDirectory = packageJsonDirectory;
+            this.wrapperJsonFile = wrapperJsonFile;
+            this.configFiles = configFiles;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.psddev.styleguide.codegen;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A read-only union of one or more directories that are presented as a
+ * single JSON directory. Each relative path is resolved against the layers
+ * from the last to the first, so files in later layers shadow the files at
+ * the same path in earlier ones, without anything being copied.
+ * <p>
+ * For backward compatibility, when multiple JSON directories are specified,
+ * each one is followed by template only layers for the template directories
+ * found relative to it based on the standard maven project directory
+ * structure, so that all the templates and JSON files can be resolved as if
+ * they were in a single directory.
+ * <p>
+ * Paths within the overlay are expressed relative to its {@link #getRoot()
+ * root}, which is the first JSON directory, and must always be mapped to the
+ * actual file via {@link #resolve(Path)} before being read.
+ */
+class JsonDirectoryOverlay {
+
+    private static final CliLogger LOGGER = CliLogger.getLogger();
+
+    private static final String[] TEMPLATE_DIRECTORY_PATHS = {
+            "../src/main/webapp",
+            "../src/main/resources" };
+
+    private Path root;
+
+    private List<Layer> layers;
+
+    private boolean templateDirectories;
+
+    private JsonDirectoryOverlay(List<Layer> layers) {
+        this.root = layers.get(0).directory;
+        this.layers = layers;
+        this.templateDirectories = layers.stream().anyMatch(layer -> layer.templatesOnly);
+    }
+
+    /**
+     * Creates a new overlay of the given JSON directories, in order of
+     * increasing precedence.
+     *
+     * @param jsonDirectories the JSON directories.
+     * @return a new overlay.
+     * @throws ViewClassGeneratorException if any of the directories doesn't exist.
+     */
+    public static JsonDirectoryOverlay create(Collection<Path> jsonDirectories) {
+
+        if (jsonDirectories.isEmpty()) {
+            throw new ViewClassGeneratorException("No JSON directory specified!");
+        }
+
+        List<Layer> layers = new ArrayList<>();
+
+        for (Path jsonDirectory : jsonDirectories) {
+
+            // resolve the path to make sure it actually exists.
+            layers.add(new Layer(toRealPath(jsonDirectory), false));
+
+            if (jsonDirectories.size() > 1) {
+
+                for (String templateDirectoryPath : TEMPLATE_DIRECTORY_PATHS) {
+
+                    Path templateDirectory = jsonDirectory.resolve(templateDirectoryPath);
+                    if (Files.isDirectory(templateDirectory)) {
+
+                        layers.add(new Layer(toRealPath(templateDirectory), true));
+                        LOGGER.yellow().append("Overlaying templates from: ").reset().append(templateDirectory.normalize()).log();
+                    }
+                }
+            }
+        }
+
+        return new JsonDirectoryOverlay(layers);
+    }
+
+    /**
+     * Gets the root of the overlay that all of its paths are relative to.
+     *
+     * @return the root path.
+     */
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Gets the real paths of the JSON directories in this overlay, in order
+     * of increasing precedence.
+     *
+     * @return the JSON directories.
+     */
+    public List<Path> getJsonDirectories() {
+        return Collections.unmodifiableList(layers.stream()
+                .filter(layer -> !layer.templatesOnly)
+                .map(layer -> layer.directory)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Checks if the overlay includes any template only directories.
+     *
+     * @return true if there are template directories.
+     */
+    public boolean hasTemplateDirectories() {
+        return templateDirectories;
+    }
+
+    /**
+     * Resolves the relative path to the file or directory that it refers to
+     * in the topmost layer that contains it. If no layer contains it, the
+     * path within the root is returned, which doesn't exist.
+     *
+     * @param relativePath the path relative to the root.
+     * @return the real path.
+     */
+    public Path resolve(Path relativePath) {
+
+        if (layers.size() == 1) {
+            return root.resolve(relativePath);
+        }
+
+        for (int i = layers.size() - 1; i >= 0; --i) {
+
+            Layer layer = layers.get(i);
+
+            if (layer.templatesOnly && TemplateType.findByFile(relativePath) == null) {
+                continue;
+            }
+
+            Path path = layer.directory.resolve(relativePath);
+
+            if (Files.exists(path)) {
+                return path;
+            }
+        }
+
+        return root.resolve(relativePath);
+    }
+
+    /**
+     * Checks if any of the layers contains the relative path.
+     *
+     * @param relativePath the path relative to the root.
+     * @return true if the path exists.
+     */
+    public boolean exists(Path relativePath) {
+        return Files.exists(resolve(relativePath));
+    }
+
+    /**
+     * Converts the real path of a file within any of the JSON directories to
+     * the path relative to the root.
+     *
+     * @param realPath the real path of the file.
+     * @return the relative path, or null if it's not within any JSON directory.
+     */
+    public Path relativize(Path realPath) {
+
+        for (int i = layers.size() - 1; i >= 0; --i) {
+
+            Layer layer = layers.get(i);
+
+            if (!layer.templatesOnly && realPath.startsWith(layer.directory)) {
+                return layer.directory.relativize(realPath);
+            }
+        }
+
+        return null;
+    }
+
+    private static Path toRealPath(Path directory) {
+        try {
+            return directory.toRealPath();
+        } catch (IOException e) {
+            throw new ViewClassGeneratorException(e);
+        }
+    }
+
+    /*
+     * A single directory within the overlay.
+     */
+    private static final class Layer {
+
+        private final Path directory;
+
+        // true if only the template files within the directory are visible
+        private final boolean templatesOnly;
+
+        private Layer(Path directory, boolean templatesOnly) {
+            this.directory = directory;
+            this.templatesOnly = templatesOnly;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.psddev.styleguide.codegen;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds all of the JSON files within a directory. Excluded directories, and
+ * the packages within node_modules directories other than the project's own
+ * package, are skipped entirely rather than being walked and filtered out
+ * afterwards, since they can contain a very large number of files.
+ */
+class JsonDirectoryScanner {
+
+    private static final String NODE_MODULES_PATH = "/node_modules/";
+
+    private static final String JSON_EXTENSION = ".json";
+
+    private Path directory;
+
+    private ExcludedPathMatcher excludedPathMatcher;
+
+    private String projectPath;
+
+    private JsonDirectoryIndex index;
+
+    private boolean includeTemplateFiles;
+
+    /**
+     * Creates a new scanner for the given directory.
+     *
+     * @param directory the real path of the directory to scan.
+     * @param excludedPathMatcher the matcher for the files and directories
+     *                            to exclude.
+     * @param projectPath the path of the project's package within
+     *                    node_modules in the form "/node_modules/name/", or
+     *                    null if all node_modules should be excluded.
+     */
+    public JsonDirectoryScanner(Path directory, ExcludedPathMatcher excludedPathMatcher, String projectPath) {
+        this(directory, excludedPathMatcher, projectPath, null);
+    }
+
+    /**
+     * Creates a new scanner for the given directory that also records the
+     * directories and files it walks in the given index.
+     *
+     * @param directory the real path of the directory to scan.
+     * @param excludedPathMatcher the matcher for the files and directories
+     *                            to exclude.
+     * @param projectPath the path of the project's package within
+     *                    node_modules in the form "/node_modules/name/", or
+     *                    null if all node_modules should be excluded.
+     * @param index the index to record the walked directories and files in,
+     *              or null.
+     */
+    public JsonDirectoryScanner(Path directory, ExcludedPathMatcher excludedPathMatcher, String projectPath, JsonDirectoryIndex index) {
+        this.directory = directory;
+        this.excludedPathMatcher = excludedPathMatcher;
+        this.projectPath = projectPath;
+        this.index = index;
+    }
+
+    /**
+     * Sets whether the files with a known template extension should be found
+     * in addition to the JSON files.
+     *
+     * @param includeTemplateFiles true if the template files should be found.
+     */
+    public void setIncludeTemplateFiles(boolean includeTemplateFiles) {
+        this.includeTemplateFiles = includeTemplateFiles;
+    }
+
+    /**
+     * Scans the directory for JSON files. If the context supplies a pool, the
+     * subdirectories of the directory are walked concurrently.
+     *
+     * @param context the context supplying the pool.
+     * @return the paths of all the JSON files found.
+     */
+    public Set<Path> scan(ViewClassGeneratorContext context) {
+
+        Set<Path> paths = new HashSet<>();
+
+        if (context.getForkJoinPool() == null) {
+            walk(directory, paths);
+            return paths;
+        }
+
+        List<Path> subdirectories = new ArrayList<>();
+
+        recordDirectory(directory, true);
+
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+
+            for (Path child : children) {
+
+                if (Files.isDirectory(child)) {
+                    if (isIncludedDirectory(child)) {
+                        subdirectories.add(child);
+                    } else {
+                        recordDirectory(child, false);
+                    }
+
+                } else {
+                    recordFile(child);
+
+                    if (isIncludedFile(child)) {
+                        paths.add(child);
+                    }
+                }
+            }
+
+        } catch (IOException e) {
+            throw new ViewClassGeneratorException(e);
+        }
+
+        for (Collection<Path> subdirectoryPaths : context.process(subdirectories, subdirectory -> {
+            Set<Path> subdirectoryPaths = new HashSet<>();
+            walk(subdirectory, subdirectoryPaths);
+            return subdirectoryPaths;
+        })) {
+            paths.addAll(subdirectoryPaths);
+        }
+
+        return paths;
+    }
+
+    /*
+     * Walks the given directory and adds all the JSON files found to paths.
+     */
+    private void walk(Path start, Set<Path> paths) {
+
+        try {
+            Files.walkFileTree(start, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) {
+
+                    boolean included = dir.equals(directory) || isIncludedDirectory(dir);
+
+                    recordDirectory(dir, included);
+
+                    return included ? FileVisitResult.CONTINUE : FileVisitResult.SKIP_SUBTREE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    if (!attributes.isDirectory()) {
+                        recordFile(file);
+
+                        if (isIncludedFile(file)) {
+                            paths.add(file);
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    // unreadable files and symbolic link cycles are skipped
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+
+        } catch (IOException e) {
+            throw new ViewClassGeneratorException(e);
+        }
+    }
+
+    /*
+     * Checks if the directory could contain any JSON files that should be
+     * included.
+     */
+    private boolean isIncludedDirectory(Path dir) {
+
+        Path relativeDir = directory.relativize(dir);
+
+        // the parents were already checked on the way down
+        if (excludedPathMatcher.matches(relativeDir, true)) {
+            return false;
+        }
+
+        String relativePath = "/" + toSlashPath(relativeDir) + "/";
+        int nodeModulesIndex = relativePath.lastIndexOf(NODE_MODULES_PATH);
+
+        if (nodeModulesIndex < 0) {
+            return true;
+        }
+
+        if (projectPath == null) {
+            return false;
+        }
+
+        // either within the project's package, or on the way to it
+        return (toSlashPath(dir) + "/").contains(projectPath)
+                || projectPath.startsWith(relativePath.substring(nodeModulesIndex));
+    }
+
+    /*
+     * Checks if the file is a JSON (or template) file that should be included. This
+     * doesn't depend on the directory pruning, so the files of a directory
+     * that is itself within node_modules are still filtered correctly.
+     */
+    private boolean isIncludedFile(Path file) {
+
+        String fileName = file.getFileName().toString();
+
+        if (!(fileName.endsWith(JSON_EXTENSION) || (includeTemplateFiles && TemplateType.findByFile(file) != null))
+                || excludedPathMatcher.matches(directory.relativize(file), false)) {
+            return false;
+        }
+
+        String pathString = toSlashPath(file);
+
+        return !pathString.contains(NODE_MODULES_PATH)
+                || (projectPath != null && pathString.contains(projectPath));
+    }
+
+    private void recordDirectory(Path dir, boolean walked) {
+        if (index != null) {
+            if (walked) {
+                index.addDirectory(directory.relativize(dir));
+            } else {
+                index.addPrunedDirectory(directory.relativize(dir));
+            }
+        }
+    }
+
+    private void recordFile(Path file) {
+        if (index != null) {
+            index.addFile(directory.relativize(file));
+        }
+    }
+
+    private static String toSlashPath(Path path) {
+        return path.toString().replace('\\', '/');
+    }
+}
@@ -1,12 +1,11 @@
 package com.psddev.styleguide.codegen;
 
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-
-import com.psddev.dari.util.IoUtils;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * A JSON file within a directory that can be parsed and resolved.
@@ -16,17 +15,31 @@ class JsonFile {
     private JsonDirectory baseDirectory;
 
     private Path path;
-    private String data;
 
-    private boolean isParsed;
-    private boolean isNormalized;
-    private boolean isResolved;
+    private volatile Path relativePath;
+
+    private volatile boolean isParsed;
+    private volatile boolean isNormalized;
+    private volatile boolean isResolved;
 
     private JsonValue parsedValue;
     private JsonValue normalizedValue;
     private List<JsonViewMap> resolvedViewMaps;
 
-    private List<JsonFileError> errors = new ArrayList<>();
+    private Set<JsonSpecialKey> specialKeys = Collections.emptySet();
+
+    // Resolving a file normalizes the files it references, so resolution
+    // guards itself with a separate lock to prevent two files that reference
+    // each other from deadlocking when they are resolved concurrently.
+    private final Object resolveLock = new Object();
+
+    private List<JsonFileError> errors = new CopyOnWriteArrayList<>();
+
+    // locations that are too large to be packed into a location code, which
+    // are rare enough that the list is only created for the first one. They
+    // are only added while parsing, under the file's monitor, and the values
+    // referring to them are only reachable once parse() has returned.
+    private List<long[]> overflowLocations;
 
     /**
      * Creates a new JSON file for the given path.
@@ -57,12 +70,14 @@ class JsonFile {
     }
 
     /**
-     * Gets the raw data from this file.
+     * Gets the path of the actual file on disk, which differs from
+     * {@link #getPath()} when the base directory overlays multiple
+     * directories.
      *
-     * @return the raw data.
+     * @return the real file path.
      */
-    public String getData() {
-        return data;
+    public Path getRealPath() {
+        return baseDirectory.getRealPath(getRelativePath());
     }
 
     /**
@@ -71,7 +86,12 @@ class JsonFile {
      * @return the relative path of this file.
      */
     public Path getRelativePath() {
-        return baseDirectory.getPath().relativize(path);
+        Path relativePath = this.relativePath;
+        if (relativePath == null) {
+            relativePath = baseDirectory.getPath().relativize(path);
+            this.relativePath = relativePath;
+        }
+        return relativePath;
     }
 
     /**
@@ -109,21 +129,34 @@ class JsonFile {
     }
 
     /**
-     * Parse this file's raw data as JSON and stores it as a {@link JsonValue}.
+     * Parse this file's contents as JSON and stores it as a {@link JsonValue}.
+     * If the context {@link ViewClassGeneratorContext#isFusedNormalization()
+     * normalizes files while parsing them}, the parsed value is also the
+     * normalized value.
      *
      * @return the parsed JsonValue representing this file.
      */
-    public JsonValue parse() {
+    public synchronized JsonValue parse() {
         if (!isParsed && errors.isEmpty()) {
 
-            try {
-                data = IoUtils.toString(path.toFile(), StandardCharsets.UTF_8);
-            } catch (IOException e) {
-                errors.add(new JsonFileError(e));
+            ViewClassGeneratorContext context = baseDirectory.getContext();
+            JsonFileParseCache parseCache = context.getParseCache();
+            JsonFileNormalizer normalizer = context.isFusedNormalization() ? new JsonFileNormalizer(this) : null;
+
+            if (parseCache != null) {
+                parsedValue = parseCache.load(this, normalizer, new JsonFileParser(this)::parse);
+            } else {
+                parsedValue = new JsonFileParser(this).parse(normalizer);
             }
 
-            if (data != null) {
-                parsedValue = new JsonFileParser(this).parse();
+            if (parsedValue != null && context.isCompactJsonTrees()) {
+                parsedValue = JsonTape.copyOf(this, parsedValue);
+            }
+
+            if (parsedValue != null && normalizer != null) {
+                normalizedValue = parsedValue;
+                specialKeys = normalizer.getSpecialKeys();
+                isNormalized = true;
             }
 
             isParsed = true;
@@ -137,17 +170,30 @@ class JsonFile {
      *
      * @return a normalized JsonValue.
      */
-    public JsonValue normalize() {
+    public synchronized JsonValue normalize() {
         if (!isNormalized && errors.isEmpty()) {
 
             if (isParsed() || parse() != null) {
-                normalizedValue = new JsonFileNormalizer(this).normalize();
+                JsonFileNormalizer normalizer = new JsonFileNormalizer(this);
+                normalizedValue = normalizer.normalize();
+                specialKeys = normalizer.getSpecialKeys();
                 isNormalized = true;
             }
         }
         return normalizedValue;
     }
 
+    /**
+     * Gets the special keys that appear anywhere in this file, which are
+     * recorded when the file is normalized.
+     *
+     * @return the special keys in this file, or an empty set if the file
+     *         hasn't been normalized yet.
+     */
+    public synchronized Set<JsonSpecialKey> getSpecialKeys() {
+        return Collections.unmodifiableSet(specialKeys);
+    }
+
     /**
      * Resolves any _dataUrl references to other files and brings them inline
      * into this file and converts special keys (Ex. _template) to structured
@@ -156,14 +202,16 @@ class JsonFile {
      * @return a structured map-like object representing this file.
      */
     public List<JsonViewMap> resolve() {
-        if (!isResolved && errors.isEmpty()) {
+        synchronized (resolveLock) {
+            if (!isResolved && errors.isEmpty()) {
 
-            if (isNormalized() || normalize() != null) {
-                resolvedViewMaps = new JsonFileResolver(this).resolve();
-                isResolved = true;
+                if (isNormalized() || normalize() != null) {
+                    resolvedViewMaps = new JsonFileResolver(this).resolve();
+                    isResolved = true;
+                }
             }
+            return resolvedViewMaps;
         }
-        return resolvedViewMaps;
     }
 
     /**
@@ -239,6 +287,34 @@ class JsonFile {
         errors.add(error);
     }
 
+    /**
+     * Stores a location within this file that can't be packed into a
+     * {@link JsonDataLocation location code}. Only called while the file is
+     * being parsed.
+     *
+     * @param location the line, column, and offset of the location.
+     * @return the index of the stored location.
+     */
+    synchronized int addOverflowLocation(long[] location) {
+
+        if (overflowLocations == null) {
+            overflowLocations = new ArrayList<>();
+        }
+
+        overflowLocations.add(location);
+        return overflowLocations.size() - 1;
+    }
+
+    /**
+     * Gets a location stored by {@link #addOverflowLocation(long[])}.
+     *
+     * @param index the index of the stored location.
+     * @return the line, column, and offset of the location.
+     */
+    long[] getOverflowLocation(int index) {
+        return overflowLocations.get(index);
+    }
+
     /**
      * Gets the nearest wrapper JSON file to this file.
      *
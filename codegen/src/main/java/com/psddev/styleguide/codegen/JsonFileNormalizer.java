@@ -1,8 +1,10 @@
 package com.psddev.styleguide.codegen;
 
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -10,7 +12,11 @@ import java.util.stream.Stream;
 
 /**
  * Normalizes all String values for specific keys that represent paths to other
- * files so they are relative to the base directory.
+ * files so they are relative to the base directory. The normalization is
+ * either done in a separate pass over the parsed value of a file, or fused
+ * into parsing by having the parser pass every map entry through
+ * {@link #normalizeEntry(JsonKey, JsonValue)} as it's parsed. Either way, the
+ * special keys found in the file are recorded.
  */
 class JsonFileNormalizer {
 
@@ -24,6 +30,10 @@ class JsonFileNormalizer {
 
     private JsonFile file;
 
+    private JsonStringPool stringPool;
+
+    private Set<JsonSpecialKey> specialKeys = EnumSet.noneOf(JsonSpecialKey.class);
+
     /**
      * Creates a new JSON file normalizer.
      *
@@ -31,92 +41,168 @@ class JsonFileNormalizer {
      */
     public JsonFileNormalizer(JsonFile file) {
         this.file = file;
+        this.stringPool = file.getBaseDirectory().getStringPool();
     }
 
     /**
      * Normalizes the file such that all String values for specific keys that
      * represent paths to other files are made absolutely relative to the file's
-     * base directory.
+     * base directory. Only the maps and lists that contain such values,
+     * directly or within their nested values, are copied. Everything else is
+     * shared with the parsed value, so neither must be modified.
      *
      * @return the normalized JSON value for the file.
      */
     public JsonValue normalize() {
-        JsonValue value = copyValue(file.parse());
-        normalizeValue(value);
+        return normalize(file.parse());
+    }
+
+    /**
+     * Normalizes the given value of the file in the same way as
+     * {@link #normalize()}.
+     *
+     * @param value the parsed value of the file.
+     * @return the normalized value.
+     */
+    public JsonValue normalize(JsonValue value) {
+        return normalizeValue(value);
+    }
+
+    /**
+     * Normalizes a single map entry whose value has already been normalized
+     * itself, recording the key if it's special. Parsers call this for every
+     * entry as it's parsed so that no separate pass is needed.
+     *
+     * @param key the key of the entry.
+     * @param value the value of the entry.
+     * @return the normalized value of the entry, or the same value if there
+     *         is nothing to normalize.
+     */
+    public JsonValue normalizeEntry(JsonKey key, JsonValue value) {
+
+        String name = key.getName();
+
+        if (!name.startsWith(JsonSpecialKey.PREFIX)) {
+            return value;
+        }
+
+        JsonSpecialKey specialKey = JsonSpecialKey.forAlias(name);
+
+        if (specialKey != null) {
+            specialKeys.add(specialKey);
+        }
+
+        // If the value is a String and matches one of the keys that should be normalized,
+        // then try to normalize it.
+        if (value instanceof JsonString && KEYS_TO_NORMALIZE.contains(name)) {
+            return normalizePath(key, (JsonString) value);
+        }
+
         return value;
     }
 
+    /**
+     * Gets the special keys that were found in the file while normalizing it.
+     *
+     * @return the special keys found in the file.
+     */
+    public Set<JsonSpecialKey> getSpecialKeys() {
+        return specialKeys;
+    }
+
     /*
-     * Copies the JSON value just by copying the list and map collections,
-     * since all other data is immutable.
+     * Performs the actual normalization on the parsed value, returning the
+     * same value if there was nothing to normalize within it.
      */
-    private JsonValue copyValue(JsonValue value) {
+    private JsonValue normalizeValue(JsonValue value) {
+
         if (value instanceof JsonMap) {
-            return new JsonMap(value.getLocation(),
-                    ((JsonMap) value).getValues().entrySet().stream()
-                            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)));
+            return normalizeMap((JsonMap) value);
 
         } else if (value instanceof JsonList) {
-            return new JsonList(value.getLocation(),
-                    ((JsonList) value).getValues().stream()
-                            .map(this::copyValue)
-                            .collect(Collectors.toList()));
+            return normalizeList((JsonList) value);
 
         } else {
             return value;
         }
     }
 
-    /*
-     * Performs the actual normalization on the parsed value.
-     */
-    private void normalizeValue(JsonValue value) {
+    private JsonValue normalizeMap(JsonMap jsonMap) {
 
-        if (value instanceof JsonMap) {
+        Map<JsonKey, JsonValue> values = jsonMap.getValues();
 
-            JsonMap jsonMap = (JsonMap) value;
+        // only copied once a value actually changes
+        Map<JsonKey, JsonValue> normalizedValues = null;
 
-            // First grab the keys and save them to a new set so we can modify the original map.
-            Set<JsonKey> keys = jsonMap.getValues().keySet().stream()
-                    .collect(Collectors.toSet());
+        for (Map.Entry<JsonKey, JsonValue> entry : values.entrySet()) {
 
-            // Iterate through the keys in the map.
-            keys.forEach(key -> {
+            JsonKey key = entry.getKey();
+            JsonValue keyValue = entry.getValue();
+            JsonValue normalizedValue = normalizeEntry(key, normalizeValue(keyValue));
 
-                JsonValue keyValue = jsonMap.getValue(key);
+            if (normalizedValue != keyValue) {
+                if (normalizedValues == null) {
+                    normalizedValues = new LinkedHashMap<>(values);
+                }
+                normalizedValues.put(key, normalizedValue);
+            }
+        }
 
-                // If the value is a String and matches one of the keys that should be normalized,
-                // then try to normalize it.
-                if (keyValue instanceof JsonString && KEYS_TO_NORMALIZE.contains(key.getName())) {
+        return normalizedValues != null ? new JsonMap(jsonMap.getLocationFile(), jsonMap.getLocationCode(), normalizedValues) : jsonMap;
+    }
 
-                    String rawPath = ((JsonString) keyValue).toRawValue();
+    private JsonValue normalizeList(JsonList jsonList) {
 
-                    // Normalize the path.
-                    Path normalizedPath = file.getNormalizedPath(Paths.get(rawPath), true);
+        List<JsonValue> values = jsonList.getValues();
 
-                    // If the file is outside the scope of the base directory, add an error.
-                    if ("..".equals(normalizedPath.getName(0).toString())) {
+        // only copied once a value actually changes
+        List<JsonValue> normalizedValues = null;
 
-                        file.addError(new JsonFileError("External path reference. ["
-                                + key.getName() + "] key with value ["
-                                + rawPath + "] refers to a path outside of the base directory.", keyValue.getLocation()));
+        for (int i = 0; i < values.size(); ++i) {
 
-                    } else {
-                        // Prepend a slash so when it's read later it's treated as an absolute path
-                        // from the base directory rather than from the file it is contained in and
-                        // replace the existing value in the map
-                        jsonMap.getValues().put(key, new JsonString(keyValue.getLocation(), "/" + normalizedPath.toString()));
-                    }
+            JsonValue value = values.get(i);
+            JsonValue normalizedValue = normalizeValue(value);
 
-                } else {
-                    // Recurse.
-                    normalizeValue(keyValue);
+            if (normalizedValue != value) {
+                if (normalizedValues == null) {
+                    normalizedValues = new ArrayList<>(values);
                 }
-            });
+                normalizedValues.set(i, normalizedValue);
+            }
+        }
 
-        } else if (value instanceof JsonList) {
-            // Normalize all values of the list.
-            ((JsonList) value).getValues().stream().forEach(this::normalizeValue);
+        return normalizedValues != null ? new JsonList(jsonList.getLocationFile(), jsonList.getLocationCode(), normalizedValues) : jsonList;
+    }
+
+    /*
+     * Normalizes a path so that it's relative to the base directory,
+     * returning the same value if it's already normalized, or invalid.
+     */
+    private JsonValue normalizePath(JsonKey key, JsonString keyValue) {
+
+        String rawPath = keyValue.toRawValue();
+
+        // Normalize the path.
+        JsonNormalizedPath normalizedPath = file.getBaseDirectory().getNormalizedPath(file, rawPath, true);
+
+        // If the file is outside the scope of the base directory, add an error.
+        if (normalizedPath.isExternal()) {
+
+            file.addError(new JsonFileError("External path reference. ["
+                    + key.getName() + "] key with value ["
+                    + rawPath + "] refers to a path outside of the base directory.", keyValue.getLocation()));
+
+            return keyValue;
+        }
+
+        // Prepend a slash so when it's read later it's treated as an absolute path
+        // from the base directory rather than from the file it is contained in.
+        String absolutePath = normalizedPath.getAbsolutePath();
+
+        if (absolutePath.equals(rawPath)) {
+            return keyValue;
         }
+
+        return new JsonString(keyValue.getLocationFile(), keyValue.getLocationCode(), stringPool.intern(absolutePath));
     }
 }
@@ -0,0 +1,396 @@
+package com.psddev.styleguide.codegen;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.psddev.dari.util.StringUtils;
+
+/**
+ * A persistent, on-disk cache of parsed JSON files. Each entry holds a compact
+ * binary serialization of a file's parsed {@link JsonValue} tree, including
+ * the line, column, and offset of every value, and is keyed by the absolute
+ * path of the file. An entry is only used if the size and last modified time
+ * of the file still match those recorded when the entry was written, so
+ * unchanged files can skip parsing entirely across separate builds.
+ */
+class JsonFileParseCache {
+
+    // Bump this whenever the binary format below changes.
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 0x4A534F4E; // "JSON"
+
+    private static final String ENTRY_EXTENSION = ".bin";
+
+    private static final byte NULL_TYPE = 0;
+    private static final byte TRUE_TYPE = 1;
+    private static final byte FALSE_TYPE = 2;
+    private static final byte LONG_TYPE = 3;
+    private static final byte DOUBLE_TYPE = 4;
+    private static final byte STRING_TYPE = 5;
+    private static final byte MAP_TYPE = 6;
+    private static final byte LIST_TYPE = 7;
+
+    private CliLogger logger = CliLogger.getLogger();
+
+    private Path directory;
+
+    private AtomicInteger hitCount = new AtomicInteger();
+
+    private AtomicInteger missCount = new AtomicInteger();
+
+    /**
+     * Creates a new parse cache that stores its entries in the given directory.
+     * The directory is created on demand the first time an entry is written.
+     *
+     * @param directory the directory where the cache entries are stored.
+     */
+    public JsonFileParseCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Gets the directory where the cache entries are stored.
+     *
+     * @return the cache directory.
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Gets the number of times a file's parsed value was found in the cache.
+     *
+     * @return the cache hit count.
+     */
+    public int getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Gets the number of times a file had to be parsed because it was missing
+     * from the cache or its entry was out of date.
+     *
+     * @return the cache miss count.
+     */
+    public int getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Gets the parsed value of the given file from the cache if the file is
+     * unchanged since it was cached, otherwise parses it with the given parser
+     * and caches the result. Results are only cached if the file has no
+     * errors.
+     *
+     * @param file the file to get the parsed value for.
+     * @param parser parses the file on a cache miss.
+     * @return the parsed value of the file.
+     */
+    public JsonValue load(JsonFile file, Supplier<JsonValue> parser) {
+        return load(file, null, parser);
+    }
+
+    /**
+     * Gets the parsed value of the given file in the same way as
+     * {@link #load(JsonFile, Supplier)}, normalized with the given
+     * normalizer. Cached values are normalized while they are read, while
+     * newly parsed ones are cached before they are normalized, since the
+     * normalized paths depend on the base directory that the file is in.
+     *
+     * @param file the file to get the parsed value for.
+     * @param normalizer the normalizer for the file, or null to not normalize.
+     * @param parser parses the file, without normalizing it, on a cache miss.
+     * @return the parsed, and normalized, value of the file.
+     */
+    public JsonValue load(JsonFile file, JsonFileNormalizer normalizer, Supplier<JsonValue> parser) {
+
+        Path path = file.getRealPath();
+
+        // read the file attributes before parsing so that a concurrent
+        // modification can never be cached under the newer timestamp.
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+        } catch (IOException e) {
+            recordMiss(file);
+            return normalize(parser.get(), normalizer);
+        }
+
+        String key = path.toAbsolutePath().toString();
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+
+        Path entryPath = getEntryPath(key);
+
+        JsonValue value = read(file, entryPath, key, size, lastModified, normalizer);
+
+        if (value != null) {
+            hitCount.incrementAndGet();
+            file.getBaseDirectory().getContext().getMetrics().increment(ViewClassGeneratorMetrics.Counter.PARSE_CACHE_HITS);
+            return value;
+        }
+
+        recordMiss(file);
+
+        value = parser.get();
+
+        if (value != null && !file.hasAnyErrors()) {
+            write(value, entryPath, key, size, lastModified);
+        }
+
+        return normalize(value, normalizer);
+    }
+
+    private JsonValue normalize(JsonValue value, JsonFileNormalizer normalizer) {
+        return value != null && normalizer != null ? normalizer.normalize(value) : value;
+    }
+
+    private void recordMiss(JsonFile file) {
+        missCount.incrementAndGet();
+        file.getBaseDirectory().getContext().getMetrics().increment(ViewClassGeneratorMetrics.Counter.PARSE_CACHE_MISSES);
+    }
+
+    /*
+     * Gets the path of the cache entry for the given key.
+     */
+    private Path getEntryPath(String key) {
+        return directory.resolve(StringUtils.hex(StringUtils.md5(key)) + ENTRY_EXTENSION);
+    }
+
+    /*
+     * Reads a cached value, returning null if the entry doesn't exist, is out
+     * of date, or can't be read.
+     */
+    private JsonValue read(JsonFile file, Path entryPath, String key, long size, long lastModified, JsonFileNormalizer normalizer) {
+
+        try (InputStream inputStream = Files.newInputStream(entryPath)) {
+
+            DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream));
+
+            if (input.readInt() != MAGIC
+                    || input.readInt() != FORMAT_VERSION
+                    || !key.equals(readString(input))
+                    || input.readLong() != size
+                    || input.readLong() != lastModified) {
+                return null;
+            }
+
+            return readValue(file, input, normalizer);
+
+        } catch (NoSuchFileException e) {
+            return null;
+
+        } catch (IOException | RuntimeException e) {
+            // treat a corrupt or unreadable entry as a miss, it will be overwritten
+            logger.yellow("Could not read parse cache entry [", entryPath, "]. Cause: ", e.getMessage());
+            return null;
+        }
+    }
+
+    /*
+     * Writes the value to a temporary file first and then moves it into place
+     * so that a partially written entry is never visible to another build.
+     */
+    private void write(JsonValue value, Path entryPath, String key, long size, long lastModified) {
+
+        Path tempPath = null;
+        try {
+            Files.createDirectories(directory);
+
+            tempPath = Files.createTempFile(directory, entryPath.getFileName().toString(), ".tmp");
+
+            try (OutputStream outputStream = Files.newOutputStream(tempPath)) {
+
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream));
+
+                output.writeInt(MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                writeString(output, key);
+                output.writeLong(size);
+                output.writeLong(lastModified);
+
+                writeValue(output, value);
+
+                output.flush();
+            }
+
+            try {
+                Files.move(tempPath, entryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempPath, entryPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+        } catch (IOException e) {
+            logger.yellow("Could not write parse cache entry [", entryPath, "]. Cause: ", e.getMessage());
+
+            if (tempPath != null) {
+                try {
+                    Files.deleteIfExists(tempPath);
+                } catch (IOException ignored) {
+                    // nothing else we can do
+                }
+            }
+        }
+    }
+
+    private void writeValue(DataOutputStream output, JsonValue value) throws IOException {
+
+        if (value instanceof JsonNull) {
+            output.writeByte(NULL_TYPE);
+            writeLocation(output, value.getLocation());
+
+        } else if (value instanceof JsonBoolean) {
+            output.writeByte(((JsonBoolean) value).toRawValue() ? TRUE_TYPE : FALSE_TYPE);
+            writeLocation(output, value.getLocation());
+
+        } else if (value instanceof JsonNumber) {
+            Number number = ((JsonNumber) value).toRawValue();
+
+            if (number instanceof Long) {
+                output.writeByte(LONG_TYPE);
+                writeLocation(output, value.getLocation());
+                output.writeLong(number.longValue());
+
+            } else {
+                output.writeByte(DOUBLE_TYPE);
+                writeLocation(output, value.getLocation());
+                output.writeDouble(number.doubleValue());
+            }
+
+        } else if (value instanceof JsonString) {
+            output.writeByte(STRING_TYPE);
+            writeLocation(output, value.getLocation());
+            writeString(output, ((JsonString) value).toRawValue());
+
+        } else if (value instanceof JsonMap) {
+            Map<JsonKey, JsonValue> values = ((JsonMap) value).getValues();
+
+            output.writeByte(MAP_TYPE);
+            writeLocation(output, value.getLocation());
+            output.writeInt(values.size());
+
+            for (Map.Entry<JsonKey, JsonValue> entry : values.entrySet()) {
+                JsonKey key = entry.getKey();
+                writeString(output, key.getName());
+                writeLocation(output, key.getLocation());
+                writeValue(output, entry.getValue());
+            }
+
+        } else if (value instanceof JsonList) {
+            List<JsonValue> values = ((JsonList) value).getValues();
+
+            output.writeByte(LIST_TYPE);
+            writeLocation(output, value.getLocation());
+            output.writeInt(values.size());
+
+            for (JsonValue item : values) {
+                writeValue(output, item);
+            }
+
+        } else {
+            throw new IOException("Unsupported JSON value type: " + value.getClass().getName());
+        }
+    }
+
+    private JsonValue readValue(JsonFile file, DataInputStream input, JsonFileNormalizer normalizer) throws IOException {
+
+        JsonStringPool stringPool = file.getBaseDirectory().getStringPool();
+
+        byte type = input.readByte();
+        long location = readLocation(file, input);
+
+        switch (type) {
+            case NULL_TYPE: {
+                return new JsonNull(file, location);
+            }
+            case TRUE_TYPE: {
+                return new JsonBoolean(file, location, true);
+            }
+            case FALSE_TYPE: {
+                return new JsonBoolean(file, location, false);
+            }
+            case LONG_TYPE: {
+                return new JsonNumber(file, location, input.readLong());
+            }
+            case DOUBLE_TYPE: {
+                return new JsonNumber(file, location, input.readDouble());
+            }
+            case STRING_TYPE: {
+                return new JsonString(file, location, stringPool.internValue(readString(input)));
+            }
+            case MAP_TYPE: {
+                int size = input.readInt();
+                Map<JsonKey, JsonValue> values = new LinkedHashMap<>();
+
+                for (int i = 0; i < size; i++) {
+                    JsonKey key = new JsonKey(stringPool.intern(readString(input)), file, readLocation(file, input));
+                    JsonValue value = readValue(file, input, normalizer);
+                    values.put(key, normalizer != null ? normalizer.normalizeEntry(key, value) : value);
+                }
+
+                return new JsonMap(file, location, values);
+            }
+            case LIST_TYPE: {
+                int size = input.readInt();
+                List<JsonValue> values = new ArrayList<>(size);
+
+                for (int i = 0; i < size; i++) {
+                    values.add(readValue(file, input, normalizer));
+                }
+
+                return new JsonList(file, location, values);
+            }
+            default: {
+                throw new IOException("Unknown JSON value type: " + type);
+            }
+        }
+    }
+
+    private void writeLocation(DataOutputStream output, JsonDataLocation location) throws IOException {
+        output.writeLong(toPrimitive(location != null ? location.getLineNumber() : null));
+        output.writeLong(toPrimitive(location != null ? location.getColumnNumber() : null));
+        output.writeLong(toPrimitive(location != null ? location.getStreamOffset() : null));
+    }
+
+    private long readLocation(JsonFile file, DataInputStream input) throws IOException {
+        return JsonDataLocation.encode(file, input.readLong(), input.readLong(), input.readLong());
+    }
+
+    private static long toPrimitive(Long value) {
+        return value != null ? value : -1;
+    }
+
+    // DataOutput#writeUTF is limited to 64KB, which JSON string values can exceed.
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
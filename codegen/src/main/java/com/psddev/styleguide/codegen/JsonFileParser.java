@@ -1,18 +1,14 @@
 package com.psddev.styleguide.codegen;
 
-import java.io.StringReader;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
+import java.io.IOException;
+import java.nio.file.Files;
 
-import javax.json.Json;
-import javax.json.stream.JsonLocation;
-import javax.json.stream.JsonParser;
+import org.apache.commons.io.input.CountingInputStream;
 
 /**
  * Reads and parses a JSON file validating that it has correct JSON syntax and
- * stores the result in a Map-like structure.
+ * stores the result in a Map-like structure. The actual parsing is done by
+ * the {@link JsonParserBackend backend} configured on the context.
  */
 class JsonFileParser {
 
@@ -33,121 +29,39 @@ class JsonFileParser {
      * @return a Map-like (or List-like) structure that contains the parsed JSON data.
      */
     public JsonValue parse() {
-        JsonParser parser = null;
-        try {
-            parser = Json.createParser(new StringReader(file.getData()));
-
-            JsonParser.Event event = parser.next();
-            switch (event) {
-                case START_OBJECT: {
-                    return processObject(parser);
-                }
-                case START_ARRAY: {
-                    return processArray(parser);
-                }
-                default: {
-                    throw new IllegalStateException("Illegal event start event: " + event.name());
-                }
-            }
-        } catch (RuntimeException e) {
-            file.addError(new JsonFileError(e, parser != null ? getCurrentParserLocation(parser) : null));
-            return null;
-        }
+        return parse(null);
     }
 
-    private JsonMap processObject(JsonParser parser) {
-
-        Map<JsonKey, JsonValue> map = new LinkedHashMap<>();
-
-        JsonDataLocation objectStartLocation = getCurrentParserLocation(parser);
-
-        JsonKey key = null;
-        JsonValue value;
-
-        while (parser.hasNext()) {
-
-            JsonParser.Event event = parser.next();
-
-            if (key == null) {
-                switch (event) {
-                    case KEY_NAME: {
-                        key = new JsonKey(parser.getString(), getCurrentParserLocation(parser));
-                        break;
-                    }
-                    case END_OBJECT: {
-                        return new JsonMap(objectStartLocation, map);
-                    }
-                    default: {
-                        throw new IllegalStateException("Illegal event during key processing: " + event.name());
-                    }
-                }
-            } else { // process value
-                value = processValue(parser, event);
-                map.put(key, value);
-                key = null;
-            }
-        }
-
-        throw new IllegalStateException("Never received an " + JsonParser.Event.END_OBJECT + " event!");
-    }
-
-    private JsonList processArray(JsonParser parser) {
-
-        List<JsonValue> values = new ArrayList<>();
+    /**
+     * Parses the file while normalizing it with the given normalizer, storing
+     * any errors detected in the file's metadata.
+     *
+     * @param normalizer the normalizer for the file, or null to not normalize.
+     * @return a Map-like (or List-like) structure that contains the parsed,
+     *         and normalized, JSON data.
+     */
+    public JsonValue parse(JsonFileNormalizer normalizer) {
 
-        JsonLocation arrayStartLocation = parser.getLocation();
+        ViewClassGeneratorContext context = file.getBaseDirectory().getContext();
 
-        while (parser.hasNext()) {
+        ViewClassGeneratorMetrics metrics = context.getMetrics();
+        metrics.increment(ViewClassGeneratorMetrics.Counter.FILES_PARSED);
 
-            JsonParser.Event event = parser.next();
+        try (CountingInputStream input = new CountingInputStream(Files.newInputStream(file.getRealPath()))) {
+            try {
+                return context.getParserBackend().parse(file, input, normalizer);
 
-            switch (event) {
-                case END_ARRAY: {
-                    return new JsonList(new JsonDataLocation(file, arrayStartLocation), values);
-                }
-                default: {
-                    values.add(processValue(parser, event));
-                }
+            } finally {
+                metrics.add(ViewClassGeneratorMetrics.Counter.BYTES_READ, input.getByteCount());
             }
-        }
 
-        throw new IllegalStateException("Never received an " + JsonParser.Event.END_ARRAY + " event!");
-    }
+        } catch (IOException e) {
+            file.addError(new JsonFileError(e));
+            return null;
 
-    private JsonValue processValue(JsonParser parser, JsonParser.Event event) {
-        switch (event) {
-            case START_OBJECT: {
-                return processObject(parser);
-            }
-            case START_ARRAY: {
-                return processArray(parser);
-            }
-            case VALUE_STRING: {
-                return new JsonString(getCurrentParserLocation(parser), parser.getString());
-            }
-            case VALUE_NUMBER: {
-                if (parser.isIntegralNumber()) {
-                    return new JsonNumber(getCurrentParserLocation(parser), parser.getLong());
-                } else {
-                    return new JsonNumber(getCurrentParserLocation(parser), parser.getBigDecimal().doubleValue());
-                }
-            }
-            case VALUE_TRUE: {
-                return new JsonBoolean(getCurrentParserLocation(parser), true);
-            }
-            case VALUE_FALSE: {
-                return new JsonBoolean(getCurrentParserLocation(parser), false);
-            }
-            case VALUE_NULL: {
-                return new JsonNull(getCurrentParserLocation(parser));
-            }
-            default: {
-                throw new IllegalStateException("Illegal event during value processing: " + event.name());
-            }
+        } catch (JsonParserBackendException e) {
+            file.addError(new JsonFileError(e.getCause() != null ? e.getCause() : e, e.getLocation()));
+            return null;
         }
     }
-
-    private JsonDataLocation getCurrentParserLocation(JsonParser parser) {
-        return new JsonDataLocation(file, parser.getLocation());
-    }
 }
@@ -1,6 +1,6 @@
 package com.psddev.styleguide.codegen;
 
-import java.io.IOException;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -24,6 +24,10 @@ class JsonFileResolver {
 
     private JsonFile file;
 
+    // the number of errors added while resolving, including those that were
+    // ignored because they belong to another file.
+    private int errorCount;
+
     /**
      * Creates a new JSON file resolve for the given file.
      *
@@ -76,7 +80,7 @@ class JsonFileResolver {
      * Helper method for resolving JSON view maps.
      */
     private List<JsonViewMap> resolveViewMaps(JsonMap jsonMap) {
-        return resolveMap(jsonMap, true, new LinkedHashSet<>(), true)
+        return resolveMap(jsonMap, true, JsonDataUrlChain.EMPTY, true)
                 .stream()
                 .filter(JsonViewMap.class::isInstance)
                 .map(JsonViewMap.class::cast)
@@ -89,12 +93,21 @@ class JsonFileResolver {
      * defines a _dataUrl/_include that points to a List, and thus the Map
      * should be converted as such.
      */
-    private List<JsonMap> resolveMap(JsonMap jsonMap, boolean isViewExpected, Set<Path> visitedDataUrlPaths, boolean isBeginningOfFile) {
+    private List<JsonMap> resolveMap(JsonMap jsonMap, boolean isViewExpected, JsonDataUrlChain visitedDataUrlPaths, boolean isBeginningOfFile) {
 
         List<JsonMap> resolveMaps = new ArrayList<>();
 
-        // look for a _dataUrl and return a new unresolved map (or list of maps) containing all the values from the data url, or just return the same map
-        List<JsonMap> mergedList = tryFetchAndMergeDataUrl(jsonMap, visitedDataUrlPaths);
+        // look for a _dataUrl and fetch the fully resolved contents of the file it references
+        JsonDataUrlResolution resolution = fetchDataUrl(jsonMap, visitedDataUrlPaths);
+
+        // return a new unresolved map (or list of maps) containing all the values from the data url, or just return the same map
+        List<JsonMap> mergedList = mergeDataUrl(resolution, jsonMap);
+
+        // If the file contains another _dataUrl key anywhere inside of it, then track that we
+        // visited it in case we encounter it again as we recurse down the tree.
+        if (resolution != null && resolution.containsDataUrl()) {
+            visitedDataUrlPaths = visitedDataUrlPaths.append(resolution.getPath());
+        }
 
         for (JsonMap mergedJsonMap : mergedList) {
 
@@ -127,7 +140,7 @@ class JsonFileResolver {
 
                     // only resolve the value if it's a view, otherwise it's just a raw map.
                     if (viewKey != null) {
-                        value = resolveValue(key, value, new LinkedHashSet<>(visitedDataUrlPaths));
+                        value = resolveValue(key, value, visitedDataUrlPaths);
                     }
 
                     resolved.put(key, value);
@@ -146,7 +159,7 @@ class JsonFileResolver {
                 resolveMaps.add(new JsonDelegateMap(mergedJsonMap.getLocation(), resolved, file));
 
             } else {
-                resolveMaps.add(new JsonMap(mergedJsonMap.getLocation(), resolved));
+                resolveMaps.add(new JsonMap(mergedJsonMap.getLocationFile(), mergedJsonMap.getLocationCode(), resolved));
             }
         }
 
@@ -158,7 +171,7 @@ class JsonFileResolver {
      * JSON lists from being directly nested (immediate child) within another
      * list.
      */
-    private JsonValue resolveValue(JsonKey key, JsonValue value, Set<Path> visitedDataUrlPaths) {
+    private JsonValue resolveValue(JsonKey key, JsonValue value, JsonDataUrlChain visitedDataUrlPaths) {
 
         if (value instanceof JsonMap) {
 
@@ -172,21 +185,21 @@ class JsonFileResolver {
                 return resolvedList.get(0);
 
             } else {
-                return new JsonList(value.getLocation(), resolvedList);
+                return new JsonList(value.getLocationFile(), value.getLocationCode(), resolvedList);
             }
 
         } else if (value instanceof JsonList) {
 
             List<JsonValue> values = ((JsonList) value).getValues()
                     .stream()
-                    .map(jsonValue -> resolveValue(key, jsonValue, new LinkedHashSet<>(visitedDataUrlPaths)))
+                    .map(jsonValue -> resolveValue(key, jsonValue, visitedDataUrlPaths))
                     .collect(Collectors.toList());
 
             if (values.stream().anyMatch(jsonValue -> jsonValue instanceof JsonList)) {
                 addError("Nested lists are not supported", value);
             }
 
-            return new JsonList(value.getLocation(), values);
+            return new JsonList(value.getLocationFile(), value.getLocationCode(), values);
 
         } else {
             return value;
@@ -236,7 +249,7 @@ class JsonFileResolver {
         String wrapperPath = ((JsonString) wrapper).toRawValue();
 
         // find the corresponding json file
-        JsonFile wrapperFile = file.getBaseDirectory().getNormalizedFile(file, Paths.get(wrapperPath));
+        JsonFile wrapperFile = file.getBaseDirectory().getNormalizedFile(file, wrapperPath);
 
         if (wrapperFile == null) {
             addError("Couldn't find " + JsonSpecialKey.WRAPPER_KEY.getAlias(jsonMap::containsKey) + ": " + wrapperPath, wrapper);
@@ -248,20 +261,10 @@ class JsonFileResolver {
 
     /*
      * Checks if the given resolved value contains a delegate map anywhere
-     * by traversing any children the value may have.
+     * using the summary that the value computed of its children.
      */
     private boolean containsDelegateMapAnywhere(JsonValue resolvedValue) {
-
-        if (resolvedValue instanceof JsonMap) {
-            return resolvedValue instanceof JsonDelegateMap
-                    || ((JsonMap) resolvedValue).getValues().values().stream().anyMatch(this::containsDelegateMapAnywhere);
-
-        } else if (resolvedValue instanceof JsonList) {
-            return ((JsonList) resolvedValue).getValues().stream().anyMatch(this::containsDelegateMapAnywhere);
-
-        } else {
-            return false;
-        }
+        return resolvedValue != null && resolvedValue.containsDelegateMap();
     }
 
     /*
@@ -404,14 +407,15 @@ class JsonFileResolver {
     private TemplateViewKey resolveTemplateViewKey(JsonString viewKey, JsonString template) {
 
         // resolve the template path. It may or may not have an extension, i.e. templates/foo/Bar vs templates/foo/Bar.hbs
-        Path templatePath = file.getNormalizedPath(Paths.get(template.toRawValue()));
+        JsonNormalizedPath normalizedTemplatePath = file.getBaseDirectory().getNormalizedPath(file, template.toRawValue(), false);
 
-        if ("..".equals(templatePath.getName(0).toString())) {
+        if (normalizedTemplatePath.isExternal()) {
             addError("External template reference. [" + template.toRawValue()
                     + "] refers to a path outside of the base directory.", template);
             return null;
         }
 
+        Path templatePath = normalizedTemplatePath.getPath();
         Path templateDirectory = templatePath.getParent();
         String templateName = templatePath.getName(templatePath.getNameCount() - 1).toString();
 
@@ -472,10 +476,8 @@ class JsonFileResolver {
         }
 
         // check to make sure the file actually exists.
-        try {
-            file.getBaseDirectory().getPath().resolve(templatePath).toRealPath();
-        } catch (IOException e) {
-            addError(e.getClass().getName() + ": " + templatePath, template);
+        if (!file.getBaseDirectory().containsTemplate(file, templatePath)) {
+            addError(NoSuchFileException.class.getName() + ": " + templatePath, template);
         }
 
         if (templateType != null) {
@@ -491,45 +493,93 @@ class JsonFileResolver {
     }
 
     /*
-     * Given a JSON map with a _dataUrl key, this method fetches the JSON file
-     * referenced by the key's value and inserts its values into the map. Any
-     * keys that were present in the map prior to fetching the _dataUrl are
-     * overlaid on top of the _dataUrl's key/values, effectively allowing you
-     * to override the values from the _dataUrl. This method will recursively
-     * fetch subsequent _dataUrls that are found in the resulting map while
-     * also preventing cyclic references that could result in a stack overflow.
+     * Given a JSON map with a _dataUrl key, and the fetched contents of the
+     * JSON file referenced by the key's value, this method inserts the
+     * contents' values into the map. Any keys that were present in the map
+     * prior to fetching the _dataUrl are overlaid on top of the _dataUrl's
+     * key/values, effectively allowing you to override the values from the
+     * _dataUrl. If nothing was fetched, the map is returned as is.
      */
-    private List<JsonMap> tryFetchAndMergeDataUrl(JsonMap jsonMap, Set<Path> visitedDataUrlPaths) {
+    private List<JsonMap> mergeDataUrl(JsonDataUrlResolution resolution, JsonMap jsonMap) {
 
-        // if there's no data url key, just return the original
-        if (!jsonMap.containsKey(JsonSpecialKey.DATA_URL_KEY)) {
+        if (resolution == null) {
             return Collections.singletonList(jsonMap);
         }
 
+        return resolution.getMaps().stream()
+                .map(dataUrlMap -> mergeDataUrlMap(dataUrlMap, jsonMap))
+                .collect(Collectors.toList());
+    }
+
+    /*
+     * Fetches the fully resolved contents of the file referenced by the
+     * map's _dataUrl key, recursively fetching subsequent _dataUrls that are
+     * found in the file while also preventing cyclic references that could
+     * result in a stack overflow. Returns null if the key is missing or there
+     * was an error, in which case the map should be left as is.
+     */
+    private JsonDataUrlResolution fetchDataUrl(JsonMap jsonMap, JsonDataUrlChain visitedDataUrlPaths) {
+
+        // if there's no data url key, there's nothing to fetch
+        if (!jsonMap.containsKey(JsonSpecialKey.DATA_URL_KEY)) {
+            return null;
+        }
+
         // get its value
         JsonValue dataUrlValue = jsonMap.getValue(JsonSpecialKey.DATA_URL_KEY);
         if (!(dataUrlValue instanceof JsonString)) {
             addError(JsonSpecialKey.DATA_URL_KEY.getAlias(jsonMap::containsKey) + " must be a String", dataUrlValue);
-            return Collections.singletonList(jsonMap);
+            return null;
         }
 
         String dataUrl = ((JsonString) dataUrlValue).toRawValue();
 
         // find the corresponding json file
-        JsonFile dataUrlFile = file.getBaseDirectory().getNormalizedFile(file, Paths.get(dataUrl));
+        JsonFile dataUrlFile = file.getBaseDirectory().getNormalizedFile(file, dataUrl);
+        file.getBaseDirectory().getContext().getMetrics().increment(ViewClassGeneratorMetrics.Counter.DATA_URL_FETCHES);
 
         // if no file can be found, error and return.
         if (dataUrlFile == null) {
             addError("Couldn't find " + JsonSpecialKey.DATA_URL_KEY.getAlias(jsonMap::containsKey) + ": " + dataUrl, dataUrlValue);
-            return Collections.singletonList(jsonMap);
+            return null;
         }
 
-        // Prevent cyclic references by adding the path to the set. If it's already present error and return.
+        // Prevent cyclic references by checking the path against the files visited so far. If it's present error and return.
         if (visitedDataUrlPaths.contains(dataUrlFile.getRelativePath())) {
             addError(JsonSpecialKey.DATA_URL_KEY.getAlias(jsonMap::containsKey) + " contains a cyclic reference: " + visitedDataUrlPaths, dataUrlValue);
-            return Collections.singletonList(jsonMap);
+            return null;
         }
 
+        return resolveDataUrlFile(dataUrlFile, jsonMap, visitedDataUrlPaths);
+    }
+
+    /*
+     * Resolves the contents of a file referenced via _dataUrl by recursively
+     * fetching and merging any _dataUrls at the root of its maps. The result
+     * doesn't depend on the map that referenced the file, so it's cached in
+     * the directory and shared by every other reference to the same file,
+     * unless one of the files it was resolved from has already been visited,
+     * in which case it's resolved again to report the cyclic reference.
+     * Results with errors are never cached.
+     */
+    private JsonDataUrlResolution resolveDataUrlFile(JsonFile dataUrlFile, JsonMap jsonMap, JsonDataUrlChain visitedDataUrlPaths) {
+
+        JsonDirectory directory = file.getBaseDirectory();
+        Path dataUrlPath = dataUrlFile.getRelativePath();
+
+        JsonDataUrlResolution cached = directory.getDataUrlResolution(dataUrlPath);
+
+        if (cached != null && !visitedDataUrlPaths.containsAny(cached.getPaths())) {
+
+            // the files that would have been fetched are still dependencies
+            directory.addDependencies(file, cached.getPaths());
+            directory.getContext().getMetrics().increment(ViewClassGeneratorMetrics.Counter.DATA_URL_CACHE_HITS);
+
+            return cached;
+        }
+
+        int previousErrorCount = errorCount;
+
         // Parse the file to get the unresolved value.
         JsonValue dataUrlContents = dataUrlFile.normalize();
 
@@ -549,49 +599,78 @@ class JsonFileResolver {
 
             if (jsonMaps.size() < values.size()) {
                 addError("JSON Array files must only contain maps!", dataUrlContents);
-                return Collections.singletonList(jsonMap);
+                return null;
             }
 
             dataUrlMaps.addAll(jsonMaps);
 
         } else {
             addError("The contents of a " + JsonSpecialKey.DATA_URL_KEY.getAlias(jsonMap::containsKey) + " must be a Map or List!", dataUrlContents);
-            return Collections.singletonList(jsonMap);
+            return null;
         }
 
-        List<JsonMap> mergedMaps = new ArrayList<>();
+        List<JsonMap> resolvedMaps = new ArrayList<>();
+        Set<Path> paths = new LinkedHashSet<>();
+        boolean containsDataUrl = false;
+
+        paths.add(dataUrlPath);
 
         for (JsonMap dataUrlMap : dataUrlMaps) {
 
             // Check if the dataUrl map contains another _dataUrl key anywhere inside of it.
             // If it does then we need to track that we visited this file in case we encounter
             // it again as we recurse down the tree.
-            if (dataUrlMap.containsKeyAnywhere(JsonSpecialKey.DATA_URL_KEY)) {
-                visitedDataUrlPaths.add(dataUrlFile.getRelativePath());
+            if (!containsDataUrl && dataUrlMap.containsKeyAnywhere(JsonSpecialKey.DATA_URL_KEY)) {
+                visitedDataUrlPaths = visitedDataUrlPaths.append(dataUrlPath);
+                containsDataUrl = true;
             }
 
-            // Finally, merge the values of the data url and the original map together.
-            Map<JsonKey, JsonValue> mergedValues = new LinkedHashMap<>();
+            // recurse in case the data url contained another data url
+            JsonDataUrlResolution nested = fetchDataUrl(dataUrlMap, visitedDataUrlPaths);
+
+            if (nested != null) {
+                paths.addAll(nested.getPaths());
 
-            // put all the dataUrl values into the merged map
-            mergedValues.putAll(dataUrlMap.getValues());
+                for (JsonMap nestedMap : nested.getMaps()) {
+                    resolvedMaps.add(mergeDataUrlMap(nestedMap, dataUrlMap));
+                }
 
-            // overlay all of the original json map's values onto the merged map.
-            jsonMap.getValues().entrySet().stream()
-                    .filter(entry -> !JsonSpecialKey.DATA_URL_KEY.getAliases().contains(entry.getKey().getName()))
-                    .collect(Collectors.toMap(
-                            Map.Entry::getKey,
-                            Map.Entry::getValue,
-                            (value1, value2) -> value2,
-                            () -> mergedValues));
+            } else {
+                resolvedMaps.add(dataUrlMap);
+            }
+        }
 
-            JsonMap mergedMap = new JsonMap(jsonMap.getLocation(), mergedValues);
+        JsonDataUrlResolution resolution = new JsonDataUrlResolution(dataUrlPath, resolvedMaps, paths, containsDataUrl);
 
-            // recurse in case the data url contained another data url
-            mergedMaps.addAll(tryFetchAndMergeDataUrl(mergedMap, new LinkedHashSet<>(visitedDataUrlPaths)));
+        if (errorCount == previousErrorCount) {
+            directory.putDataUrlResolution(dataUrlPath, resolution);
         }
 
-        return mergedMaps;
+        return resolution;
+    }
+
+    /*
+     * Merges the values of the data url and the original map together, with
+     * all of the original map's values, except for its _dataUrl, overlaid on
+     * top of the data url's values.
+     */
+    private JsonMap mergeDataUrlMap(JsonMap dataUrlMap, JsonMap jsonMap) {
+
+        Map<JsonKey, JsonValue> mergedValues = new LinkedHashMap<>();
+
+        // put all the dataUrl values into the merged map
+        mergedValues.putAll(dataUrlMap.getValues());
+
+        // overlay all of the original json map's values onto the merged map.
+        jsonMap.getValues().entrySet().stream()
+                .filter(entry -> !JsonSpecialKey.DATA_URL_KEY.getAliases().contains(entry.getKey().getName()))
+                .collect(Collectors.toMap(
+                        Map.Entry::getKey,
+                        Map.Entry::getValue,
+                        (value1, value2) -> value2,
+                        () -> mergedValues));
+
+        return new JsonMap(jsonMap.getLocationFile(), jsonMap.getLocationCode(), mergedValues);
     }
 
     /*
@@ -617,6 +696,7 @@ class JsonFileResolver {
      * Adds an error message to the JSON file being resolved.
      */
     private void addError(String message, JsonValue value) {
+        errorCount++;
         file.addError(new JsonFileError(message, value != null ? value.getLocation() : null));
     }
 
@@ -624,6 +704,7 @@ class JsonFileResolver {
      * Adds an error to the JSON file being resolved.
      */
     private void addError(Throwable error, JsonValue value) {
+        errorCount++;
         file.addError(new JsonFileError(error, value != null ? value.getLocation() : null));
     }
 }
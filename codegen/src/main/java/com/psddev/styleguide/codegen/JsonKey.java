@@ -9,7 +9,9 @@ class JsonKey {
 
     private String notes;
 
-    private JsonDataLocation location;
+    // the location is stored in its compact form and only materialized on demand
+    private JsonFile locationFile;
+    private long locationCode;
 
     /**
      * Creates a new key with the given name and file location.
@@ -19,7 +21,24 @@ class JsonKey {
      */
     public JsonKey(String name, JsonDataLocation location) {
         this.name = name;
-        this.location = location;
+        if (location != null) {
+            this.locationFile = location.getFile();
+            this.locationCode = location.getCode();
+        }
+    }
+
+    /**
+     * Creates a new key with the given name from the compact form of its
+     * location.
+     *
+     * @param name the name of the key.
+     * @param locationFile the file containing the key, or null if unknown.
+     * @param locationCode the packed location of the key within the file.
+     */
+    JsonKey(String name, JsonFile locationFile, long locationCode) {
+        this.name = name;
+        this.locationFile = locationFile;
+        this.locationCode = locationCode;
     }
 
     /**
@@ -49,7 +68,25 @@ class JsonKey {
      * @return the location of the key within a file.
      */
     public JsonDataLocation getLocation() {
-        return location;
+        return locationFile != null ? new JsonDataLocation(locationFile, locationCode) : null;
+    }
+
+    /**
+     * Gets the file containing this key without materializing its location.
+     *
+     * @return the file containing this key, or null if unknown.
+     */
+    JsonFile getLocationFile() {
+        return locationFile;
+    }
+
+    /**
+     * Gets the packed location of this key within its file.
+     *
+     * @return the location code.
+     */
+    long getLocationCode() {
+        return locationCode;
     }
 
     /**
@@ -15,6 +15,10 @@ class JsonList extends JsonValue {
 
     private List<JsonValue> values;
 
+    // summaries of the list's entire subtree, see JsonValue
+    private int specialKeyMask;
+    private boolean containsDelegateMap;
+
     /**
      * Creates a list JSON object with location information.
      *
@@ -22,8 +26,38 @@ class JsonList extends JsonValue {
      * @param values the list of JSON values.
      */
     public JsonList(JsonDataLocation location, List<? extends JsonValue> values) {
-        super(location);
+        this(location != null ? location.getFile() : null, location != null ? location.getCode() : JsonDataLocation.UNKNOWN, values);
+    }
+
+    /**
+     * Creates a list JSON object from the compact form of its location.
+     *
+     * @param locationFile the file containing the list, or null if unknown.
+     * @param locationCode the packed location of the list within the file.
+     * @param values the list of JSON values.
+     */
+    JsonList(JsonFile locationFile, long locationCode, List<? extends JsonValue> values) {
+        super(locationFile, locationCode);
         this.values = new ArrayList<>(values);
+
+        for (JsonValue value : values) {
+            if (value != null) {
+                specialKeyMask |= value.getSpecialKeyMask();
+                containsDelegateMap |= value.containsDelegateMap();
+            }
+        }
+    }
+
+    /**
+     * Creates a list JSON object whose values are looked up by a subclass,
+     * which must override {@link #getValues()} and
+     * {@link #getSpecialKeyMask()}.
+     *
+     * @param locationFile the file containing the list.
+     * @param locationCode the packed location of the list within the file.
+     */
+    JsonList(JsonFile locationFile, long locationCode) {
+        super(locationFile, locationCode);
     }
 
     /**
@@ -35,9 +69,19 @@ class JsonList extends JsonValue {
         return values;
     }
 
+    @Override
+    int getSpecialKeyMask() {
+        return specialKeyMask;
+    }
+
+    @Override
+    boolean containsDelegateMap() {
+        return containsDelegateMap;
+    }
+
     @Override
     public List<Object> toRawValue() {
-        return values.stream()
+        return getValues().stream()
                 .map(JsonValue::toRawValue)
                 .collect(Collectors.toList());
     }
@@ -17,6 +17,10 @@ class JsonMap extends JsonValue {
     // Used for powering more convenient String based API lookups within the main map.
     private Map<String, JsonKey> keyMap;
 
+    // summaries of the map's entire subtree, see JsonValue
+    private int specialKeyMask;
+    private boolean containsDelegateMap;
+
     /**
      * Creates a map JSON object with location information.
      *
@@ -24,13 +28,51 @@ class JsonMap extends JsonValue {
      * @param values the map of JSON key/values.
      */
     public JsonMap(JsonDataLocation location, Map<JsonKey, JsonValue> values) {
-        super(location);
+        this(location != null ? location.getFile() : null, location != null ? location.getCode() : JsonDataLocation.UNKNOWN, values);
+    }
+
+    /**
+     * Creates a map JSON object from the compact form of its location.
+     *
+     * @param locationFile the file containing the map, or null if unknown.
+     * @param locationCode the packed location of the map within the file.
+     * @param values the map of JSON key/values.
+     */
+    JsonMap(JsonFile locationFile, long locationCode, Map<JsonKey, JsonValue> values) {
+        super(locationFile, locationCode);
         this.values = values;
-        this.keyMap = values.entrySet().stream().collect(Collectors.toMap(
-                entry -> entry.getKey().getName(),
-                Map.Entry::getKey,
-                (key, value) -> value,
-                LinkedHashMap::new));
+        this.keyMap = new LinkedHashMap<>();
+        this.containsDelegateMap = this instanceof JsonDelegateMap;
+
+        for (Map.Entry<JsonKey, JsonValue> entry : values.entrySet()) {
+
+            JsonKey key = entry.getKey();
+            JsonValue value = entry.getValue();
+
+            keyMap.put(key.getName(), key);
+
+            JsonSpecialKey specialKey = JsonSpecialKey.forAlias(key.getName());
+            if (specialKey != null) {
+                specialKeyMask |= specialKey.getMask();
+            }
+
+            if (value != null) {
+                specialKeyMask |= value.getSpecialKeyMask();
+                containsDelegateMap |= value.containsDelegateMap();
+            }
+        }
+    }
+
+    /**
+     * Creates a map JSON object whose values are looked up by a subclass,
+     * which must override {@link #getValues()}, {@link #findKey(String)},
+     * {@link #findValue(JsonKey)}, and {@link #getSpecialKeyMask()}.
+     *
+     * @param locationFile the file containing the map.
+     * @param locationCode the packed location of the map within the file.
+     */
+    JsonMap(JsonFile locationFile, long locationCode) {
+        super(locationFile, locationCode);
     }
 
     /**
@@ -53,7 +95,7 @@ class JsonMap extends JsonValue {
             return ((JsonSpecialKey) name).getAliases().stream().anyMatch(this::containsKey);
 
         } else if (name instanceof String) {
-            return keyMap.containsKey(name);
+            return findKey((String) name) != null;
 
         } else {
             return false;
@@ -69,10 +111,21 @@ class JsonMap extends JsonValue {
      */
     public boolean containsKeyAnywhere(Object name) {
         if (name instanceof JsonSpecialKey) {
-            return ((JsonSpecialKey) name).getAliases().stream().anyMatch(this::containsKeyAnywhere);
+            JsonSpecialKey specialKey = (JsonSpecialKey) name;
+            int mask = specialKey.getMask();
+
+            return mask != 0
+                    ? (getSpecialKeyMask() & mask) != 0
+                    : specialKey.getAliases().stream().anyMatch(this::containsKeyAnywhere);
 
         } else if (name instanceof String) {
-            return keyMap.containsKey(name)
+            // special keys that aren't in the summary can't be anywhere
+            JsonSpecialKey specialKey = JsonSpecialKey.forAlias((String) name);
+            if (specialKey != null && (getSpecialKeyMask() & specialKey.getMask()) == 0) {
+                return false;
+            }
+
+            return findKey((String) name) != null
                     || getValues().values().stream().anyMatch(itemValue -> containsKeyAnywhere((String) name, itemValue));
 
         } else {
@@ -111,7 +164,7 @@ class JsonMap extends JsonValue {
             return ((JsonSpecialKey) name).getAliases().stream().map(this::getKey).filter(Objects::nonNull).findFirst().orElse(null);
 
         } else if (name instanceof String) {
-            return keyMap.get(name);
+            return findKey((String) name);
 
         } else {
             return null;
@@ -143,7 +196,37 @@ class JsonMap extends JsonValue {
      * @return the JSON value for the given key.
      */
     public JsonValue getValue(JsonKey jsonKey) {
-        return jsonKey != null ? values.get(jsonKey) : null;
+        return jsonKey != null ? findValue(jsonKey) : null;
+    }
+
+    @Override
+    int getSpecialKeyMask() {
+        return specialKeyMask;
+    }
+
+    @Override
+    boolean containsDelegateMap() {
+        return containsDelegateMap;
+    }
+
+    /**
+     * Gets the key with the given name.
+     *
+     * @param name the name of the JSON key.
+     * @return the key, or null if there's no such key.
+     */
+    protected JsonKey findKey(String name) {
+        return keyMap.get(name);
+    }
+
+    /**
+     * Gets the value for the given key.
+     *
+     * @param jsonKey the key to lookup, never null.
+     * @return the value, or null if there's no such key.
+     */
+    protected JsonValue findValue(JsonKey jsonKey) {
+        return values.get(jsonKey);
     }
 
     /**
@@ -196,7 +279,7 @@ class JsonMap extends JsonValue {
 
     @Override
     public Map<String, Object> toRawValue() {
-        return values.entrySet().stream()
+        return getValues().entrySet().stream()
                 .collect(Collectors.toMap(
                         entry -> entry.getKey().getName(),
                         entry -> entry.getValue().toRawValue(),
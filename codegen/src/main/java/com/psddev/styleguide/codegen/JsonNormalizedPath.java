@@ -0,0 +1,62 @@
+package com.psddev.styleguide.codegen;
+
+import java.nio.file.Path;
+
+/**
+ * A path normalized relative to a {@link JsonDirectory}, along with whether it
+ * refers to something outside of that directory. Instances are shared between
+ * every reference to the same raw path from the same directory.
+ */
+class JsonNormalizedPath {
+
+    private final Path path;
+
+    private final String absolutePath;
+
+    private final boolean external;
+
+    /**
+     * Creates a new normalized path.
+     *
+     * @param path the path relative to the base directory.
+     */
+    public JsonNormalizedPath(Path path) {
+        this.path = path;
+        this.absolutePath = "/" + path.toString();
+        this.external = "..".equals(path.getName(0).toString());
+    }
+
+    /**
+     * Gets the path relative to the base directory.
+     *
+     * @return the normalized path.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the path prefixed with a slash, so that when it's read again it's
+     * treated as an absolute path from the base directory rather than from
+     * the file that contains it.
+     *
+     * @return the absolute path string.
+     */
+    public String getAbsolutePath() {
+        return absolutePath;
+    }
+
+    /**
+     * Checks if the path refers to something outside of the base directory.
+     *
+     * @return true if the path is outside of the base directory.
+     */
+    public boolean isExternal() {
+        return external;
+    }
+
+    @Override
+    public String toString() {
+        return path.toString();
+    }
+}
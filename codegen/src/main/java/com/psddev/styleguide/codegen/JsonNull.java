@@ -14,6 +14,16 @@ class JsonNull extends JsonValue {
         super(location);
     }
 
+    /**
+     * Creates a null JSON value from the compact form of its location.
+     *
+     * @param locationFile the file containing this null value, or null if unknown.
+     * @param locationCode the packed location of this null value within the file.
+     */
+    JsonNull(JsonFile locationFile, long locationCode) {
+        super(locationFile, locationCode);
+    }
+
     @Override
     public Object toRawValue() {
         return null;
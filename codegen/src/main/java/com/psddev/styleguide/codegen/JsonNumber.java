@@ -18,6 +18,18 @@ class JsonNumber extends JsonValue {
         this.value = value;
     }
 
+    /**
+     * Creates a number JSON object from the compact form of its location.
+     *
+     * @param locationFile the file containing the number value, or null if unknown.
+     * @param locationCode the packed location of the number value within the file.
+     * @param value the number value.
+     */
+    JsonNumber(JsonFile locationFile, long locationCode, Number value) {
+        super(locationFile, locationCode);
+        this.value = value;
+    }
+
     @Override
     public Number toRawValue() {
         return value;
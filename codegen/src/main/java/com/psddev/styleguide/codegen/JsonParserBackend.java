@@ -0,0 +1,79 @@
+package com.psddev.styleguide.codegen;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Parses the contents of a JSON file into a tree of {@link JsonValue values}
+ * along with the location of every value and key. Every backend must produce
+ * the same tree, with the same locations, for the same input so that they
+ * can be used interchangeably. The line, column, and offset of a location
+ * follow those reported by the javax.json reference implementation, i.e.
+ * they point just past the token that the value or key ends with, and the
+ * offset and column are counted in chars rather than bytes.
+ */
+interface JsonParserBackend {
+
+    /**
+     * The hand-written backend that parses the UTF-8 bytes directly. This is
+     * the default.
+     */
+    JsonParserBackend UTF8 = new Utf8JsonParserBackend();
+
+    /**
+     * The backend that uses the javax.json streaming parser.
+     */
+    JsonParserBackend JAVAX = new JavaxJsonParserBackend();
+
+    /**
+     * Gets the built-in backend with the given name.
+     *
+     * @param name the name of the backend.
+     * @return the backend.
+     * @throws IllegalArgumentException if there is no backend with the name.
+     */
+    static JsonParserBackend forName(String name) {
+
+        for (JsonParserBackend backend : new JsonParserBackend[] { UTF8, JAVAX }) {
+            if (backend.getName().equals(name)) {
+                return backend;
+            }
+        }
+
+        throw new IllegalArgumentException("JSON parser [" + name + "] must be one of [" + UTF8.getName() + ", " + JAVAX.getName() + "]!");
+    }
+
+    /**
+     * Gets the name this backend is selected by.
+     *
+     * @return the name of the backend.
+     */
+    String getName();
+
+    /**
+     * Parses the UTF-8 encoded JSON contents of the file.
+     *
+     * @param file the file being parsed that the locations refer to.
+     * @param input the contents of the file.
+     * @return the root JSON value of the file.
+     * @throws IOException if the contents can't be read.
+     * @throws JsonParserBackendException if the contents aren't valid JSON.
+     */
+    default JsonValue parse(JsonFile file, InputStream input) throws IOException {
+        return parse(file, input, null);
+    }
+
+    /**
+     * Parses the UTF-8 encoded JSON contents of the file, passing every map
+     * entry through the normalizer as soon as its value is parsed so that the
+     * returned value is already normalized.
+     *
+     * @param file the file being parsed that the locations refer to.
+     * @param input the contents of the file.
+     * @param normalizer the normalizer for the file, or null to not normalize.
+     * @return the root JSON value of the file.
+     * @throws IOException if the contents can't be read.
+     * @throws JsonParserBackendException if the contents aren't valid JSON.
+     */
+    JsonValue parse(JsonFile file, InputStream input, JsonFileNormalizer normalizer) throws IOException;
+}
@@ -0,0 +1,41 @@
+package com.psddev.styleguide.codegen;
+
+/**
+ * Thrown by a {@link JsonParserBackend} when the contents of a JSON file
+ * aren't valid JSON.
+ */
+class JsonParserBackendException extends RuntimeException {
+
+    private JsonDataLocation location;
+
+    /**
+     * Creates a new exception with the given message.
+     *
+     * @param message the error message.
+     * @param location the location where the error was detected.
+     */
+    public JsonParserBackendException(String message, JsonDataLocation location) {
+        super(message);
+        this.location = location;
+    }
+
+    /**
+     * Creates a new exception for an error detected by an underlying parser.
+     *
+     * @param cause the error detected by the underlying parser.
+     * @param location the location where the error was detected.
+     */
+    public JsonParserBackendException(Throwable cause, JsonDataLocation location) {
+        super(cause.getMessage(), cause);
+        this.location = location;
+    }
+
+    /**
+     * Gets the location in the file where the error was detected.
+     *
+     * @return the location of the error.
+     */
+    public JsonDataLocation getLocation() {
+        return location;
+    }
+}
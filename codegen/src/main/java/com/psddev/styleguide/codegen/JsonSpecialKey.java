@@ -2,7 +2,9 @@ package com.psddev.styleguide.codegen;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -51,6 +53,16 @@ enum JsonSpecialKey {
      */
     FIELD_NOTES_KEY_PATTERN("%sNotes");
 
+    private static final Map<String, JsonSpecialKey> KEYS_BY_ALIAS = new HashMap<>();
+
+    static {
+        for (JsonSpecialKey specialKey : values()) {
+            if (!specialKey.isPattern()) {
+                specialKey.aliases.forEach(alias -> KEYS_BY_ALIAS.put(alias, specialKey));
+            }
+        }
+    }
+
     private List<String> aliases;
 
     JsonSpecialKey(String... aliases) {
@@ -86,6 +98,29 @@ enum JsonSpecialKey {
         return getDefaultAlias();
     }
 
+    /**
+     * @return True if the aliases of this key are patterns rather than actual key names.
+     */
+    public boolean isPattern() {
+        return getDefaultAlias().contains("%s");
+    }
+
+    /**
+     * @return The bit identifying this key within the special key masks of
+     * JSON maps and lists, or 0 if this key is a pattern.
+     */
+    public int getMask() {
+        return isPattern() ? 0 : 1 << ordinal();
+    }
+
+    /**
+     * @param name A JSON key name.
+     * @return The special key that has the name as one of its aliases, or null if there is none.
+     */
+    public static JsonSpecialKey forAlias(String name) {
+        return name.startsWith(PREFIX) ? KEYS_BY_ALIAS.get(name) : null;
+    }
+
     /**
      * @return The default alias.
      */
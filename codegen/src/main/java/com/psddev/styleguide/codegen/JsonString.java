@@ -18,6 +18,18 @@ class JsonString extends JsonValue {
         this.value = value;
     }
 
+    /**
+     * Creates a string JSON object from the compact form of its location.
+     *
+     * @param locationFile the file containing the string value, or null if unknown.
+     * @param locationCode the packed location of the string value within the file.
+     * @param value the string value.
+     */
+    JsonString(JsonFile locationFile, long locationCode, String value) {
+        super(locationFile, locationCode);
+        this.value = value;
+    }
+
     @Override
     public String toRawValue() {
         return value;
@@ -0,0 +1,60 @@
+package com.psddev.styleguide.codegen;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A pool of the strings that occur over and over again across the parsed JSON
+ * files, such as key names, template paths, and short placeholder values, so
+ * that every occurrence shares a single instance. Besides reducing the
+ * retained heap, the shared instances have their hash codes computed only
+ * once, which speeds up the map lookups by key name.
+ */
+class JsonStringPool {
+
+    /**
+     * The maximum length of a string value that is pooled. Longer values are
+     * rarely repeated verbatim, so pooling them would just grow the pool.
+     */
+    static final int MAX_VALUE_LENGTH = 64;
+
+    private Map<String, String> strings = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the pooled instance of the given string, adding it to the pool if
+     * there is none yet.
+     *
+     * @param string the string to intern.
+     * @return the pooled string.
+     */
+    public String intern(String string) {
+
+        if (string == null) {
+            return null;
+        }
+
+        String existing = strings.putIfAbsent(string, string);
+
+        return existing != null ? existing : string;
+    }
+
+    /**
+     * Gets the pooled instance of the given string value if it's short
+     * enough to be pooled.
+     *
+     * @param value the string value to intern.
+     * @return the pooled string, or the given one if it's too long.
+     */
+    public String internValue(String value) {
+        return value != null && value.length() <= MAX_VALUE_LENGTH ? intern(value) : value;
+    }
+
+    /**
+     * Gets the number of distinct strings in the pool.
+     *
+     * @return the pool size.
+     */
+    public int size() {
+        return strings.size();
+    }
+}
@@ -0,0 +1,357 @@
+package com.psddev.styleguide.codegen;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact, read-only representation of a parsed JSON file as a flat tape of
+ * nodes stored in primitive arrays, rather than as a tree of objects with a
+ * pair of hash maps for every JSON object. The nodes are laid out in document
+ * order, with each map entry stored as a key node followed by the nodes of its
+ * value, so iterating over a map or list is a sequential scan over the arrays.
+ * <p>
+ * The tape is exposed through lightweight {@link JsonMap} and
+ * {@link JsonList} views that are created on demand. Since the tape is
+ * immutable, so are the maps and lists returned by the views. Each view
+ * materializes its entries once, on the first call to getValues(), and
+ * returns the same collection afterwards, but looking up a value on the tape
+ * creates new views, so values shouldn't be compared by identity.
+ */
+class JsonTape {
+
+    private static final byte MAP = 1;
+    private static final byte LIST = 2;
+    private static final byte KEY = 3;
+    private static final byte STRING = 4;
+    private static final byte NUMBER = 5;
+    private static final byte TRUE = 6;
+    private static final byte FALSE = 7;
+    private static final byte NULL = 8;
+
+    // the location code of nodes whose location is unknown
+    private static final long NO_LOCATION = Long.MIN_VALUE;
+
+    private JsonFile file;
+
+    private byte[] types;
+
+    private long[] locations;
+
+    // for maps and lists, the index just past the end of the node's subtree,
+    // and for keys, strings, and numbers, the index of their constant
+    private int[] payloads;
+
+    // for maps and lists, the number of entries or items
+    private int[] sizes;
+
+    // for maps and lists, the special key mask of their subtree
+    private int[] specialKeyMasks;
+
+    private Object[] constants;
+
+    private int nodeCount;
+
+    private int constantCount;
+
+    private JsonTape(JsonFile file, int nodeCount, int constantCount) {
+        this.file = file;
+        this.types = new byte[nodeCount];
+        this.locations = new long[nodeCount];
+        this.payloads = new int[nodeCount];
+        this.sizes = new int[nodeCount];
+        this.specialKeyMasks = new int[nodeCount];
+        this.constants = new Object[constantCount];
+    }
+
+    /**
+     * Copies the parsed value of the file onto a new tape.
+     *
+     * @param file the file that was parsed.
+     * @param value the parsed value of the file.
+     * @return the root value of the tape.
+     */
+    public static JsonValue copyOf(JsonFile file, JsonValue value) {
+
+        int[] counts = new int[2];
+        count(value, counts);
+
+        JsonTape tape = new JsonTape(file, counts[0], counts[1]);
+        tape.append(value);
+
+        return tape.getValue(0);
+    }
+
+    /*
+     * Counts the nodes and the constants needed for the value.
+     */
+    private static void count(JsonValue value, int[] counts) {
+
+        ++counts[0];
+
+        if (value instanceof JsonMap) {
+            for (Map.Entry<JsonKey, JsonValue> entry : ((JsonMap) value).getValues().entrySet()) {
+                ++counts[0];
+                ++counts[1];
+                count(entry.getValue(), counts);
+            }
+
+        } else if (value instanceof JsonList) {
+            for (JsonValue item : ((JsonList) value).getValues()) {
+                count(item, counts);
+            }
+
+        } else if (value instanceof JsonString || value instanceof JsonNumber) {
+            ++counts[1];
+        }
+    }
+
+    private void append(JsonValue value) {
+
+        int index = nodeCount++;
+        locations[index] = getLocationCode(value.getLocationFile(), value.getLocationCode());
+
+        if (value instanceof JsonMap) {
+            Map<JsonKey, JsonValue> values = ((JsonMap) value).getValues();
+
+            types[index] = MAP;
+            sizes[index] = values.size();
+            specialKeyMasks[index] = value.getSpecialKeyMask();
+
+            for (Map.Entry<JsonKey, JsonValue> entry : values.entrySet()) {
+                JsonKey key = entry.getKey();
+
+                int keyIndex = nodeCount++;
+                types[keyIndex] = KEY;
+                locations[keyIndex] = getLocationCode(key.getLocationFile(), key.getLocationCode());
+                payloads[keyIndex] = addConstant(key.getName());
+
+                append(entry.getValue());
+            }
+
+            payloads[index] = nodeCount;
+
+        } else if (value instanceof JsonList) {
+            List<JsonValue> values = ((JsonList) value).getValues();
+
+            types[index] = LIST;
+            sizes[index] = values.size();
+            specialKeyMasks[index] = value.getSpecialKeyMask();
+
+            for (JsonValue item : values) {
+                append(item);
+            }
+
+            payloads[index] = nodeCount;
+
+        } else if (value instanceof JsonString) {
+            types[index] = STRING;
+            payloads[index] = addConstant(((JsonString) value).toRawValue());
+
+        } else if (value instanceof JsonNumber) {
+            types[index] = NUMBER;
+            payloads[index] = addConstant(((JsonNumber) value).toRawValue());
+
+        } else if (value instanceof JsonBoolean) {
+            types[index] = ((JsonBoolean) value).toRawValue() ? TRUE : FALSE;
+
+        } else {
+            types[index] = NULL;
+        }
+    }
+
+    private long getLocationCode(JsonFile locationFile, long locationCode) {
+
+        if (locationFile == null) {
+            return NO_LOCATION;
+        }
+
+        if (locationFile != file) {
+            throw new IllegalArgumentException("Can't copy values from [" + locationFile + "] onto the tape of [" + file + "]!");
+        }
+
+        return locationCode;
+    }
+
+    private int addConstant(Object constant) {
+        constants[constantCount] = constant;
+        return constantCount++;
+    }
+
+    private JsonFile getLocationFile(int index) {
+        return locations[index] != NO_LOCATION ? file : null;
+    }
+
+    // Gets the index just past the end of the node's subtree.
+    private int getEnd(int index) {
+        byte type = types[index];
+        return type == MAP || type == LIST ? payloads[index] : index + 1;
+    }
+
+    private JsonKey getKey(int index) {
+        return new JsonKey((String) constants[payloads[index]], getLocationFile(index), locations[index]);
+    }
+
+    private JsonValue getValue(int index) {
+        switch (types[index]) {
+            case MAP:
+                return new MapView(this, index);
+            case LIST:
+                return new ListView(this, index);
+            case STRING:
+                return new JsonString(getLocationFile(index), locations[index], (String) constants[payloads[index]]);
+            case NUMBER:
+                return new JsonNumber(getLocationFile(index), locations[index], (Number) constants[payloads[index]]);
+            case TRUE:
+                return new JsonBoolean(getLocationFile(index), locations[index], true);
+            case FALSE:
+                return new JsonBoolean(getLocationFile(index), locations[index], false);
+            default:
+                return new JsonNull(getLocationFile(index), locations[index]);
+        }
+    }
+
+    /*
+     * Finds the key node with the given name among the entries of the map
+     * node, returning -1 if there is none.
+     */
+    private int findKey(int mapIndex, String name) {
+
+        for (int index = mapIndex + 1, end = payloads[mapIndex]; index < end; index = getEnd(index + 1)) {
+            if (name.equals(constants[payloads[index]])) {
+                return index;
+            }
+        }
+
+        return -1;
+    }
+
+    /*
+     * A view of a map node.
+     */
+    private static final class MapView extends JsonMap {
+
+        private final JsonTape tape;
+
+        private final int index;
+
+        // the materialized entries, created on first access
+        private Map<JsonKey, JsonValue> values;
+
+        private MapView(JsonTape tape, int index) {
+            super(tape.getLocationFile(index), tape.locations[index]);
+            this.tape = tape;
+            this.index = index;
+        }
+
+        @Override
+        public Map<JsonKey, JsonValue> getValues() {
+
+            Map<JsonKey, JsonValue> values = this.values;
+
+            if (values == null) {
+                Map<JsonKey, JsonValue> entries = new LinkedHashMap<>();
+
+                for (int keyIndex = index + 1, end = tape.payloads[index]; keyIndex < end; keyIndex = tape.getEnd(keyIndex + 1)) {
+                    entries.put(tape.getKey(keyIndex), tape.getValue(keyIndex + 1));
+                }
+
+                values = Collections.unmodifiableMap(entries);
+                this.values = values;
+            }
+
+            return values;
+        }
+
+        @Override
+        int getSpecialKeyMask() {
+            return tape.specialKeyMasks[index];
+        }
+
+        @Override
+        public boolean containsKeyAnywhere(Object name) {
+
+            if (!(name instanceof String)) {
+                return super.containsKeyAnywhere(name);
+            }
+
+            // special keys that aren't in the summary can't be anywhere
+            JsonSpecialKey specialKey = JsonSpecialKey.forAlias((String) name);
+            if (specialKey != null && (getSpecialKeyMask() & specialKey.getMask()) == 0) {
+                return false;
+            }
+
+            // every key node within the subtree belongs to this map or a nested one
+            for (int keyIndex = index + 1, end = tape.payloads[index]; keyIndex < end; ++keyIndex) {
+                if (tape.types[keyIndex] == KEY && name.equals(tape.constants[tape.payloads[keyIndex]])) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        protected JsonKey findKey(String name) {
+            int keyIndex = tape.findKey(index, name);
+            return keyIndex >= 0 ? tape.getKey(keyIndex) : null;
+        }
+
+        @Override
+        protected JsonValue findValue(JsonKey jsonKey) {
+
+            // return the same instances as getValues() once they exist
+            if (values != null) {
+                return values.get(jsonKey);
+            }
+
+            int keyIndex = tape.findKey(index, jsonKey.getName());
+            return keyIndex >= 0 ? tape.getValue(keyIndex + 1) : null;
+        }
+    }
+
+    /*
+     * A view of a list node.
+     */
+    private static final class ListView extends JsonList {
+
+        private final JsonTape tape;
+
+        private final int index;
+
+        // the materialized items, created on first access
+        private List<JsonValue> values;
+
+        private ListView(JsonTape tape, int index) {
+            super(tape.getLocationFile(index), tape.locations[index]);
+            this.tape = tape;
+            this.index = index;
+        }
+
+        @Override
+        int getSpecialKeyMask() {
+            return tape.specialKeyMasks[index];
+        }
+
+        @Override
+        public List<JsonValue> getValues() {
+
+            List<JsonValue> values = this.values;
+
+            if (values == null) {
+                List<JsonValue> items = new ArrayList<>(tape.sizes[index]);
+
+                for (int itemIndex = index + 1, end = tape.payloads[index]; itemIndex < end; itemIndex = tape.getEnd(itemIndex)) {
+                    items.add(tape.getValue(itemIndex));
+                }
+
+                values = Collections.unmodifiableList(items);
+                this.values = values;
+            }
+
+            return values;
+        }
+    }
+}
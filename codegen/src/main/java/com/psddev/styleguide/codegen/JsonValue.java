@@ -5,7 +5,9 @@ package com.psddev.styleguide.codegen;
  */
 abstract class JsonValue {
 
-    protected JsonDataLocation location;
+    // the location is stored in its compact form and only materialized on demand
+    private JsonFile locationFile;
+    private long locationCode;
 
     /**
      * Creates a JSON value with location information.
@@ -13,7 +15,21 @@ abstract class JsonValue {
      * @param location the location of this value within a file.
      */
     public JsonValue(JsonDataLocation location) {
-        this.location = location;
+        if (location != null) {
+            this.locationFile = location.getFile();
+            this.locationCode = location.getCode();
+        }
+    }
+
+    /**
+     * Creates a JSON value from the compact form of its location.
+     *
+     * @param locationFile the file containing this value, or null if unknown.
+     * @param locationCode the packed location of this value within the file.
+     */
+    JsonValue(JsonFile locationFile, long locationCode) {
+        this.locationFile = locationFile;
+        this.locationCode = locationCode;
     }
 
     /**
@@ -22,7 +38,47 @@ abstract class JsonValue {
      * @return the location of this value.
      */
     public JsonDataLocation getLocation() {
-        return location;
+        return locationFile != null ? new JsonDataLocation(locationFile, locationCode) : null;
+    }
+
+    /**
+     * Gets the file containing this value without materializing its location.
+     *
+     * @return the file containing this value, or null if unknown.
+     */
+    JsonFile getLocationFile() {
+        return locationFile;
+    }
+
+    /**
+     * Gets the packed location of this value within its file.
+     *
+     * @return the location code.
+     */
+    long getLocationCode() {
+        return locationCode;
+    }
+
+    /**
+     * Gets a summary of the {@link JsonSpecialKey special keys} that appear
+     * anywhere within this value, as the bitwise OR of their
+     * {@link JsonSpecialKey#getMask() masks}. The summary of a map or list is
+     * computed from those of its values when it's created.
+     *
+     * @return the special key mask.
+     */
+    int getSpecialKeyMask() {
+        return 0;
+    }
+
+    /**
+     * Checks if this value is, or contains anywhere within it, a
+     * {@link JsonDelegateMap}.
+     *
+     * @return true if there is a delegate map in this value.
+     */
+    boolean containsDelegateMap() {
+        return false;
     }
 
     /**
@@ -1,5 +1,6 @@
 package com.psddev.styleguide.codegen;
 
+import java.nio.file.Path;
 import java.util.Arrays;
 
 import com.psddev.dari.util.StringUtils;
@@ -52,6 +53,26 @@ enum TemplateType {
                 .orElse(null);
     }
 
+    /**
+     * Finds a template type based on the extension of the provided file.
+     *
+     * @param file the path of the file.
+     * @return the template type for the file, or null if it isn't a template.
+     */
+    public static TemplateType findByFile(Path file) {
+
+        Path fileName = file.getFileName();
+
+        if (fileName == null) {
+            return null;
+        }
+
+        String name = fileName.toString();
+        int lastDotAt = name.lastIndexOf('.');
+
+        return lastDotAt >= 0 ? findByExtension(name.substring(lastDotAt + 1)) : null;
+    }
+
     @Override
     public String toString() {
         return name();
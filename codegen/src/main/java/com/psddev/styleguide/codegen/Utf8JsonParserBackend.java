@@ -0,0 +1,565 @@
+package com.psddev.styleguide.codegen;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Parses JSON files directly from their UTF-8 encoded bytes. The whole file
+ * is read into a byte array, which for the typically small JSON files of a
+ * styleguide is much cheaper than decoding it through a {@link java.io.Reader}
+ * and generating an event for every token. Only string values are ever
+ * decoded, and those without escapes or non-ASCII characters are copied from
+ * the bytes as is.
+ * <p>
+ * The locations, and the messages of syntax errors, match those of the
+ * javax.json reference implementation. Since that implementation counts
+ * chars, the parser keeps track of how many more bytes than chars were
+ * consumed by the multi-byte sequences within strings.
+ */
+class Utf8JsonParserBackend implements JsonParserBackend {
+
+    private static final String VALUE_TOKENS = "CURLYOPEN, SQUAREOPEN, STRING, NUMBER, TRUE, FALSE, NULL";
+
+    // longs with up to this many digits can't overflow
+    private static final int MAX_LONG_DIGITS = 18;
+
+    @Override
+    public String getName() {
+        return "utf8";
+    }
+
+    @Override
+    public JsonValue parse(JsonFile file, InputStream input, JsonFileNormalizer normalizer) throws IOException {
+        return new Parse(file, IOUtils.toByteArray(input), normalizer).parseRoot();
+    }
+
+    /*
+     * The state of parsing a single file.
+     */
+    private static final class Parse {
+
+        private final JsonFile file;
+
+        private final JsonStringPool stringPool;
+
+        private final JsonFileNormalizer normalizer;
+
+        private final byte[] bytes;
+
+        private int position;
+
+        // the number of bytes consumed beyond the number of chars they decode to
+        private long extraBytes;
+
+        private long lineNumber = 1;
+
+        // the char offset of the start of the current line
+        private long lineOffset;
+
+        private Parse(JsonFile file, byte[] bytes, JsonFileNormalizer normalizer) {
+            this.file = file;
+            this.stringPool = file.getBaseDirectory().getStringPool();
+            this.normalizer = normalizer;
+            this.bytes = bytes;
+        }
+
+        private JsonValue parseRoot() {
+
+            int ch = skipWhitespace();
+            switch (ch) {
+                case '{': {
+                    ++position;
+                    return parseObject();
+                }
+                case '[': {
+                    ++position;
+                    return parseArray();
+                }
+                default: {
+                    throw invalidToken(ch, "CURLYOPEN, SQUAREOPEN");
+                }
+            }
+        }
+
+        private JsonMap parseObject() {
+
+            long location = getLocation();
+
+            Map<JsonKey, JsonValue> values = new LinkedHashMap<>();
+
+            int ch = skipWhitespace();
+
+            if (ch == '}') {
+                ++position;
+                return new JsonMap(file, location, values);
+            }
+
+            String expectedKeyTokens = "STRING, CURLYCLOSE";
+
+            while (true) {
+
+                if (ch != '"') {
+                    throw invalidToken(ch, expectedKeyTokens);
+                }
+
+                ++position;
+                JsonKey key = new JsonKey(stringPool.intern(readString()), file, getLocation());
+
+                ch = skipWhitespace();
+                if (ch != ':') {
+                    throw invalidToken(ch, "COLON");
+                }
+
+                ++position;
+                JsonValue value = parseValue(skipWhitespace(), VALUE_TOKENS);
+                values.put(key, normalizer != null ? normalizer.normalizeEntry(key, value) : value);
+
+                ch = skipWhitespace();
+                if (ch == '}') {
+                    ++position;
+                    return new JsonMap(file, location, values);
+
+                } else if (ch != ',') {
+                    throw invalidToken(ch, "COMMA, CURLYCLOSE");
+                }
+
+                ++position;
+                ch = skipWhitespace();
+                expectedKeyTokens = "STRING";
+            }
+        }
+
+        private JsonList parseArray() {
+
+            long location = getLocation();
+
+            List<JsonValue> values = new ArrayList<>();
+
+            int ch = skipWhitespace();
+
+            if (ch == ']') {
+                ++position;
+                return new JsonList(file, location, values);
+            }
+
+            values.add(parseValue(ch, VALUE_TOKENS + ", SQUARECLOSE"));
+
+            while (true) {
+
+                ch = skipWhitespace();
+                if (ch == ']') {
+                    ++position;
+                    return new JsonList(file, location, values);
+
+                } else if (ch != ',') {
+                    throw invalidToken(ch, "COMMA, SQUARECLOSE");
+                }
+
+                ++position;
+                values.add(parseValue(skipWhitespace(), VALUE_TOKENS));
+            }
+        }
+
+        private JsonValue parseValue(int ch, String expectedTokens) {
+            switch (ch) {
+                case '{': {
+                    ++position;
+                    return parseObject();
+                }
+                case '[': {
+                    ++position;
+                    return parseArray();
+                }
+                case '"': {
+                    ++position;
+                    String value = stringPool.internValue(readString());
+                    return new JsonString(file, getLocation(), value);
+                }
+                case 't': {
+                    readLiteral("true");
+                    return new JsonBoolean(file, getLocation(), true);
+                }
+                case 'f': {
+                    readLiteral("false");
+                    return new JsonBoolean(file, getLocation(), false);
+                }
+                case 'n': {
+                    readLiteral("null");
+                    return new JsonNull(file, getLocation());
+                }
+                default: {
+                    if (ch == '-' || (ch >= '0' && ch <= '9')) {
+                        return readNumber();
+                    }
+                    throw invalidToken(ch, expectedTokens);
+                }
+            }
+        }
+
+        /*
+         * Skips any whitespace, keeping track of the line breaks, and returns
+         * the next byte without consuming it, or -1 at the end of the file.
+         */
+        private int skipWhitespace() {
+
+            while (position < bytes.length) {
+
+                int ch = bytes[position];
+                switch (ch) {
+                    case ' ':
+                    case '\t': {
+                        ++position;
+                        break;
+                    }
+                    case '\n': {
+                        ++position;
+                        ++lineNumber;
+                        lineOffset = getOffset();
+                        break;
+                    }
+                    case '\r': {
+                        // a CRLF is a single line break
+                        ++position;
+                        ++lineNumber;
+                        if (position < bytes.length && bytes[position] == '\n') {
+                            ++position;
+                        }
+                        lineOffset = getOffset();
+                        break;
+                    }
+                    default: {
+                        return ch & 0xFF;
+                    }
+                }
+            }
+
+            return -1;
+        }
+
+        /*
+         * Reads a string after its opening quote up to and including its
+         * closing quote.
+         */
+        private String readString() {
+
+            int start = position;
+
+            // fast path for plain ASCII strings
+            while (position < bytes.length) {
+
+                int ch = bytes[position];
+
+                if (ch == '"') {
+                    String value = new String(bytes, start, position - start, StandardCharsets.ISO_8859_1);
+                    ++position;
+                    return value;
+
+                } else if (ch == '\\' || ch < 0) {
+                    return readEscapedString(start);
+
+                } else if (ch < 0x20) {
+                    throw unexpectedChar(ch);
+                }
+
+                ++position;
+            }
+
+            throw unexpectedChar(-1);
+        }
+
+        /*
+         * Reads the rest of a string that contains escapes or non-ASCII
+         * characters.
+         */
+        private String readEscapedString(int start) {
+
+            StringBuilder builder = new StringBuilder(position - start + 16);
+            int segmentStart = start;
+
+            while (position < bytes.length) {
+
+                int ch = bytes[position];
+
+                if (ch == '"') {
+                    appendSegment(builder, segmentStart);
+                    ++position;
+                    return builder.toString();
+
+                } else if (ch == '\\') {
+                    appendSegment(builder, segmentStart);
+                    ++position;
+                    builder.append(readEscape());
+                    segmentStart = position;
+
+                } else if (ch >= 0 && ch < 0x20) {
+                    appendSegment(builder, segmentStart);
+                    throw unexpectedChar(ch);
+
+                } else {
+                    ++position;
+                }
+            }
+
+            appendSegment(builder, segmentStart);
+            throw unexpectedChar(-1);
+        }
+
+        /*
+         * Decodes the bytes from the start of the segment up to the current
+         * position, which is never within a multi-byte sequence since those
+         * never contain any ASCII bytes.
+         */
+        private void appendSegment(StringBuilder builder, int segmentStart) {
+
+            int length = position - segmentStart;
+
+            if (length > 0) {
+                String segment = new String(bytes, segmentStart, length, StandardCharsets.UTF_8);
+                extraBytes += length - segment.length();
+                builder.append(segment);
+            }
+        }
+
+        private char readEscape() {
+
+            int ch = read();
+            switch (ch) {
+                case '"':
+                case '\\':
+                case '/': {
+                    return (char) ch;
+                }
+                case 'b': {
+                    return '\b';
+                }
+                case 'f': {
+                    return '\f';
+                }
+                case 'n': {
+                    return '\n';
+                }
+                case 'r': {
+                    return '\r';
+                }
+                case 't': {
+                    return '\t';
+                }
+                case 'u': {
+                    int value = 0;
+                    for (int i = 0; i < 4; ++i) {
+                        int hex = read();
+                        int digit = Character.digit(hex, 16);
+                        if (hex >= 0x80 || digit < 0) {
+                            throw unexpectedChar(hex);
+                        }
+                        value = value << 4 | digit;
+                    }
+                    return (char) value;
+                }
+                default: {
+                    throw unexpectedChar(ch);
+                }
+            }
+        }
+
+        private void readLiteral(String literal) {
+            for (int i = 0; i < literal.length(); ++i) {
+                int ch = read();
+                if (ch != literal.charAt(i)) {
+                    throw unexpectedChar(ch);
+                }
+            }
+        }
+
+        private JsonNumber readNumber() {
+
+            int start = position;
+            boolean negative = false;
+            boolean fracOrExp = false;
+
+            int ch = read();
+
+            if (ch == '-') {
+                negative = true;
+                ch = read();
+                if (ch < '0' || ch > '9') {
+                    throw unexpectedChar(ch);
+                }
+            }
+
+            if (ch == '0') {
+                ch = read();
+
+            } else {
+                do {
+                    ch = read();
+                } while (ch >= '0' && ch <= '9');
+            }
+
+            int integerEnd = ch != -1 ? position - 1 : position;
+
+            if (ch == '.') {
+                fracOrExp = true;
+                int count = 0;
+                do {
+                    ch = read();
+                    ++count;
+                } while (ch >= '0' && ch <= '9');
+
+                if (count == 1) {
+                    throw unexpectedChar(ch);
+                }
+            }
+
+            if (ch == 'e' || ch == 'E') {
+                fracOrExp = true;
+                ch = read();
+                if (ch == '+' || ch == '-') {
+                    ch = read();
+                }
+
+                int count = 0;
+                while (ch >= '0' && ch <= '9') {
+                    ch = read();
+                    ++count;
+                }
+
+                if (count == 0) {
+                    throw unexpectedChar(ch);
+                }
+            }
+
+            // the char after the number isn't part of it
+            if (ch != -1) {
+                --position;
+            }
+
+            long location = getLocation();
+
+            if (!fracOrExp) {
+                int digitsStart = negative ? start + 1 : start;
+
+                if (integerEnd - digitsStart <= MAX_LONG_DIGITS) {
+                    long value = 0;
+                    for (int i = digitsStart; i < integerEnd; ++i) {
+                        value = value * 10 + (bytes[i] - '0');
+                    }
+                    return new JsonNumber(file, location, negative ? -value : value);
+                }
+            }
+
+            BigDecimal value = new BigDecimal(new String(bytes, start, position - start, StandardCharsets.ISO_8859_1));
+
+            // integral values with a fraction or exponent, such as 1.0e1, are still treated as longs
+            if (!fracOrExp || value.scale() == 0) {
+                return new JsonNumber(file, location, value.longValue());
+
+            } else {
+                return new JsonNumber(file, location, value.doubleValue());
+            }
+        }
+
+        // Consumes the next byte, or returns -1 at the end of the file.
+        private int read() {
+            return position < bytes.length ? bytes[position++] & 0xFF : -1;
+        }
+
+        // The number of chars consumed so far.
+        private long getOffset() {
+            return position - extraBytes;
+        }
+
+        // The packed location just past the last consumed char.
+        private long getLocation() {
+            long offset = getOffset();
+            return JsonDataLocation.encode(file, lineNumber, offset - lineOffset + 1, offset);
+        }
+
+        /*
+         * The location of the last consumed char, which is where errors are
+         * reported. Chars that are checked without being consumed are
+         * consumed first.
+         */
+        private JsonDataLocation getErrorLocation(int ch, boolean consumed) {
+            if (!consumed && ch != -1) {
+                ++position;
+            }
+            long offset = getOffset();
+            return new JsonDataLocation(file, JsonDataLocation.encode(file, lineNumber, offset - lineOffset, offset - 1));
+        }
+
+        private JsonParserBackendException unexpectedChar(int ch) {
+            return unexpectedChar(ch, true);
+        }
+
+        private JsonParserBackendException unexpectedChar(int ch, boolean consumed) {
+            JsonDataLocation location = getErrorLocation(ch, consumed);
+            return new JsonParserBackendException("Unexpected char " + ch + " at " + format(location), location);
+        }
+
+        private JsonParserBackendException invalidToken(int ch, String expectedTokens) {
+
+            String token;
+            switch (ch) {
+                case -1:
+                    token = "EOF";
+                    break;
+                case '{':
+                    token = "CURLYOPEN";
+                    break;
+                case '}':
+                    token = "CURLYCLOSE";
+                    break;
+                case '[':
+                    token = "SQUAREOPEN";
+                    break;
+                case ']':
+                    token = "SQUARECLOSE";
+                    break;
+                case ':':
+                    token = "COLON";
+                    break;
+                case ',':
+                    token = "COMMA";
+                    break;
+                case '"':
+                    token = "STRING";
+                    break;
+                case 't':
+                    token = "TRUE";
+                    break;
+                case 'f':
+                    token = "FALSE";
+                    break;
+                case 'n':
+                    token = "NULL";
+                    break;
+                default:
+                    if (ch == '-' || (ch >= '0' && ch <= '9')) {
+                        token = "NUMBER";
+                    } else {
+                        throw unexpectedChar(ch, false);
+                    }
+            }
+
+            JsonDataLocation location = getErrorLocation(ch, false);
+            return new JsonParserBackendException(
+                    "Invalid token=" + token + " at " + format(location) + ". Expected tokens are: [" + expectedTokens + "]",
+                    location);
+        }
+
+        private static String format(JsonDataLocation location) {
+            return "(line no=" + location.getLineNumber()
+                    + ", column no=" + location.getColumnNumber()
+                    + ", offset=" + location.getStreamOffset() + ")";
+        }
+    }
+}
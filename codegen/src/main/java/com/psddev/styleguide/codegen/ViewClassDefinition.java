@@ -1,8 +1,11 @@
 package com.psddev.styleguide.codegen;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -10,6 +13,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Contains all of the metadata necessary to generate a Java class source file
@@ -170,7 +174,7 @@ final class ViewClassDefinition implements ViewClassFieldType {
 
                     Set<Map.Entry<JsonKey, JsonValue>> fieldValues = fieldValuesMap.get(fieldName);
                     if (fieldValues == null) {
-                        fieldValues = new HashSet<>();
+                        fieldValues = new LinkedHashSet<>();
                         fieldValuesMap.put(fieldName, fieldValues);
                     }
 
@@ -198,6 +202,39 @@ final class ViewClassDefinition implements ViewClassFieldType {
                 .collect(Collectors.toCollection(ArrayList::new));
     }
 
+    /*
+     * Checks if this definition is made up of exactly the same JSON view map
+     * instances, in the same order, as the given set.
+     */
+    private boolean isDefinedBy(Set<JsonViewMap> otherJsonViewMaps) {
+
+        if (jsonViewMaps.size() != otherJsonViewMaps.size()) {
+            return false;
+        }
+
+        Iterator<JsonViewMap> otherIterator = otherJsonViewMaps.iterator();
+
+        for (JsonViewMap jsonViewMap : jsonViewMaps) {
+            if (jsonViewMap != otherIterator.next()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /*
+     * Checks if any of this definition's fields have delegate values.
+     */
+    private boolean hasDelegateFields() {
+        return jsonViewMaps.stream()
+                .map(JsonViewMap::getValues)
+                .map(Map::values)
+                .flatMap(Collection::stream)
+                .flatMap(value -> value instanceof JsonList ? ((JsonList) value).getValues().stream() : Stream.of(value))
+                .anyMatch(value -> value instanceof JsonDelegateMap);
+    }
+
     /**
      * Creates a new view class definition object, validates it, and keeps a
      * reference to it so that all of the created definitions can be analyzed
@@ -209,6 +246,53 @@ final class ViewClassDefinition implements ViewClassFieldType {
      * @return a list of newly created and validated view class definitions.
      */
     public static List<ViewClassDefinition> createDefinitions(ViewClassGeneratorContext context, Set<JsonViewMap> jsonViewMaps) {
+        return createDefinitions(context, jsonViewMaps, Collections.emptyMap());
+    }
+
+    /**
+     * Creates new view class definitions, validates them, and keeps a
+     * reference to them so that all of the created definitions can be
+     * analyzed holistically. Any of the {@code previousDefinitions} that are
+     * still made up of the exact same JSON view maps are re-used rather than
+     * being re-created, unless they have delegate fields whose types depend
+     * on all of the other definitions.
+     *
+     * @param context the class generation context
+     * @param jsonViewMaps the set of all JSON view maps that make up all the
+     *                     class definitions.
+     * @param previousDefinitions previously created definitions keyed by their view key.
+     * @return a list of validated view class definitions.
+     */
+    public static List<ViewClassDefinition> createDefinitions(ViewClassGeneratorContext context,
+                                                              Set<JsonViewMap> jsonViewMaps,
+                                                              Map<ViewKey, ViewClassDefinition> previousDefinitions) {
+
+        ViewClassGeneratorMetrics metrics = context.getMetrics();
+
+        List<ViewClassDefinition> classDefs;
+
+        try (ViewClassGeneratorMetrics.Timing timing = metrics.time(ViewClassGeneratorMetrics.Phase.DEFINING)) {
+            classDefs = newDefinitions(context, jsonViewMaps, previousDefinitions);
+        }
+
+        metrics.add(ViewClassGeneratorMetrics.Counter.CLASS_DEFINITIONS, classDefs.size());
+
+        context.setClassDefinitions(classDefs);
+
+        try (ViewClassGeneratorMetrics.Timing timing = metrics.time(ViewClassGeneratorMetrics.Phase.VALIDATING)) {
+            validateDefinitions(classDefs);
+        }
+
+        return classDefs;
+    }
+
+    /*
+     * Groups the view maps by view key and creates a definition for each
+     * group, re-using any of the previous definitions that are still valid.
+     */
+    private static List<ViewClassDefinition> newDefinitions(ViewClassGeneratorContext context,
+                                                            Set<JsonViewMap> jsonViewMaps,
+                                                            Map<ViewKey, ViewClassDefinition> previousDefinitions) {
 
         // Sort the view maps by view key
         Map<ViewKey, Set<JsonViewMap>> jsonViewMapsByViewKey = new HashMap<>();
@@ -219,7 +303,7 @@ final class ViewClassDefinition implements ViewClassFieldType {
 
             Set<JsonViewMap> set = jsonViewMapsByViewKey.get(viewKey);
             if (set == null) {
-                set = new HashSet<>();
+                set = new LinkedHashSet<>();
                 jsonViewMapsByViewKey.put(viewKey, set);
             }
             set.add(jsonViewMap);
@@ -228,11 +312,27 @@ final class ViewClassDefinition implements ViewClassFieldType {
         List<ViewClassDefinition> classDefs = new ArrayList<>();
 
         for (Map.Entry<ViewKey, Set<JsonViewMap>> entry : jsonViewMapsByViewKey.entrySet()) {
-            ViewClassDefinition classDef = new ViewClassDefinition(context, entry.getKey(), entry.getValue());
+
+            ViewClassDefinition classDef = previousDefinitions.get(entry.getKey());
+
+            if (classDef == null
+                    || !classDef.isDefinedBy(entry.getValue())
+                    || classDef.hasDelegateFields()) {
+
+                classDef = new ViewClassDefinition(context, entry.getKey(), entry.getValue());
+            }
+
             classDefs.add(classDef);
         }
 
-        context.setClassDefinitions(classDefs);
+        return classDefs;
+    }
+
+    /*
+     * Validates each of the definitions individually, and then all of them
+     * as a whole.
+     */
+    private static void validateDefinitions(List<ViewClassDefinition> classDefs) {
 
         // validate each class definition individually
         classDefs.forEach(ViewClassDefinition::validate);
@@ -280,7 +380,5 @@ final class ViewClassDefinition implements ViewClassFieldType {
                 }
             }
         }
-
-        return classDefs;
     }
 }
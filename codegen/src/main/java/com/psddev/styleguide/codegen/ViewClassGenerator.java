@@ -1,8 +1,6 @@
 package com.psddev.styleguide.codegen;
 
-import java.io.File;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.LinkOption;
@@ -14,6 +12,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -21,6 +23,7 @@ import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiPredicate;
 import java.util.stream.Collectors;
 
 import com.google.common.base.Supplier;
@@ -36,7 +39,7 @@ import com.psddev.dari.util.StringUtils;
  * it can detect changes to JSON files and re-generate the view class source
  * code on the fly.
  */
-public class ViewClassGenerator {
+public class ViewClassGenerator implements AutoCloseable {
 
     private static final String BRIGHTSPOT_ASCII =
               " _____ _____ _____ _____ _____ _____ _____ _____ _____ _____ \n"
@@ -65,13 +68,39 @@ public class ViewClassGenerator {
 
         ViewClassGeneratorCliArguments arguments = new ViewClassGeneratorCliArguments(args);
 
-        ViewClassGenerator viewClassGenerator = new ViewClassGenerator(arguments);
+        if (arguments.isDaemon()) {
+            int port = arguments.getDaemonPort() != null ? arguments.getDaemonPort() : ViewClassGeneratorDaemon.DEFAULT_PORT;
 
-        if (arguments.isWatch()) {
-            viewClassGenerator.watch();
+            try (ViewClassGeneratorDaemon daemon = new ViewClassGeneratorDaemon(port, ViewClassGeneratorDaemon.getDefaultTokenFile(port))) {
+                daemon.start();
 
-        } else {
-            viewClassGenerator.generateClasses();
+            } catch (IOException e) {
+                throw new ViewClassGeneratorException(e);
+            }
+            return;
+        }
+
+        if (arguments.getDaemonPort() != null && !arguments.isWatch()) {
+            try {
+                new ViewClassGeneratorClient(arguments.getDaemonPort()).generateClasses(arguments.toAbsoluteArguments());
+                return;
+
+            } catch (IOException e) {
+                CliLogger.getLogger().yellow("Could not connect to the daemon, generating classes locally. Cause: ", e.getMessage());
+
+            } catch (ViewClassGeneratorException e) {
+                CliLogger.getLogger().yellow("The daemon failed to generate the classes, generating classes locally. Cause: ", e.getMessage());
+            }
+        }
+
+        try (ViewClassGenerator viewClassGenerator = new ViewClassGenerator(arguments)) {
+
+            if (arguments.isWatch()) {
+                viewClassGenerator.watch();
+
+            } else {
+                viewClassGenerator.generateClasses();
+            }
         }
     }
 
@@ -96,6 +125,17 @@ public class ViewClassGenerator {
 
     private ViewClassGeneratorContext context;
 
+    // The results of the last generation in watch mode, used to apply the
+    // next set of changes incrementally. Null if there's nothing to reuse.
+    private IncrementalState incrementalState;
+
+    private boolean profile;
+
+    private Path profileReport;
+
+    // the contents of the files written last, used to skip unchanged files
+    private ViewClassOutputManifest outputManifest = new ViewClassOutputManifest();
+
     ViewClassGenerator(ViewClassGeneratorContext context) {
         this.context = context;
     }
@@ -112,7 +152,110 @@ public class ViewClassGenerator {
         context.setGenerateDefaultMethods(arguments.isDefaultMethods());
         context.setGenerateStrictTypes(arguments.isStrictTypes());
 
+        context.setParallelism(arguments.getParallelism());
+        context.setParseCacheDirectory(arguments.getParseCacheDirectory());
+        setJsonParser(arguments.getJsonParser());
+        context.setCompactJsonTrees(arguments.isCompactJsonTrees());
+        context.setFusedNormalization(arguments.isFusedNormalization());
+
         context.setDefaultJavaPackagePrefix(arguments.getJavaPackageName());
+
+        profile = arguments.isProfile();
+        profileReport = arguments.getProfileReport();
+
+        setOutputManifestFile(arguments.getOutputManifestFile());
+    }
+
+    /**
+     * Sets the number of threads used to process the JSON files and to
+     * generate and write the view classes. A value of 1, which is the
+     * default, disables concurrent processing.
+     *
+     * @param parallelism the number of threads to use.
+     */
+    public void setParallelism(int parallelism) {
+        context.setParallelism(parallelism);
+    }
+
+    /**
+     * Sets the directory where parsed JSON files are cached between runs so
+     * that unchanged files don't need to be parsed again. Caching is disabled
+     * by default, or if the directory is null.
+     *
+     * @param parseCacheDirectory the directory to store the parse cache in.
+     */
+    public void setParseCacheDirectory(Path parseCacheDirectory) {
+        context.setParseCacheDirectory(parseCacheDirectory);
+    }
+
+    /**
+     * Sets the parser used to parse the JSON files, either "utf8", which is
+     * the default, or "javax" for the javax.json streaming parser. If null,
+     * the default parser is used.
+     *
+     * @param jsonParser the name of the JSON parser.
+     * @throws IllegalArgumentException if there is no parser with the name.
+     */
+    public void setJsonParser(String jsonParser) {
+        context.setParserBackend(jsonParser != null ? JsonParserBackend.forName(jsonParser) : null);
+    }
+
+    /**
+     * Sets whether the parsed JSON files are kept in a compact flat
+     * representation rather than as trees of objects, which uses several
+     * times less memory. Disabled by default.
+     *
+     * @param compactJsonTrees true to keep the parsed files compact.
+     */
+    public void setCompactJsonTrees(boolean compactJsonTrees) {
+        context.setCompactJsonTrees(compactJsonTrees);
+    }
+
+    /**
+     * Sets whether the JSON files are normalized while they are parsed,
+     * rather than in a separate pass over every parsed file. Disabled by
+     * default.
+     *
+     * @param fusedNormalization true to normalize the files while parsing.
+     */
+    public void setFusedNormalization(boolean fusedNormalization) {
+        context.setFusedNormalization(fusedNormalization);
+    }
+
+    /**
+     * Sets the file where a manifest of the written class files, and their
+     * contents, is persisted between runs so that files that haven't changed
+     * since the last run aren't written again. If null, which is the default,
+     * the manifest is only kept in memory for the lifetime of this generator.
+     *
+     * @param outputManifestFile the file to persist the output manifest to.
+     */
+    public void setOutputManifestFile(Path outputManifestFile) {
+        outputManifest = outputManifestFile != null
+                ? new ViewClassOutputManifest(outputManifestFile)
+                : new ViewClassOutputManifest();
+    }
+
+    /**
+     * Sets whether a summary of the time spent in, and the work done by,
+     * each phase of the generation should be logged after the classes are
+     * written. Disabled by default.
+     *
+     * @param profile true to log the summary.
+     */
+    public void setProfile(boolean profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Sets the file where a JSON report of the time spent in, and the work
+     * done by, each phase of the generation should be written after the
+     * classes are written. Setting it also enables profiling.
+     *
+     * @param profileReport the file to write the report to, or null to not write one.
+     */
+    public void setProfileReport(Path profileReport) {
+        this.profileReport = profileReport;
     }
 
     ViewClassGeneratorContext getContext() {
@@ -133,6 +276,8 @@ public class ViewClassGenerator {
 
     Map<Path, String> getGeneratedClasses() {
 
+        context.getMetrics().reset();
+
         JsonDirectory directory = new JsonDirectory(context);
 
         Set<JsonViewMap> jsonViewMaps = directory.resolveViewMaps();
@@ -142,19 +287,164 @@ public class ViewClassGenerator {
         // Throws an exception if there are any errors
         logErrorDefinitions(classDefinitions);
 
-        List<ViewClassSource> sources = new ArrayList<>();
+        Map<Path, String> generated = new TreeMap<>();
 
-        classDefinitions.stream()
-                .map(classDef -> new ViewClassSourceGenerator(context, classDef).generateSources())
-                .flatMap(Collection::stream)
-                .collect(Collectors.toCollection(() -> sources));
+        try (ViewClassGeneratorMetrics.Timing timing = context.getMetrics().time(ViewClassGeneratorMetrics.Phase.GENERATING)) {
 
-        if (context.isGenerateStrictTypes()) {
-            sources.addAll(new CharSequenceClassSourceGenerator(classDefinitions).generateSources());
+            context.process(classDefinitions, this::getGeneratedClasses).forEach(generated::putAll);
+
+            generated.putAll(getGeneratedCharSequenceClasses(classDefinitions));
+        }
+
+        return generated;
+    }
+
+    /*
+     * Generates the classes incrementally based on the results of the previous
+     * call to this method. Only the JSON files at the modified paths, and the
+     * files that depend on them, are processed again. Sources are generated
+     * again for the class definitions that changed, and for the classes that
+     * those definitions referenced before or after the change, since each
+     * class implements the field interfaces of the classes referencing it.
+     * The classes referencing a changed definition are not generated again,
+     * as their sources only depend on their own definitions. If modifiedPaths
+     * is null, or JsonDirectory#update can't apply the changes, then
+     * everything is generated from scratch.
+     */
+    Map<Path, String> getGeneratedClasses(Collection<Path> modifiedPaths) {
+
+        context.getMetrics().reset();
+
+        IncrementalState previousState = incrementalState;
+
+        // cleared until generation succeeds so a failure always leads to a full rebuild.
+        incrementalState = null;
+
+        JsonDirectory directory;
+
+        if (previousState != null && modifiedPaths != null && previousState.directory.update(modifiedPaths)) {
+            directory = previousState.directory;
+
+        } else {
+            directory = new JsonDirectory(context);
+            previousState = null;
+        }
+
+        Set<JsonViewMap> jsonViewMaps = directory.resolveViewMaps();
+
+        List<ViewClassDefinition> classDefinitions = ViewClassDefinition.createDefinitions(
+                context,
+                jsonViewMaps,
+                previousState != null ? previousState.classDefinitions : Collections.emptyMap());
+
+        // Throws an exception if there are any errors
+        logErrorDefinitions(classDefinitions);
+
+        IncrementalState state = new IncrementalState(directory);
+
+        Set<ViewClassDefinition> changedClassDefs = new HashSet<>();
+
+        // The classes implement interfaces for the fields that reference them,
+        // so the sources of any class referenced by a changed definition,
+        // before or after the change, must also be generated again. The
+        // referencing classes themselves don't need to be.
+        Set<String> affectedClassNames = new HashSet<>();
+
+        for (ViewClassDefinition classDef : classDefinitions) {
+
+            ViewKey viewKey = classDef.getViewKey();
+
+            if (previousState == null || previousState.classDefinitions.get(viewKey) != classDef) {
+
+                changedClassDefs.add(classDef);
+
+                Set<String> referencedClassNames = getReferencedClassNames(classDef);
+
+                state.referencedClassNames.put(viewKey, referencedClassNames);
+                affectedClassNames.addAll(referencedClassNames);
+
+            } else {
+                state.referencedClassNames.put(viewKey, previousState.referencedClassNames.get(viewKey));
+            }
+
+            state.classDefinitions.put(viewKey, classDef);
+        }
+
+        if (previousState != null) {
+            for (Map.Entry<ViewKey, ViewClassDefinition> entry : previousState.classDefinitions.entrySet()) {
+
+                ViewKey viewKey = entry.getKey();
+
+                if (state.classDefinitions.get(viewKey) != entry.getValue()) {
+                    affectedClassNames.addAll(previousState.referencedClassNames.get(viewKey));
+                }
+            }
         }
 
         Map<Path, String> generated = new TreeMap<>();
 
+        try (ViewClassGeneratorMetrics.Timing timing = context.getMetrics().time(ViewClassGeneratorMetrics.Phase.GENERATING)) {
+
+            List<ViewClassDefinition> regeneratedClassDefs = classDefinitions.stream()
+                    .filter(classDef -> changedClassDefs.contains(classDef) || affectedClassNames.contains(classDef.getFullyQualifiedClassName()))
+                    .collect(Collectors.toList());
+
+            List<Map<Path, String>> regenerated = context.process(regeneratedClassDefs, this::getGeneratedClasses);
+
+            Map<ViewKey, Map<Path, String>> regeneratedByViewKey = new HashMap<>();
+            for (int i = 0; i < regeneratedClassDefs.size(); i++) {
+                regeneratedByViewKey.put(regeneratedClassDefs.get(i).getViewKey(), regenerated.get(i));
+            }
+
+            for (ViewClassDefinition classDef : classDefinitions) {
+
+                ViewKey viewKey = classDef.getViewKey();
+
+                Map<Path, String> classDefGenerated = regeneratedByViewKey.get(viewKey);
+
+                if (classDefGenerated == null) {
+                    classDefGenerated = previousState.generatedClasses.get(viewKey);
+                }
+
+                state.generatedClasses.put(viewKey, classDefGenerated);
+                generated.putAll(classDefGenerated);
+            }
+
+            generated.putAll(getGeneratedCharSequenceClasses(classDefinitions));
+        }
+
+        incrementalState = state;
+
+        return generated;
+    }
+
+    /*
+     * Generates the sources for a single class definition keyed by file path.
+     * The definitions are fully validated, and therefore initialized, before
+     * any sources are generated, so this is safe to call concurrently for
+     * different definitions.
+     */
+    private Map<Path, String> getGeneratedClasses(ViewClassDefinition classDef) {
+        return getGeneratedClasses(new ViewClassSourceGenerator(context, classDef).generateSources());
+    }
+
+    /*
+     * Generates the sources for the CharSequence classes, if enabled, keyed by file path.
+     */
+    private Map<Path, String> getGeneratedCharSequenceClasses(List<ViewClassDefinition> classDefinitions) {
+
+        if (context.isGenerateStrictTypes()) {
+            return getGeneratedClasses(new CharSequenceClassSourceGenerator(classDefinitions).generateSources());
+
+        } else {
+            return Collections.emptyMap();
+        }
+    }
+
+    private Map<Path, String> getGeneratedClasses(List<ViewClassSource> sources) {
+
+        Map<Path, String> generated = new LinkedHashMap<>();
+
         for (ViewClassSource source : sources) {
 
             String packageName = source.getPackageName();
@@ -166,44 +456,125 @@ public class ViewClassGenerator {
             generated.put(classFile, sourceCode);
         }
 
+        context.getMetrics().add(ViewClassGeneratorMetrics.Counter.SOURCES_GENERATED, sources.size());
+
         return generated;
     }
 
+    /*
+     * Gets the fully qualified names of all the classes referenced by the
+     * fields of the given class definition.
+     */
+    private Set<String> getReferencedClassNames(ViewClassDefinition classDef) {
+        return classDef.getNonNullFieldDefinitions().stream()
+                .map(ViewClassFieldDefinition::getFieldValueTypes)
+                .flatMap(Collection::stream)
+                .map(ViewClassFieldType::getFullyQualifiedClassName)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Releases the threads used for concurrent processing. The generator
+     * shouldn't be used afterwards.
+     */
+    @Override
+    public void close() {
+        context.close();
+    }
+
     public List<Path> generateClasses() {
 
         printLogo();
 
-        return generateClasses(true);
+        // the files may have been modified or deleted since a previous call
+        outputManifest.reverify();
+
+        return generateClasses(getGeneratedClasses(), (classFile, classSource) -> true);
+    }
+
+    /*
+     * Generates the classes incrementally based on the paths modified since
+     * the previous call, and writes the ones that changed to disk. Since the
+     * written files may have been modified or deleted in the meantime, they
+     * are checked against the output manifest again before being skipped.
+     */
+    List<Path> generateClasses(Collection<Path> modifiedPaths) {
+
+        outputManifest.reverify();
+
+        return generateClasses(getGeneratedClasses(modifiedPaths), this::sourceFileChanged);
     }
 
-    private List<Path> generateClasses(boolean overwriteAll) {
+    /*
+     * Writes the generated classes that have changed to disk. Files whose
+     * contents are known from the output manifest are compared against it,
+     * and the overwrite check is only used for the rest. The files are
+     * written concurrently if the context supplies a pool, but the results
+     * are always logged afterwards in the order of the given map.
+     */
+    private List<Path> generateClasses(Map<Path, String> generatedClasses, BiPredicate<Path, String> overwriteCheck) {
 
         long start = System.currentTimeMillis();
 
+        ViewClassGeneratorMetrics metrics = context.getMetrics();
+
         // list of files generated AND written
         List<Path> generatedFiles = new ArrayList<>();
 
-        getGeneratedClasses().forEach((classFile, classSource) -> {
+        try (ViewClassGeneratorMetrics.Timing timing = metrics.time(ViewClassGeneratorMetrics.Phase.WRITING)) {
+
+            List<FileWrite> writes = context.process(generatedClasses.entrySet(), entry -> {
+
+                Path classFile = entry.getKey();
+                String classSource = entry.getValue();
 
-            boolean overwrite = overwriteAll || sourceFileChanged(classFile, classSource);
+                if (outputManifest.contains(classFile)) {
+                    if (outputManifest.isUnchanged(classFile, classSource)) {
+                        return new FileWrite(classFile, false, null);
+                    }
 
-            if (overwrite) {
+                } else if (!overwriteCheck.test(classFile, classSource)) {
+                    // remember the contents so the file doesn't need to be checked again
+                    outputManifest.record(classFile, classSource);
+                    return new FileWrite(classFile, false, null);
+                }
 
                 try {
                     saveJavaFile(classFile, classSource);
+                    outputManifest.record(classFile, classSource);
+                    return new FileWrite(classFile, true, null);
+
+                } catch (IOException e) {
+                    outputManifest.remove(classFile);
+                    return new FileWrite(classFile, false, e);
+                }
+            });
+
+            outputManifest.retain(generatedClasses.keySet());
+            outputManifest.save();
+
+            for (FileWrite write : writes) {
+
+                Path classFile = write.classFile;
+
+                if (write.written) {
 
                     generatedFiles.add(classFile);
+                    metrics.increment(ViewClassGeneratorMetrics.Counter.FILES_WRITTEN);
 
                     logger.green().append("Wrote file: ")
                             .reset().append(classFile)
                             .log();
 
-                } catch (IOException e) {
+                } else if (write.error != null) {
                     logger.red("Failed to write file: ", classFile);
-                    logger.red("Cause: ", e.getMessage());
+                    logger.red("Cause: ", write.error.getMessage());
+
+                    // make sure the next generation tries again
+                    incrementalState = null;
                 }
             }
-        });
+        }
 
         long duration = System.currentTimeMillis() - start;
 
@@ -211,9 +582,37 @@ public class ViewClassGenerator {
             logger.cyan("Generated ", generatedFiles.size(), " files in ", duration, "ms at ", new SimpleDateFormat(DATE_FORMAT).format(new Date()));
         }
 
+        reportMetrics();
+
         return generatedFiles;
     }
 
+    /*
+     * Logs the metrics collected during the last generation and writes the
+     * JSON report, if profiling is enabled.
+     */
+    private void reportMetrics() {
+
+        if (!profile && profileReport == null) {
+            return;
+        }
+
+        ViewClassGeneratorMetrics metrics = context.getMetrics();
+
+        metrics.log(logger);
+
+        if (profileReport != null) {
+            try {
+                metrics.writeReport(profileReport);
+                logger.green().append("Wrote profile report: ").reset().append(profileReport).log();
+
+            } catch (IOException e) {
+                logger.red("Failed to write profile report: ", profileReport);
+                logger.red("Cause: ", e.getMessage());
+            }
+        }
+    }
+
     public void watch() {
 
         printLogo();
@@ -221,10 +620,22 @@ public class ViewClassGenerator {
         final AtomicBoolean viewsChanged = new AtomicBoolean(false);
         final AtomicReference<RuntimeException> generationError = new AtomicReference<>(null);
 
+        // the files modified since the last generation, and whether any files
+        // or directories were added or removed, which requires a full rebuild.
+        final Set<Path> modifiedPaths = new LinkedHashSet<>();
+        final AtomicBoolean structureChanged = new AtomicBoolean(false);
+
         final Supplier<Void> generator = Suppliers.memoizeWithExpiration(() -> {
 
             try {
-                List<Path> generated = generateClasses(false);
+                Collection<Path> changes = structureChanged.getAndSet(false) ? null : new ArrayList<>(modifiedPaths);
+                modifiedPaths.clear();
+
+                // The output manifest covers the files written last time, so
+                // existing files only need to be read back from disk the
+                // first time around.
+                List<Path> generated = generateClasses(getGeneratedClasses(changes), this::sourceFileChanged);
+
                 viewsChanged.set(!generated.isEmpty());
 
             } catch (RuntimeException e) {
@@ -242,7 +653,23 @@ public class ViewClassGenerator {
 
                 boolean changed = false;
 
-                if (Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)) {
+                if (TemplateType.findByFile(path) != null && !Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+
+                    // only the existence of templates matters, which the directory can update incrementally
+                    if (watchEventKind == StandardWatchEventKinds.ENTRY_CREATE
+                            || watchEventKind == StandardWatchEventKinds.ENTRY_DELETE) {
+
+                        logger.green().append(">>")
+                                .reset().append(" Template \"")
+                                .green().append(path)
+                                .reset().append("\" ", watchEventKind == StandardWatchEventKinds.ENTRY_CREATE ? "created" : "deleted", ".\n")
+                                .log();
+
+                        modifiedPaths.add(path);
+                        changed = true;
+                    }
+
+                } else if (Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)) {
 
                     String eventType = null;
 
@@ -263,6 +690,12 @@ public class ViewClassGenerator {
                                 .reset().append("\" ", eventType, ".\n")
                                 .log();
 
+                        if (watchEventKind == StandardWatchEventKinds.ENTRY_MODIFY) {
+                            modifiedPaths.add(path);
+                        } else {
+                            structureChanged.set(true);
+                        }
+
                         changed = true;
                     }
                 } else if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
@@ -275,6 +708,7 @@ public class ViewClassGenerator {
                                 .reset().append("\" modified.\n")
                                 .log();
 
+                        structureChanged.set(true);
                         changed = true;
                     }
                 }
@@ -334,11 +768,10 @@ public class ViewClassGenerator {
     }
 
     private static void saveJavaFile(Path javaFile, String javaSource) throws IOException {
-        File targetFile = javaFile.toFile();
-        targetFile.getParentFile().mkdirs();
-        PrintWriter writer = new PrintWriter(targetFile);
-        writer.print(javaSource);
-        writer.close();
+        // unlike File#mkdirs, safe when other threads create the same directories
+        Files.createDirectories(javaFile.toAbsolutePath().getParent());
+        // unlike PrintWriter, reports write errors so the file isn't recorded as written
+        Files.write(javaFile, javaSource.getBytes(StandardCharsets.UTF_8));
     }
 
     private void printLogo() {
@@ -444,4 +877,44 @@ public class ViewClassGenerator {
                 + totalErrorCount
                 + " previous error" + (totalErrorCount == 1 ? "" : "s") + ".");
     }
+
+    /*
+     * The outcome of writing a single generated class to disk.
+     */
+    private static final class FileWrite {
+
+        private final Path classFile;
+
+        // false if the file was unchanged or couldn't be written
+        private final boolean written;
+
+        private final IOException error;
+
+        private FileWrite(Path classFile, boolean written, IOException error) {
+            this.classFile = classFile;
+            this.written = written;
+            this.error = error;
+        }
+    }
+
+    /*
+     * The results of a generation that can be reused to incrementally apply
+     * the next set of changes.
+     */
+    private static final class IncrementalState {
+
+        private final JsonDirectory directory;
+
+        private final Map<ViewKey, ViewClassDefinition> classDefinitions = new HashMap<>();
+
+        // the classes referenced by the fields of each class definition
+        private final Map<ViewKey, Set<String>> referencedClassNames = new HashMap<>();
+
+        // the generated sources of each class definition, keyed by file path
+        private final Map<ViewKey, Map<Path, String>> generatedClasses = new HashMap<>();
+
+        private IncrementalState(JsonDirectory directory) {
+            this.directory = directory;
+        }
+    }
 }
@@ -2,9 +2,12 @@ package com.psddev.styleguide.codegen;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import com.psddev.dari.util.ObjectUtils;
 
@@ -22,6 +25,16 @@ class ViewClassGeneratorCliArguments {
     private static final String WATCH_PREFIX =               "--watch=";
     private static final String DEFAULT_METHODS_PREFIX =     "--default-methods=";
     private static final String STRICT_TYPES_PREFIX =        "--strict-types=";
+    private static final String PARALLELISM_PREFIX =         "--parallelism=";
+    private static final String PARSE_CACHE_DIR_PREFIX =     "--parse-cache-dir=";
+    private static final String JSON_PARSER_PREFIX =         "--json-parser=";
+    private static final String COMPACT_JSON_TREES_PREFIX =  "--compact-json-trees=";
+    private static final String FUSED_NORMALIZATION_PREFIX = "--fused-normalization=";
+    private static final String PROFILE_PREFIX =             "--profile=";
+    private static final String PROFILE_REPORT_PREFIX =      "--profile-report=";
+    private static final String OUTPUT_MANIFEST_PREFIX =     "--output-manifest=";
+    private static final String DAEMON_PREFIX =              "--daemon=";
+    private static final String DAEMON_PORT_PREFIX =         "--daemon-port=";
 
     // default argument values
     private static final Path DEFAULT_JSON_DIRECTORY = Paths.get(System.getProperty("user.dir"), "styleguide");
@@ -36,6 +49,16 @@ class ViewClassGeneratorCliArguments {
     private boolean watch = false;
     private boolean isDefaultMethods = false;
     private boolean isStrictTypes = true;
+    private int parallelism = 1;
+    private Path parseCacheDirectory;
+    private String jsonParser;
+    private boolean compactJsonTrees = false;
+    private boolean fusedNormalization = false;
+    private boolean profile = false;
+    private Path profileReport;
+    private Path outputManifestFile;
+    private boolean daemon = false;
+    private Integer daemonPort;
 
     public ViewClassGeneratorCliArguments(String[] args) {
 
@@ -70,6 +93,40 @@ class ViewClassGeneratorCliArguments {
 
                 } else if (arg.startsWith(STRICT_TYPES_PREFIX)) {
                     isStrictTypes = ObjectUtils.to(boolean.class, processStringArgument(STRICT_TYPES_PREFIX, arg));
+
+                } else if (arg.startsWith(PARALLELISM_PREFIX)) {
+                    parallelism = ObjectUtils.to(int.class, processStringArgument(PARALLELISM_PREFIX, arg));
+
+                } else if (arg.startsWith(PARSE_CACHE_DIR_PREFIX)) {
+                    String parseCacheDirectoryArg = processStringArgument(PARSE_CACHE_DIR_PREFIX, arg);
+                    parseCacheDirectory = parseCacheDirectoryArg != null ? Paths.get(parseCacheDirectoryArg) : null;
+
+                } else if (arg.startsWith(JSON_PARSER_PREFIX)) {
+                    jsonParser = processStringArgument(JSON_PARSER_PREFIX, arg);
+
+                } else if (arg.startsWith(COMPACT_JSON_TREES_PREFIX)) {
+                    compactJsonTrees = ObjectUtils.to(boolean.class, processStringArgument(COMPACT_JSON_TREES_PREFIX, arg));
+
+                } else if (arg.startsWith(FUSED_NORMALIZATION_PREFIX)) {
+                    fusedNormalization = ObjectUtils.to(boolean.class, processStringArgument(FUSED_NORMALIZATION_PREFIX, arg));
+
+                } else if (arg.startsWith(PROFILE_PREFIX)) {
+                    profile = ObjectUtils.to(boolean.class, processStringArgument(PROFILE_PREFIX, arg));
+
+                } else if (arg.startsWith(PROFILE_REPORT_PREFIX)) {
+                    String profileReportArg = processStringArgument(PROFILE_REPORT_PREFIX, arg);
+                    profileReport = profileReportArg != null ? Paths.get(profileReportArg) : null;
+
+                } else if (arg.startsWith(OUTPUT_MANIFEST_PREFIX)) {
+                    String outputManifestArg = processStringArgument(OUTPUT_MANIFEST_PREFIX, arg);
+                    outputManifestFile = outputManifestArg != null ? Paths.get(outputManifestArg) : null;
+
+                } else if (arg.startsWith(DAEMON_PREFIX)) {
+                    daemon = ObjectUtils.to(boolean.class, processStringArgument(DAEMON_PREFIX, arg));
+
+                } else if (arg.startsWith(DAEMON_PORT_PREFIX)) {
+                    String daemonPortArg = processStringArgument(DAEMON_PORT_PREFIX, arg);
+                    daemonPort = daemonPortArg != null ? ObjectUtils.to(int.class, daemonPortArg) : null;
                 }
             }
         }
@@ -89,6 +146,78 @@ class ViewClassGeneratorCliArguments {
         validateBuildDirectory();
         validateIgnoredFileNames();
         validateClassNamePrefix();
+        validateParallelism();
+        validateJsonParser();
+        validateDaemonPort();
+    }
+
+    /**
+     * Checks if the argument configures the daemon or how to connect to it,
+     * rather than the generated classes.
+     *
+     * @param arg the argument to check.
+     * @return true if it's a daemon argument.
+     */
+    public static boolean isDaemonArgument(String arg) {
+        return arg != null && (arg.startsWith(DAEMON_PREFIX) || arg.startsWith(DAEMON_PORT_PREFIX));
+    }
+
+    /**
+     * Gets the arguments for generating the classes, with every path made
+     * absolute against the current working directory, so that they resolve
+     * to the same files when passed to a daemon running elsewhere. The
+     * daemon arguments themselves are left out.
+     *
+     * @return the arguments with absolute paths.
+     */
+    public List<String> toAbsoluteArguments() {
+
+        List<String> args = new ArrayList<>();
+
+        args.add(JSON_DIRECTORY_PREFIX + jsonDirectories.stream()
+                .map(dir -> dir.toAbsolutePath().normalize().toString())
+                .collect(Collectors.joining(",")));
+
+        if (javaPackageName != null) {
+            args.add(JAVA_PACKAGE_PREFIX + javaPackageName);
+        }
+
+        args.add(BUILD_DIRECTORY_PREFIX + buildDirectory.toAbsolutePath().normalize());
+
+        if (!ignoredFileNames.isEmpty()) {
+            args.add(IGNORE_FILES_PREFIX + String.join(",", ignoredFileNames));
+        }
+
+        if (classNamePrefix != null) {
+            args.add(CLASS_NAME_PREFIX_PREFIX + classNamePrefix);
+        }
+
+        args.add(WATCH_PREFIX + watch);
+        args.add(DEFAULT_METHODS_PREFIX + isDefaultMethods);
+        args.add(STRICT_TYPES_PREFIX + isStrictTypes);
+        args.add(PARALLELISM_PREFIX + parallelism);
+
+        if (parseCacheDirectory != null) {
+            args.add(PARSE_CACHE_DIR_PREFIX + parseCacheDirectory.toAbsolutePath().normalize());
+        }
+
+        if (jsonParser != null) {
+            args.add(JSON_PARSER_PREFIX + jsonParser);
+        }
+
+        args.add(COMPACT_JSON_TREES_PREFIX + compactJsonTrees);
+        args.add(FUSED_NORMALIZATION_PREFIX + fusedNormalization);
+        args.add(PROFILE_PREFIX + profile);
+
+        if (profileReport != null) {
+            args.add(PROFILE_REPORT_PREFIX + profileReport.toAbsolutePath().normalize());
+        }
+
+        if (outputManifestFile != null) {
+            args.add(OUTPUT_MANIFEST_PREFIX + outputManifestFile.toAbsolutePath().normalize());
+        }
+
+        return args;
     }
 
     public Set<Path> getJsonDirectories() {
@@ -123,6 +252,46 @@ class ViewClassGeneratorCliArguments {
         return isStrictTypes;
     }
 
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public Path getParseCacheDirectory() {
+        return parseCacheDirectory;
+    }
+
+    public String getJsonParser() {
+        return jsonParser;
+    }
+
+    public boolean isCompactJsonTrees() {
+        return compactJsonTrees;
+    }
+
+    public boolean isFusedNormalization() {
+        return fusedNormalization;
+    }
+
+    public boolean isProfile() {
+        return profile;
+    }
+
+    public Path getProfileReport() {
+        return profileReport;
+    }
+
+    public Path getOutputManifestFile() {
+        return outputManifestFile;
+    }
+
+    public boolean isDaemon() {
+        return daemon;
+    }
+
+    public Integer getDaemonPort() {
+        return daemonPort;
+    }
+
     private String processStringArgument(String argName, String argValue) {
         String value = argValue.substring(argName.length());
         return !value.isEmpty() ? value : null;
@@ -164,10 +333,30 @@ class ViewClassGeneratorCliArguments {
     }
 
     private void validateIgnoredFileNames() {
-        // nothing to do yet...
+        // fail fast on invalid globs
+        ExcludedPathMatcher.compile(ignoredFileNames);
     }
 
     private void validateClassNamePrefix() {
         // nothing to do yet
     }
+
+    private void validateParallelism() {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism [" + parallelism + "] must be a positive number!");
+        }
+    }
+
+    private void validateJsonParser() {
+        if (jsonParser != null) {
+            // throws if there's no such parser
+            JsonParserBackend.forName(jsonParser);
+        }
+    }
+
+    private void validateDaemonPort() {
+        if (daemonPort != null && (daemonPort < 0 || daemonPort > 65535)) {
+            throw new IllegalArgumentException("Daemon port [" + daemonPort + "] must be between 0 and 65535!");
+        }
+    }
 }
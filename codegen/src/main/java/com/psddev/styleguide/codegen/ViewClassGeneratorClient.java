@@ -0,0 +1,158 @@
+package com.psddev.styleguide.codegen;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import com.psddev.dari.util.ObjectUtils;
+
+/**
+ * A thin client that asks a running view class generator daemon to generate
+ * the classes instead of generating them in the current process, which avoids
+ * paying for the JVM warm-up and for processing the entire styleguide on
+ * every build. If the daemon can't be reached, an {@link IOException} is
+ * thrown so that the caller can fall back to generating the classes itself.
+ */
+public class ViewClassGeneratorClient {
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+
+    private static final int DEFAULT_READ_TIMEOUT_MILLIS = 10 * 60 * 1000;
+
+    private int port;
+
+    private Path tokenFile;
+
+    private int readTimeout = DEFAULT_READ_TIMEOUT_MILLIS;
+
+    /**
+     * Creates a new client for the daemon listening on the given port.
+     *
+     * @param port the port the daemon is listening on.
+     */
+    public ViewClassGeneratorClient(int port) {
+        this(port, ViewClassGeneratorDaemon.getDefaultTokenFile(port));
+    }
+
+    ViewClassGeneratorClient(int port, Path tokenFile) {
+        this.port = port;
+        this.tokenFile = tokenFile;
+    }
+
+    /**
+     * Sets how long to wait for the daemon to respond before giving up, in
+     * milliseconds. Defaults to 10 minutes.
+     *
+     * @param readTimeout the timeout in milliseconds, or 0 to wait forever.
+     */
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * Asks the daemon to generate the classes for the given command line
+     * arguments, and prints everything the daemon logged while doing so to
+     * the standard output.
+     *
+     * @param arguments the command line arguments, with absolute paths.
+     * @return the paths of the files that were written.
+     * @throws IOException if the daemon can't be reached or doesn't respond in time.
+     * @throws ViewClassGeneratorException if the daemon failed to generate the classes.
+     */
+    public List<Path> generateClasses(List<String> arguments) throws IOException {
+        return generateClasses(arguments, log -> {
+            System.out.print(log);
+            System.out.flush();
+        });
+    }
+
+    /**
+     * Asks the daemon to generate the classes for the given command line
+     * arguments, and passes everything the daemon logged while doing so to
+     * the given logger.
+     *
+     * @param arguments the command line arguments, with absolute paths.
+     * @param logger the consumer of the daemon's log output.
+     * @return the paths of the files that were written.
+     * @throws IOException if the daemon can't be reached or doesn't respond in time.
+     * @throws ViewClassGeneratorException if the daemon failed to generate the classes.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Path> generateClasses(List<String> arguments, Consumer<String> logger) throws IOException {
+
+        String token;
+        try {
+            token = new String(Files.readAllBytes(tokenFile), StandardCharsets.UTF_8).trim();
+
+        } catch (IOException e) {
+            throw new IOException("Could not read the daemon token file [" + tokenFile + "]. Is the daemon running?", e);
+        }
+
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("token", token);
+        request.put("arguments", new ArrayList<>(arguments));
+
+        String responseLine;
+
+        try (Socket socket = new Socket()) {
+
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT_MILLIS);
+            socket.setSoTimeout(readTimeout);
+
+            Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            writer.write(ObjectUtils.toJson(request));
+            writer.write("\n");
+            writer.flush();
+
+            responseLine = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)).readLine();
+        }
+
+        if (responseLine == null) {
+            throw new IOException("The daemon closed the connection without responding!");
+        }
+
+        Object response = ObjectUtils.fromJson(responseLine);
+
+        if (!(response instanceof Map)) {
+            throw new IOException("Invalid response from the daemon: " + responseLine);
+        }
+
+        Map<String, Object> responseMap = (Map<String, Object>) response;
+
+        Object log = responseMap.get("log");
+        if (log instanceof String && !((String) log).isEmpty()) {
+            logger.accept((String) log);
+        }
+
+        if (!ViewClassGeneratorDaemon.STATUS_SUCCESS.equals(responseMap.get("status"))) {
+            throw new ViewClassGeneratorException(Objects.toString(responseMap.get("message"), "The daemon failed to generate the classes!"));
+        }
+
+        Object written = responseMap.get("written");
+
+        if (!(written instanceof List)) {
+            return new ArrayList<>();
+        }
+
+        return ((List<Object>) written).stream()
+                .map(Objects::toString)
+                .map(Paths::get)
+                .collect(Collectors.toList());
+    }
+}
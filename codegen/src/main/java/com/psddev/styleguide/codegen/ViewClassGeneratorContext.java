@@ -2,15 +2,20 @@ package com.psddev.styleguide.codegen;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * The overall context (combination of state and settings) for a view class
  * generation operation.
  */
-class ViewClassGeneratorContext {
+class ViewClassGeneratorContext implements AutoCloseable {
 
     private Set<Path> jsonDirectories;
     private Path javaSourceDirectory;
@@ -20,6 +25,23 @@ class ViewClassGeneratorContext {
     private boolean generateDefaultMethods = false;
     private boolean generateStrictTypes = true;
 
+    private ForkJoinPool forkJoinPool;
+
+    // whether the pool was created by setParallelism and must be shut down here
+    private boolean ownsForkJoinPool;
+
+    private JsonFileParseCache parseCache;
+
+    private ViewConfigurationCache viewConfigurationCache = new ViewConfigurationCache();
+
+    private JsonParserBackend parserBackend = JsonParserBackend.UTF8;
+
+    private boolean compactJsonTrees = false;
+
+    private boolean fusedNormalization = false;
+
+    private ViewClassGeneratorMetrics metrics = new ViewClassGeneratorMetrics();
+
     private List<ViewClassDefinition> classDefinitions = new ArrayList<>();
 
     /**
@@ -136,6 +158,187 @@ class ViewClassGeneratorContext {
         this.generateStrictTypes = generateStrictTypes;
     }
 
+    /**
+     * Gets the pool used to process the JSON files, and to generate and write
+     * the view classes, concurrently. If null,
+     * which is the default, the files are processed serially on the calling
+     * thread.
+     *
+     * @return the pool used for concurrent processing, or null if disabled.
+     */
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    /**
+     * Sets the pool used to process the JSON files concurrently. Setting it to
+     * null disables concurrent processing.
+     *
+     * @param forkJoinPool the pool used for concurrent processing.
+     */
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        shutdownForkJoinPool();
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    /**
+     * Sets the number of threads that should be used to process the JSON
+     * files and to generate and write the view classes. A value of 1 or less
+     * disables concurrent processing. The pool created for it is reused if
+     * the parallelism doesn't change, and shut down otherwise.
+     *
+     * @param parallelism the number of threads to use.
+     */
+    public void setParallelism(int parallelism) {
+
+        if (ownsForkJoinPool && forkJoinPool.getParallelism() == parallelism) {
+            return;
+        }
+
+        shutdownForkJoinPool();
+
+        if (parallelism > 1) {
+            forkJoinPool = new ForkJoinPool(parallelism);
+            ownsForkJoinPool = true;
+        }
+    }
+
+    /**
+     * Shuts down the pool created by {@link #setParallelism(int)}, if any.
+     * A pool that was set directly is left for its owner to shut down.
+     */
+    @Override
+    public void close() {
+        shutdownForkJoinPool();
+    }
+
+    private void shutdownForkJoinPool() {
+        if (ownsForkJoinPool) {
+            forkJoinPool.shutdown();
+            ownsForkJoinPool = false;
+        }
+        forkJoinPool = null;
+    }
+
+    /**
+     * Gets the persistent cache of parsed JSON files. If null, which is the
+     * default, every JSON file is parsed from scratch.
+     *
+     * @return the parse cache, or null if disabled.
+     */
+    public JsonFileParseCache getParseCache() {
+        return parseCache;
+    }
+
+    /**
+     * Sets the persistent cache of parsed JSON files. Setting it to null
+     * disables caching.
+     *
+     * @param parseCache the parse cache.
+     */
+    public void setParseCache(JsonFileParseCache parseCache) {
+        this.parseCache = parseCache;
+    }
+
+    /**
+     * Sets the directory where parsed JSON files should be cached between
+     * runs. A null directory disables caching.
+     *
+     * @param parseCacheDirectory the parse cache directory.
+     */
+    public void setParseCacheDirectory(Path parseCacheDirectory) {
+        this.parseCache = parseCacheDirectory != null ? new JsonFileParseCache(parseCacheDirectory) : null;
+    }
+
+    /**
+     * Gets the cache of parsed view configurations that is shared by every
+     * JSON directory created with this context.
+     *
+     * @return the view configuration cache.
+     */
+    public ViewConfigurationCache getViewConfigurationCache() {
+        return viewConfigurationCache;
+    }
+
+    /**
+     * Gets the backend used to parse the JSON files, which defaults to
+     * {@link JsonParserBackend#UTF8}.
+     *
+     * @return the parser backend, never null.
+     */
+    public JsonParserBackend getParserBackend() {
+        return parserBackend;
+    }
+
+    /**
+     * Sets the backend used to parse the JSON files.
+     *
+     * @param parserBackend the parser backend.
+     */
+    public void setParserBackend(JsonParserBackend parserBackend) {
+        this.parserBackend = parserBackend != null ? parserBackend : JsonParserBackend.UTF8;
+    }
+
+    /**
+     * Checks if the parsed JSON files are kept as compact {@link JsonTape
+     * tapes} rather than as trees of objects. Disabled by default.
+     *
+     * @return true if parsed files are kept as tapes.
+     */
+    public boolean isCompactJsonTrees() {
+        return compactJsonTrees;
+    }
+
+    /**
+     * Sets whether the parsed JSON files are kept as compact
+     * {@link JsonTape tapes} rather than as trees of objects.
+     *
+     * @param compactJsonTrees true to keep parsed files as tapes.
+     */
+    public void setCompactJsonTrees(boolean compactJsonTrees) {
+        this.compactJsonTrees = compactJsonTrees;
+    }
+
+    /**
+     * Checks if the JSON files are normalized while they are parsed rather
+     * than in a separate pass over the parsed values. Disabled by default.
+     *
+     * @return true if files are normalized while they are parsed.
+     */
+    public boolean isFusedNormalization() {
+        return fusedNormalization;
+    }
+
+    /**
+     * Sets whether the JSON files are normalized while they are parsed rather
+     * than in a separate pass over the parsed values.
+     *
+     * @param fusedNormalization true to normalize files while parsing them.
+     */
+    public void setFusedNormalization(boolean fusedNormalization) {
+        this.fusedNormalization = fusedNormalization;
+    }
+
+    /**
+     * Gets the timings and counters collected for the phases of the view
+     * class generation operation.
+     *
+     * @return the metrics, never null.
+     */
+    public ViewClassGeneratorMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the collector of timings and counters for the phases of the view
+     * class generation operation.
+     *
+     * @param metrics the metrics to set.
+     */
+    public void setMetrics(ViewClassGeneratorMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     /**
      * Returns the list of view class definitions that have been created thus
      * far in a view class generation operation.
@@ -179,4 +382,42 @@ class ViewClassGeneratorContext {
     public void setDefaultJavaPackagePrefix(String defaultJavaPackagePrefix) {
         this.defaultJavaPackagePrefix = defaultJavaPackagePrefix;
     }
+
+    /**
+     * Applies the function to each of the items and returns the results in
+     * the items' iteration order. If there's a pool, the items are processed
+     * concurrently, otherwise serially on the calling thread. Either way the
+     * results are identical.
+     *
+     * @param items the items to process.
+     * @param function the function to apply to each item.
+     * @param <T> the type of the items.
+     * @param <R> the type of the results.
+     * @return the results in the same order as the items.
+     */
+    <T, R> List<R> process(Collection<T> items, Function<? super T, ? extends R> function) {
+
+        if (forkJoinPool == null) {
+            return items.stream().map(function).collect(Collectors.toList());
+        }
+
+        // copy to a list so the results are collected in a stable order
+        List<T> itemList = new ArrayList<>(items);
+
+        try {
+            return forkJoinPool.submit(() -> itemList.parallelStream().map(function).collect(Collectors.<R>toList())).get();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ViewClassGeneratorException(e);
+
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else {
+                throw new ViewClassGeneratorException(cause);
+            }
+        }
+    }
 }
@@ -0,0 +1,413 @@
+package com.psddev.styleguide.codegen;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.apache.commons.io.output.TeeOutputStream;
+
+import com.psddev.dari.util.ObjectUtils;
+import com.psddev.dari.util.StringUtils;
+
+/**
+ * A long running view class generator that listens for requests from
+ * {@link ViewClassGeneratorClient clients} on a loopback socket. Each request
+ * holds the same arguments as the command line application, and the daemon
+ * keeps a warm generator for each distinct set of arguments, so repeated
+ * builds of the same workspace only process the files that changed since the
+ * previous build.
+ * <p>
+ * Since the daemon writes files on behalf of its clients, every request must
+ * include a secret token that the daemon writes to a file only readable by
+ * the user that started it.
+ */
+class ViewClassGeneratorDaemon implements Closeable {
+
+    static final int DEFAULT_PORT = 9137;
+
+    static final String STATUS_SUCCESS = "success";
+    static final String STATUS_ERROR = "error";
+
+    // the maximum number of workspaces to keep warm at once
+    private static final int MAX_WORKSPACES = 16;
+
+    // how long to wait for a connected client to send its request
+    private static final int READ_TIMEOUT_MILLIS = 30000;
+
+    private final CliLogger logger = CliLogger.getLogger();
+
+    private final ServerSocket serverSocket;
+
+    private final Path tokenFile;
+
+    private final String token;
+
+    private final Map<String, Workspace> workspaces = new LinkedHashMap<String, Workspace>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Workspace> eldest) {
+            if (size() > MAX_WORKSPACES) {
+                eldest.getValue().close();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * Creates a new daemon listening on the given loopback port, and writes
+     * its token to the given file.
+     *
+     * @param port the port to listen on, or 0 to pick any free port.
+     * @param tokenFile the file to write the token to.
+     * @throws IOException if the socket or the token file can't be created.
+     */
+    public ViewClassGeneratorDaemon(int port, Path tokenFile) throws IOException {
+
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.tokenFile = tokenFile;
+
+        byte[] tokenBytes = new byte[32];
+        new SecureRandom().nextBytes(tokenBytes);
+        this.token = StringUtils.hex(tokenBytes);
+
+        try {
+            writeToken();
+
+        } catch (IOException e) {
+            serverSocket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the default location of the token file for a daemon listening on
+     * the given port.
+     *
+     * @param port the port the daemon is listening on.
+     * @return the path to the token file.
+     */
+    public static Path getDefaultTokenFile(int port) {
+        return Paths.get(System.getProperty("user.home"), ".styleguide", "daemon-" + port + ".token");
+    }
+
+    /**
+     * Gets the port the daemon is listening on.
+     *
+     * @return the port.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Handles requests one at a time until the daemon is closed, and then
+     * releases the workspaces.
+     */
+    public void start() {
+
+        logger.green().append("Daemon listening on: ").reset().append(serverSocket.getInetAddress().getHostAddress(), ":", getPort()).log();
+
+        while (!serverSocket.isClosed()) {
+
+            try (Socket socket = serverSocket.accept()) {
+                socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+                handle(socket);
+
+            } catch (SocketException e) {
+                if (!serverSocket.isClosed()) {
+                    logger.red("Daemon connection failed: ", e.getMessage());
+                }
+
+            } catch (IOException e) {
+                logger.red("Daemon connection failed: ", e.getMessage());
+            }
+        }
+
+        // release the threads of the warm generators once the last request is done
+        workspaces.values().forEach(Workspace::close);
+        workspaces.clear();
+    }
+
+    /**
+     * Stops listening for requests and deletes the token file.
+     *
+     * @throws IOException if the socket can't be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            serverSocket.close();
+        } finally {
+            Files.deleteIfExists(tokenFile);
+        }
+    }
+
+    /*
+     * Writes the token to a file that only the current user can read.
+     */
+    private void writeToken() throws IOException {
+
+        Path parent = tokenFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        Files.deleteIfExists(tokenFile);
+
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(tokenFile, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(tokenFile);
+        }
+
+        Files.write(tokenFile, token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /*
+     * Reads a single request from the socket and writes back the response.
+     */
+    private void handle(Socket socket) throws IOException {
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        String requestLine = reader.readLine();
+
+        if (requestLine == null) {
+            return;
+        }
+
+        Map<String, Object> response;
+        try {
+            response = process(requestLine);
+
+        } catch (RuntimeException e) {
+            response = new LinkedHashMap<>();
+            response.put("status", STATUS_ERROR);
+            response.put("message", e.getMessage() != null ? e.getMessage() : e.getClass().getName());
+        }
+
+        Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+        writer.write(ObjectUtils.toJson(response));
+        writer.write("\n");
+        writer.flush();
+    }
+
+    /*
+     * Processes a request and returns the response.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> process(String requestLine) {
+
+        Object request = ObjectUtils.fromJson(requestLine);
+
+        if (!(request instanceof Map)) {
+            throw new IllegalArgumentException("Request must be a JSON object!");
+        }
+
+        Map<String, Object> requestMap = (Map<String, Object>) request;
+
+        Object requestToken = requestMap.get("token");
+
+        if (!(requestToken instanceof String)
+                || !MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), ((String) requestToken).getBytes(StandardCharsets.UTF_8))) {
+            throw new IllegalArgumentException("Invalid daemon token!");
+        }
+
+        Object argumentsObject = requestMap.get("arguments");
+
+        if (!(argumentsObject instanceof List)) {
+            throw new IllegalArgumentException("Request arguments must be a list!");
+        }
+
+        List<String> arguments = ((List<Object>) argumentsObject).stream()
+                .map(Objects::toString)
+                .collect(Collectors.toList());
+
+        Map<String, Object> response = new LinkedHashMap<>();
+
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+
+        // capture everything logged while generating so the client can show it
+        try {
+            System.setOut(new PrintStream(new TeeOutputStream(originalOut, log), true, StandardCharsets.UTF_8.name()));
+
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+
+        try {
+            List<Path> written = generateClasses(arguments);
+
+            response.put("status", STATUS_SUCCESS);
+            response.put("written", written.stream().map(Path::toString).collect(Collectors.toList()));
+
+        } catch (RuntimeException e) {
+            response.put("status", STATUS_ERROR);
+            response.put("message", e.getMessage() != null ? e.getMessage() : e.getClass().getName());
+
+        } finally {
+            System.out.flush();
+            System.setOut(originalOut);
+        }
+
+        response.put("log", new String(log.toByteArray(), StandardCharsets.UTF_8));
+
+        return response;
+    }
+
+    /*
+     * Generates the classes for the given command line arguments using the
+     * workspace for them, only processing the files that changed since the
+     * workspace's previous generation.
+     */
+    private List<Path> generateClasses(List<String> arguments) {
+
+        // the daemon and client settings don't affect the generated classes
+        List<String> workspaceArguments = arguments.stream()
+                .filter(argument -> !ViewClassGeneratorCliArguments.isDaemonArgument(argument))
+                .collect(Collectors.toList());
+
+        String key = String.join("\n", workspaceArguments);
+
+        Workspace workspace = workspaces.get(key);
+
+        if (workspace == null) {
+
+            ViewClassGeneratorCliArguments cliArguments = new ViewClassGeneratorCliArguments(workspaceArguments.toArray(new String[workspaceArguments.size()]));
+
+            if (cliArguments.isWatch()) {
+                throw new IllegalArgumentException("The daemon can't watch for changes!");
+            }
+
+            workspace = new Workspace(cliArguments);
+            workspaces.put(key, workspace);
+        }
+
+        return workspace.generateClasses();
+    }
+
+    /*
+     * A warm generator for a single set of arguments along with the state of
+     * the styleguide files at the time of its last generation.
+     */
+    private static final class Workspace {
+
+        private final ViewClassGenerator generator;
+
+        private final JsonDirectory directory;
+
+        // the state of each file, or null before the first generation
+        private Map<Path, FileState> files;
+
+        private Workspace(ViewClassGeneratorCliArguments arguments) {
+            this.generator = new ViewClassGenerator(arguments);
+            this.directory = new JsonDirectory(generator.getContext());
+        }
+
+        private List<Path> generateClasses() {
+
+            // read the state before generating so concurrent changes are picked up next time
+            Map<Path, FileState> currentFiles = getFiles();
+
+            Collection<Path> modifiedPaths;
+
+            if (files == null || !files.keySet().equals(currentFiles.keySet())) {
+                // files were added or removed
+                modifiedPaths = null;
+
+            } else {
+                modifiedPaths = currentFiles.entrySet().stream()
+                        .filter(entry -> !entry.getValue().equals(files.get(entry.getKey())))
+                        .map(Map.Entry::getKey)
+                        .collect(Collectors.toList());
+            }
+
+            files = currentFiles;
+
+            return generator.generateClasses(modifiedPaths);
+        }
+
+        private void close() {
+            generator.close();
+        }
+
+        /*
+         * Gets the state of each JSON and template file, pruning the excluded
+         * directories and node_modules the same way the generator does.
+         */
+        private Map<Path, FileState> getFiles() {
+
+            Map<Path, FileState> files = new HashMap<>();
+
+            for (Path file : directory.getStyleguideFilePaths()) {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    files.put(file, new FileState(attributes.size(), attributes.lastModifiedTime().toMillis()));
+
+                } catch (IOException e) {
+                    // removed since the scan
+                }
+            }
+
+            return files;
+        }
+    }
+
+    /*
+     * The size and last modified time of a file.
+     */
+    private static final class FileState {
+
+        private final long size;
+        private final long lastModified;
+
+        private FileState(long size, long lastModified) {
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof FileState)) {
+                return false;
+            }
+            FileState that = (FileState) other;
+            return size == that.size && lastModified == that.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(size, lastModified);
+        }
+    }
+}
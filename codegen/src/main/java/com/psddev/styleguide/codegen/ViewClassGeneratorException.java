@@ -1,6 +1,6 @@
 package com.psddev.styleguide.codegen;
 
-class ViewClassGeneratorException extends RuntimeException {
+public class ViewClassGeneratorException extends RuntimeException {
 
     public ViewClassGeneratorException() {
     }
@@ -0,0 +1,325 @@
+package com.psddev.styleguide.codegen;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.psddev.dari.util.ObjectUtils;
+
+/**
+ * Collects timings and counters for each phase of a view class generation
+ * operation so that it's possible to tell where a slow build spends its time.
+ * Collection is cheap enough that it's always on, and whether the results are
+ * reported is up to the caller. Phases that trigger work belonging to another
+ * phase, such as resolving a file that references a file that hasn't been
+ * normalized yet, count that work towards both phases.
+ */
+class ViewClassGeneratorMetrics {
+
+    /**
+     * The phases of a view class generation operation.
+     */
+    enum Phase {
+        SCANNING,
+        PARSING,
+        NORMALIZING,
+        RESOLVING,
+        DEFINING,
+        VALIDATING,
+        GENERATING,
+        WRITING
+    }
+
+    /**
+     * The things that are counted during a view class generation operation.
+     */
+    enum Counter {
+        FILES_SCANNED,
+        FILES_PARSED,
+        BYTES_READ,
+        DATA_URL_FETCHES,
+        DATA_URL_CACHE_HITS,
+        PARSE_CACHE_HITS,
+        PARSE_CACHE_MISSES,
+        CONFIG_FILES_READ,
+        VIEW_MAPS,
+        CLASS_DEFINITIONS,
+        SOURCES_GENERATED,
+        FILES_WRITTEN
+    }
+
+    private static final String ALLOCATION_NOT_SUPPORTED = "n/a";
+
+    private final Map<Phase, PhaseMetrics> phases = new EnumMap<>(Phase.class);
+
+    private final Map<Counter, AtomicLong> counters = new EnumMap<>(Counter.class);
+
+    private volatile long startTime;
+
+    /**
+     * Creates a new metrics collector with everything set to zero.
+     */
+    public ViewClassGeneratorMetrics() {
+
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, new PhaseMetrics());
+        }
+
+        for (Counter counter : Counter.values()) {
+            counters.put(counter, new AtomicLong());
+        }
+
+        startTime = System.nanoTime();
+    }
+
+    /**
+     * Sets all of the timings and counters back to zero and restarts the
+     * overall clock.
+     */
+    public void reset() {
+
+        for (PhaseMetrics phaseMetrics : phases.values()) {
+            phaseMetrics.reset();
+        }
+
+        for (AtomicLong count : counters.values()) {
+            count.set(0);
+        }
+
+        startTime = System.nanoTime();
+    }
+
+    /**
+     * Starts timing the given phase. The timing ends when the returned object
+     * is closed, which is intended to be done via try-with-resources.
+     *
+     * @param phase the phase to time.
+     * @return the timing, which must be closed at the end of the phase.
+     */
+    public Timing time(Phase phase) {
+        return new Timing(phases.get(phase));
+    }
+
+    /**
+     * Increments the given counter by one.
+     *
+     * @param counter the counter to increment.
+     */
+    public void increment(Counter counter) {
+        counters.get(counter).incrementAndGet();
+    }
+
+    /**
+     * Adds the given amount to the counter.
+     *
+     * @param counter the counter to add to.
+     * @param amount the amount to add.
+     */
+    public void add(Counter counter, long amount) {
+        counters.get(counter).addAndGet(amount);
+    }
+
+    /**
+     * Gets the current value of the given counter.
+     *
+     * @param counter the counter to get.
+     * @return the counter value.
+     */
+    public long getCount(Counter counter) {
+        return counters.get(counter).get();
+    }
+
+    /**
+     * Gets the total wall time spent in the given phase.
+     *
+     * @param phase the phase to get the time for.
+     * @param unit the unit of the returned time.
+     * @return the time spent in the phase.
+     */
+    public long getTime(Phase phase, TimeUnit unit) {
+        return unit.convert(phases.get(phase).nanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets all of the metrics as a map suitable for converting to JSON.
+     *
+     * @return the metrics report.
+     */
+    public Map<String, Object> toReport() {
+
+        Map<String, Object> report = new LinkedHashMap<>();
+
+        report.put("totalMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+
+        Map<String, Object> phasesReport = new LinkedHashMap<>();
+
+        for (Map.Entry<Phase, PhaseMetrics> entry : phases.entrySet()) {
+
+            PhaseMetrics phaseMetrics = entry.getValue();
+            Map<String, Object> phaseReport = new LinkedHashMap<>();
+
+            phaseReport.put("millis", TimeUnit.NANOSECONDS.toMillis(phaseMetrics.nanos.get()));
+            phaseReport.put("count", phaseMetrics.count.get());
+            phaseReport.put("allocatedBytes", isAllocationSupported() ? phaseMetrics.allocatedBytes.get() : ALLOCATION_NOT_SUPPORTED);
+
+            phasesReport.put(toReportKey(entry.getKey()), phaseReport);
+        }
+
+        report.put("phases", phasesReport);
+
+        Map<String, Object> countersReport = new LinkedHashMap<>();
+
+        for (Map.Entry<Counter, AtomicLong> entry : counters.entrySet()) {
+            countersReport.put(toReportKey(entry.getKey()), entry.getValue().get());
+        }
+
+        report.put("counters", countersReport);
+
+        return report;
+    }
+
+    /**
+     * Writes the metrics report as JSON to the given file.
+     *
+     * @param reportFile the file to write the report to.
+     * @throws IOException if the report could not be written.
+     */
+    public void writeReport(Path reportFile) throws IOException {
+
+        Path parent = reportFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        Files.write(reportFile, ObjectUtils.toJson(toReport()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Logs a human readable summary of the metrics.
+     *
+     * @param logger the logger to log to.
+     */
+    public void log(CliLogger logger) {
+
+        CliLoggerMessageBuilder builder = logger.cyan().append("Profile (total ")
+                .reset().append(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), "ms")
+                .cyan().append("):\n");
+
+        for (Map.Entry<Phase, PhaseMetrics> entry : phases.entrySet()) {
+
+            PhaseMetrics phaseMetrics = entry.getValue();
+
+            builder.cyan().append("    ", toReportKey(entry.getKey()), ": ")
+                    .reset().append(TimeUnit.NANOSECONDS.toMillis(phaseMetrics.nanos.get()), "ms");
+
+            if (isAllocationSupported()) {
+                builder.append(", ", phaseMetrics.allocatedBytes.get() / 1024, "KB allocated");
+            }
+
+            builder.append("\n");
+        }
+
+        for (Map.Entry<Counter, AtomicLong> entry : counters.entrySet()) {
+            builder.cyan().append("    ", toReportKey(entry.getKey()), ": ")
+                    .reset().append(entry.getValue().get(), "\n");
+        }
+
+        builder.log();
+    }
+
+    /*
+     * Converts an enum constant name like FILES_SCANNED to filesScanned.
+     */
+    private static String toReportKey(Enum<?> constant) {
+
+        StringBuilder key = new StringBuilder();
+
+        for (String part : constant.name().toLowerCase().split("_")) {
+            if (key.length() == 0) {
+                key.append(part);
+            } else {
+                key.append(Character.toUpperCase(part.charAt(0))).append(part.substring(1));
+            }
+        }
+
+        return key.toString();
+    }
+
+    private static boolean isAllocationSupported() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        return threadBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()
+                && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemoryEnabled();
+    }
+
+    /*
+     * Gets the total number of bytes allocated by all the live threads, or 0
+     * if the JVM doesn't support measuring it. Threads that finish during a
+     * phase aren't included, but the threads that do the work, the caller's
+     * and the pool's, live for the whole operation.
+     */
+    private static long getAllocatedBytes() {
+
+        if (!isAllocationSupported()) {
+            return 0;
+        }
+
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        long total = 0;
+        for (long allocated : threadBean.getThreadAllocatedBytes(threadBean.getAllThreadIds())) {
+            if (allocated > 0) {
+                total += allocated;
+            }
+        }
+
+        return total;
+    }
+
+    /*
+     * The accumulated metrics for a single phase.
+     */
+    private static final class PhaseMetrics {
+
+        private final AtomicLong nanos = new AtomicLong();
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong allocatedBytes = new AtomicLong();
+
+        void reset() {
+            nanos.set(0);
+            count.set(0);
+            allocatedBytes.set(0);
+        }
+    }
+
+    /**
+     * A single timing of a phase, which is recorded when closed.
+     */
+    static final class Timing implements AutoCloseable {
+
+        private final PhaseMetrics phaseMetrics;
+        private final long start;
+        private final long startAllocatedBytes;
+
+        private Timing(PhaseMetrics phaseMetrics) {
+            this.phaseMetrics = phaseMetrics;
+            this.startAllocatedBytes = getAllocatedBytes();
+            this.start = System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            phaseMetrics.nanos.addAndGet(System.nanoTime() - start);
+            phaseMetrics.count.incrementAndGet();
+            phaseMetrics.allocatedBytes.addAndGet(Math.max(0, getAllocatedBytes() - startAllocatedBytes));
+        }
+    }
+}
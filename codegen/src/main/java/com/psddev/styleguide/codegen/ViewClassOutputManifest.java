@@ -0,0 +1,341 @@
+package com.psddev.styleguide.codegen;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.psddev.dari.util.StringUtils;
+
+/**
+ * A record of the generated source files that were last written to disk,
+ * holding the length and MD5 hash of each file's contents so that unchanged
+ * classes can be detected without reading the existing files back. A source
+ * whose length differs from the recorded one is known to have changed without
+ * hashing it at all.
+ * <p>
+ * The manifest can optionally be persisted to a file so that it survives
+ * across separate builds. Since the files may have been modified or deleted
+ * in the meantime, the entries loaded from disk are only trusted if the size
+ * and last modified time of the file still match those recorded when it was
+ * written, which is checked once per entry.
+ */
+class ViewClassOutputManifest {
+
+    // Bump this whenever the binary format below changes.
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 0x564D414E; // "VMAN"
+
+    private CliLogger logger = CliLogger.getLogger();
+
+    private Path file;
+
+    private Map<Path, Entry> entries = new ConcurrentHashMap<>();
+
+    private volatile boolean modified;
+
+    /**
+     * Creates a new manifest that is only kept in memory.
+     */
+    public ViewClassOutputManifest() {
+    }
+
+    /**
+     * Creates a new manifest that is persisted to the given file, loading
+     * the entries that were previously saved to it, if any.
+     *
+     * @param file the file to persist the manifest to.
+     */
+    public ViewClassOutputManifest(Path file) {
+        this.file = file;
+        load();
+    }
+
+    /**
+     * Gets the file where the manifest is persisted.
+     *
+     * @return the manifest file, or null if it's only kept in memory.
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Checks if there's an entry for the given source file that still
+     * reflects what's on disk.
+     *
+     * @param sourceFile the path of the source file.
+     * @return true if the source file's contents are known.
+     */
+    public boolean contains(Path sourceFile) {
+
+        Path key = toKey(sourceFile);
+        Entry entry = entries.get(key);
+
+        if (entry == null) {
+            return false;
+        }
+
+        if (entry.verified) {
+            return true;
+        }
+
+        // make sure the file hasn't changed since the entry was loaded
+        Entry verified = null;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(sourceFile, BasicFileAttributes.class);
+
+            if (attributes.size() == entry.fileSize && attributes.lastModifiedTime().toMillis() == entry.lastModified) {
+                verified = new Entry(entry.length, entry.hash, entry.fileSize, entry.lastModified, true);
+            }
+
+        } catch (IOException e) {
+            // the file is gone or can't be read, either way the entry is stale
+        }
+
+        if (verified != null) {
+            entries.replace(key, entry, verified);
+            return true;
+
+        } else {
+            entries.remove(key, entry);
+            modified = true;
+            return false;
+        }
+    }
+
+    /**
+     * Checks if the given source code is the same as the contents last
+     * recorded for the source file. Assumes that {@link #contains(Path)} was
+     * checked beforehand.
+     *
+     * @param sourceFile the path of the source file.
+     * @param sourceCode the source code to compare.
+     * @return true if the source code is unchanged.
+     */
+    public boolean isUnchanged(Path sourceFile, String sourceCode) {
+
+        Entry entry = entries.get(toKey(sourceFile));
+
+        return entry != null
+                && entry.length == sourceCode.length()
+                && Arrays.equals(entry.hash, StringUtils.md5(sourceCode));
+    }
+
+    /**
+     * Requires every entry to be verified against the file on disk again
+     * before it's trusted, for when the files may have been modified or
+     * deleted since they were written.
+     */
+    public void reverify() {
+        entries.replaceAll((key, entry) -> entry.verified
+                ? new Entry(entry.length, entry.hash, entry.fileSize, entry.lastModified, false)
+                : entry);
+    }
+
+    /**
+     * Records that the source code was just written to the source file, or
+     * that the source file is known to contain it.
+     *
+     * @param sourceFile the path of the source file.
+     * @param sourceCode the source code in the file.
+     */
+    public void record(Path sourceFile, String sourceCode) {
+
+        long fileSize = -1;
+        long lastModified = -1;
+
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(sourceFile, BasicFileAttributes.class);
+            fileSize = attributes.size();
+            lastModified = attributes.lastModifiedTime().toMillis();
+
+        } catch (IOException e) {
+            // the entry won't survive a reload, but is still valid in memory
+        }
+
+        entries.put(toKey(sourceFile), new Entry(sourceCode.length(), StringUtils.md5(sourceCode), fileSize, lastModified, true));
+        modified = true;
+    }
+
+    /**
+     * Removes the entry for the given source file, such as when it could not
+     * be written.
+     *
+     * @param sourceFile the path of the source file.
+     */
+    public void remove(Path sourceFile) {
+        if (entries.remove(toKey(sourceFile)) != null) {
+            modified = true;
+        }
+    }
+
+    /**
+     * Removes the entries for all the source files other than the given ones,
+     * so that classes that are no longer generated don't linger.
+     *
+     * @param sourceFiles the paths of the source files to keep.
+     */
+    public void retain(Collection<Path> sourceFiles) {
+
+        Set<Path> keys = new HashSet<>();
+        for (Path sourceFile : sourceFiles) {
+            keys.add(toKey(sourceFile));
+        }
+
+        if (entries.keySet().retainAll(keys)) {
+            modified = true;
+        }
+    }
+
+    /**
+     * Saves the manifest to its file if it's persisted and anything changed
+     * since it was loaded or last saved.
+     */
+    public void save() {
+
+        if (file == null || !modified) {
+            return;
+        }
+
+        modified = false;
+
+        Path tempPath = null;
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+
+            tempPath = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+
+            try (OutputStream outputStream = Files.newOutputStream(tempPath)) {
+
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream));
+
+                output.writeInt(MAGIC);
+                output.writeInt(FORMAT_VERSION);
+
+                Map<Path, Entry> snapshot = new LinkedHashMap<>(entries);
+
+                output.writeInt(snapshot.size());
+
+                for (Map.Entry<Path, Entry> mapEntry : snapshot.entrySet()) {
+
+                    Entry entry = mapEntry.getValue();
+
+                    output.writeUTF(mapEntry.getKey().toString());
+                    output.writeInt(entry.length);
+                    output.writeInt(entry.hash.length);
+                    output.write(entry.hash);
+                    output.writeLong(entry.fileSize);
+                    output.writeLong(entry.lastModified);
+                }
+
+                output.flush();
+            }
+
+            try {
+                Files.move(tempPath, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempPath, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+        } catch (IOException e) {
+            logger.yellow("Could not write output manifest [", file, "]. Cause: ", e.getMessage());
+
+            if (tempPath != null) {
+                try {
+                    Files.deleteIfExists(tempPath);
+                } catch (IOException ignored) {
+                    // nothing else we can do
+                }
+            }
+        }
+    }
+
+    /*
+     * Loads the previously saved entries, if any. A missing, corrupt, or
+     * outdated file is treated as an empty manifest.
+     */
+    private void load() {
+
+        try (InputStream inputStream = Files.newInputStream(file)) {
+
+            DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream));
+
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+                return;
+            }
+
+            int size = input.readInt();
+
+            for (int i = 0; i < size; i++) {
+
+                Path key = Paths.get(input.readUTF());
+                int length = input.readInt();
+                byte[] hash = new byte[input.readInt()];
+                input.readFully(hash);
+                long fileSize = input.readLong();
+                long lastModified = input.readLong();
+
+                entries.put(key, new Entry(length, hash, fileSize, lastModified, false));
+            }
+
+        } catch (NoSuchFileException e) {
+            // nothing saved yet
+
+        } catch (IOException | RuntimeException e) {
+            entries.clear();
+            logger.yellow("Could not read output manifest [", file, "]. Cause: ", e.getMessage());
+        }
+    }
+
+    private static Path toKey(Path sourceFile) {
+        return sourceFile.toAbsolutePath().normalize();
+    }
+
+    /*
+     * The recorded contents of a single source file.
+     */
+    private static final class Entry {
+
+        // the length of the source code in characters
+        private final int length;
+
+        private final byte[] hash;
+
+        // the size and last modified time of the file right after it was
+        // written, or -1 if they couldn't be determined.
+        private final long fileSize;
+        private final long lastModified;
+
+        // true if the entry is known to reflect the file on disk
+        private final boolean verified;
+
+        private Entry(int length, byte[] hash, long fileSize, long lastModified, boolean verified) {
+            this.length = length;
+            this.hash = hash;
+            this.fileSize = fileSize;
+            this.lastModified = lastModified;
+            this.verified = verified;
+        }
+    }
+}
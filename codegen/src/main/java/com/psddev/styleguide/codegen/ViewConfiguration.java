@@ -43,10 +43,23 @@ class ViewConfiguration {
      * @throws IOException if the configuration file cannot be read for any reason.
      */
     public ViewConfiguration(Path configFilePath) throws IOException {
+        this(configFilePath, configFilePath);
+    }
+
+    /**
+     * Creates a new template view configuration by reading and parsing the
+     * given file, which is found at a different path within the JSON
+     * directory, such as when the directory overlays multiple directories.
+     *
+     * @param configFilePath the path to the configuration file within the JSON directory.
+     * @param configFile the actual configuration file to read.
+     * @throws IOException if the configuration file cannot be read for any reason.
+     */
+    public ViewConfiguration(Path configFilePath, Path configFile) throws IOException {
 
         this.path = configFilePath;
 
-        String configFileData = IoUtils.toString(configFilePath.toFile(), StandardCharsets.UTF_8);
+        String configFileData = IoUtils.toString(configFile.toFile(), StandardCharsets.UTF_8);
 
         Object configFileObject;
         try {
@@ -0,0 +1,77 @@
+package com.psddev.styleguide.codegen;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An in-memory cache of parsed {@link ViewConfiguration view configurations}
+ * keyed by the real path of each _config.json file, so that every config
+ * file is read and parsed once rather than once per template that it
+ * applies to. An entry is only used if the size and last modified time of
+ * the file still match those at the time it was read, so when the cache
+ * outlives a single build, such as in watch mode, only the config files that
+ * actually changed are read again.
+ */
+class ViewConfigurationCache {
+
+    private Map<Path, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the parsed configuration for the given file, reading it if it
+     * isn't cached or changed since it was cached.
+     *
+     * @param configFilePath the path to the configuration file within the JSON directory.
+     * @param configFile the actual configuration file to read.
+     * @param metrics the metrics to record the files read in.
+     * @return the parsed configuration.
+     * @throws IOException if the configuration file cannot be read for any reason.
+     */
+    public ViewConfiguration get(Path configFilePath, Path configFile, ViewClassGeneratorMetrics metrics) throws IOException {
+
+        // read the file attributes before the file itself so that a concurrent
+        // modification can never be cached under the newer timestamp.
+        BasicFileAttributes attributes = Files.readAttributes(configFile, BasicFileAttributes.class);
+
+        Path key = configFile.toAbsolutePath();
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+
+        Entry entry = entries.get(key);
+
+        if (entry != null
+                && entry.size == size
+                && entry.lastModified == lastModified
+                && entry.configuration.getPath().equals(configFilePath)) {
+
+            return entry.configuration;
+        }
+
+        ViewConfiguration configuration = new ViewConfiguration(configFilePath, configFile);
+        metrics.increment(ViewClassGeneratorMetrics.Counter.CONFIG_FILES_READ);
+
+        entries.put(key, new Entry(configuration, size, lastModified));
+
+        return configuration;
+    }
+
+    /*
+     * A parsed configuration along with the state of its file when it was read.
+     */
+    private static final class Entry {
+
+        private final ViewConfiguration configuration;
+
+        private final long size;
+        private final long lastModified;
+
+        private Entry(ViewConfiguration configuration, long size, long lastModified) {
+            this.configuration = configuration;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.psddev.styleguide.codegen;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestDataUrlResolutionCache {
+
+    private Path tempDirectory;
+    private Path jsonDirectory;
+
+    @Before
+    public void before() throws Exception {
+        tempDirectory = Files.createTempDirectory(getClass().getSimpleName());
+        jsonDirectory = tempDirectory.resolve("styleguide");
+
+        // work on a copy so the files can be modified
+        FileUtils.copyDirectory(TestUtils.getJsonDirectoryPathForClass(TestDataUrlOverrides.class).toFile(), jsonDirectory.toFile());
+    }
+
+    @After
+    public void after() throws Exception {
+        FileUtils.deleteDirectory(tempDirectory.toFile());
+    }
+
+    @Test
+    public void testSharedDataUrlResolvedOnce() throws Exception {
+
+        ViewClassGeneratorContext context = TestUtils.getViewClassGeneratorContextForPath(jsonDirectory);
+        JsonDirectory directory = new JsonDirectory(context);
+        directory.resolveViewMaps();
+
+        ViewClassGeneratorMetrics metrics = context.getMetrics();
+
+        // data.json is referenced 6 times, but only needs to be resolved once
+        assertEquals(6, metrics.getCount(ViewClassGeneratorMetrics.Counter.DATA_URL_FETCHES));
+        assertTrue(metrics.getCount(ViewClassGeneratorMetrics.Counter.DATA_URL_CACHE_HITS) > 0);
+        assertNotNull(directory.getDataUrlResolution(jsonDirectory.relativize(jsonDirectory.resolve("data.json"))));
+
+        // overrides are still applied to each reference individually
+        Set<String> rawValues = getRawValues(directory.resolveViewMaps());
+        assertTrue(rawValues.stream().anyMatch(value -> value.contains("foo4=bar4") && value.contains("foo5=bar5")));
+        assertTrue(rawValues.stream().anyMatch(value -> value.contains("foo3=bar3")));
+    }
+
+    @Test
+    public void testInvalidatedOnUpdate() throws Exception {
+
+        JsonDirectory directory = new JsonDirectory(TestUtils.getViewClassGeneratorContextForPath(jsonDirectory));
+        directory.resolveViewMaps();
+
+        Path data = jsonDirectory.resolve("data.json");
+        Files.write(data, "{\n    \"_template\": \"templates/child\",\n    \"foo6\": \"bar6\"\n}".getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(directory.update(Collections.singleton(data)));
+
+        Set<String> rawValues = getRawValues(directory.resolveViewMaps());
+
+        assertEquals(getRawValues(new JsonDirectory(TestUtils.getViewClassGeneratorContextForPath(jsonDirectory)).resolveViewMaps()), rawValues);
+        assertTrue(rawValues.stream().anyMatch(value -> value.contains("foo6=bar6")));
+    }
+
+    private Set<String> getRawValues(Set<JsonViewMap> viewMaps) {
+        return viewMaps.stream()
+                .map(viewMap -> viewMap.getViewKey().getName() + "=" + viewMap.toRawValue())
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,67 @@
+package com.psddev.styleguide.codegen;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestExcludedPathMatcher {
+
+    @Test
+    public void testNames() throws Exception {
+
+        ExcludedPathMatcher matcher = ExcludedPathMatcher.compile(Arrays.asList("_config.json", "drafts"));
+
+        assertTrue(matcher.isExcluded(path("_config.json")));
+        assertTrue(matcher.isExcluded(path("module/_config.json")));
+        assertTrue(matcher.isExcluded(path("drafts/Article.json")));
+        assertTrue(matcher.isExcluded(path("module/drafts/Article.json")));
+
+        assertFalse(matcher.isExcluded(path("Article.json")));
+        assertFalse(matcher.isExcluded(path("module/drafts.json")));
+        assertFalse(matcher.isExcluded(path("module/my_config.json")));
+    }
+
+    @Test
+    public void testNameGlobs() throws Exception {
+
+        ExcludedPathMatcher matcher = ExcludedPathMatcher.compile(Arrays.asList("*.draft.json", "test-*/"));
+
+        assertTrue(matcher.isExcluded(path("Article.draft.json")));
+        assertTrue(matcher.isExcluded(path("module/Article.draft.json")));
+        assertTrue(matcher.isExcluded(path("module/test-fixtures/Article.json")));
+
+        assertFalse(matcher.isExcluded(path("Article.json")));
+        assertFalse(matcher.isExcluded(path("module/test-Article.json")));
+
+        assertTrue(matcher.matches(path("test-fixtures"), true));
+        assertFalse(matcher.matches(path("test-fixtures"), false));
+    }
+
+    @Test
+    public void testPathGlobs() throws Exception {
+
+        ExcludedPathMatcher matcher = ExcludedPathMatcher.compile(Arrays.asList("/styleguide/legacy", "examples/**/*.json"));
+
+        assertTrue(matcher.isExcluded(path("styleguide/legacy/Article.json")));
+        assertTrue(matcher.isExcluded(path("styleguide/legacy/module/Module.json")));
+        assertTrue(matcher.isExcluded(path("examples/module/Module.json")));
+
+        assertFalse(matcher.isExcluded(path("legacy/Article.json")));
+        assertFalse(matcher.isExcluded(path("module/styleguide/legacy/Article.json")));
+        assertFalse(matcher.isExcluded(path("examples/Example.json")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidGlob() throws Exception {
+        ExcludedPathMatcher.compile(Arrays.asList("module/[unclosed"));
+    }
+
+    private static Path path(String path) {
+        return Paths.get(path);
+    }
+}
@@ -0,0 +1,159 @@
+package com.psddev.styleguide.codegen;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestIncrementalGeneration {
+
+    private Path tempDirectory;
+    private Path jsonDirectory;
+
+    @Before
+    public void before() throws Exception {
+        tempDirectory = Files.createTempDirectory(getClass().getSimpleName());
+        jsonDirectory = tempDirectory.resolve("styleguide");
+
+        // work on a copy so the files can be modified
+        FileUtils.copyDirectory(TestUtils.getJsonDirectoryPathForClass(TestWrapperJsonDelegate.class).toFile(), jsonDirectory.toFile());
+    }
+
+    @After
+    public void after() throws Exception {
+        FileUtils.deleteDirectory(tempDirectory.toFile());
+    }
+
+    @Test
+    public void testIncrementalGeneration() throws Exception {
+
+        ViewClassGenerator generator = TestUtils.getDefaultGeneratorForPath(jsonDirectory);
+        assertEquals(TestUtils.getDefaultGeneratorForPath(jsonDirectory).getGeneratedClasses(), generator.getGeneratedClasses(null));
+
+        // a file pulled into the wrappers via _dataUrl
+        Path head = write("Head.json", "{\n    \"_wrapper\": null,\n    \"_template\": \"Head.hbs\",\n    \"title\": \"Page\",\n    \"keywords\": \"Keywords\"\n}");
+
+        Map<Path, String> classes = generator.getGeneratedClasses(Collections.singleton(head));
+        assertEquals(TestUtils.getDefaultGeneratorForPath(jsonDirectory).getGeneratedClasses(), classes);
+        assertTrue(classes.values().stream().anyMatch(source -> source.contains("getKeywords")));
+
+        // a file that nothing else depends on
+        Path listModule = write("module/list/ListModule.json", "{\n    \"_template\": \"ListModule.hbs\",\n    \"title\": \"Module Title\",\n    \"items\": [\"One\", \"Two\"]\n}");
+
+        classes = generator.getGeneratedClasses(Collections.singleton(listModule));
+        assertEquals(TestUtils.getDefaultGeneratorForPath(jsonDirectory).getGeneratedClasses(), classes);
+        assertTrue(classes.values().stream().anyMatch(source -> source.contains("getItems")));
+
+        // a wrapper file that the delegate fields depend on
+        Path wrapper = write("module/promo/_wrapper.json", "{\n    \"_template\": \"/Page.hbs\",\n    \"head\": {\n        \"_dataUrl\": \"HeadForPromoModule.json\"\n    },\n    \"body\": {\n        \"_dataUrl\": \"/Body.json\"\n    },\n    \"footer\": \"Footer\"\n}");
+
+        classes = generator.getGeneratedClasses(Collections.singleton(wrapper));
+        assertEquals(TestUtils.getDefaultGeneratorForPath(jsonDirectory).getGeneratedClasses(), classes);
+        assertTrue(classes.values().stream().anyMatch(source -> source.contains("getFooter")));
+
+        // a config file can't be applied incrementally
+        Path config = write("_config.json", "{\n    \"javaPackage\": \"incremental\",\n    \"templateEngine\": \"hbs\"\n}");
+
+        classes = generator.getGeneratedClasses(Collections.singleton(config));
+        assertEquals(TestUtils.getDefaultGeneratorForPath(jsonDirectory).getGeneratedClasses(), classes);
+        assertTrue(classes.keySet().stream().anyMatch(path -> path.toString().contains("incremental")));
+    }
+
+    @Test
+    public void testIncrementalDirectoryUpdate() throws Exception {
+
+        JsonDirectory directory = new JsonDirectory(TestUtils.getViewClassGeneratorContextForPath(jsonDirectory));
+        directory.resolveViewMaps();
+
+        Map<Path, JsonFile> filesBefore = getFilesByRelativePath(directory);
+
+        Path listModule = write("module/list/ListModule.json", "{\n    \"_template\": \"ListModule.hbs\",\n    \"title\": \"New Title\"\n}");
+
+        assertTrue(directory.update(Collections.singleton(listModule)));
+
+        Map<Path, JsonFile> filesAfter = getFilesByRelativePath(directory);
+
+        assertEquals(filesBefore.keySet(), filesAfter.keySet());
+
+        // only the modified file is processed again since nothing depends on it
+        for (Map.Entry<Path, JsonFile> entry : filesAfter.entrySet()) {
+            if (entry.getKey().equals(jsonDirectory.relativize(listModule))) {
+                assertNotSame(filesBefore.get(entry.getKey()), entry.getValue());
+            } else {
+                assertSame(filesBefore.get(entry.getKey()), entry.getValue());
+            }
+        }
+
+        // the resulting view maps match those of a brand new directory
+        assertEquals(
+                getRawValues(new JsonDirectory(TestUtils.getViewClassGeneratorContextForPath(jsonDirectory)).resolveViewMaps()),
+                getRawValues(directory.resolveViewMaps()));
+
+        // changes to configuration files require the directory to be re-created
+        assertFalse(directory.update(Collections.singleton(jsonDirectory.resolve("_config.json"))));
+    }
+
+    @Test
+    public void testIncrementalTemplateUpdate() throws Exception {
+
+        JsonDirectory directory = new JsonDirectory(TestUtils.getViewClassGeneratorContextForPath(jsonDirectory));
+        directory.resolveViewMaps();
+
+        Map<Path, JsonFile> filesBefore = getFilesByRelativePath(directory);
+
+        // only the existence of a template matters, not its contents
+        Path template = write("module/list/ListModule.hbs", "{{title}}");
+
+        assertTrue(directory.update(Collections.singleton(template)));
+
+        for (Map.Entry<Path, JsonFile> entry : getFilesByRelativePath(directory).entrySet()) {
+            assertSame(filesBefore.get(entry.getKey()), entry.getValue());
+        }
+
+        // the files referencing a removed template are resolved again
+        Files.delete(template);
+
+        try {
+            directory.update(Collections.singleton(template));
+            fail("Expected the removed template to be reported!");
+
+        } catch (ViewClassGeneratorException e) {
+            JsonFile listModule = getFilesByRelativePath(directory).get(Paths.get("module/list/ListModule.json"));
+
+            assertTrue(listModule.getErrors().stream().anyMatch(error -> error.getMessage().contains("ListModule.hbs")));
+        }
+    }
+
+    private Path write(String relativePath, String content) throws Exception {
+        Path path = jsonDirectory.resolve(relativePath);
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+
+    private Map<Path, JsonFile> getFilesByRelativePath(JsonDirectory directory) {
+        return directory.getFiles().stream().collect(Collectors.toMap(JsonFile::getRelativePath, Function.identity()));
+    }
+
+    private Set<Object> getRawValues(Set<JsonViewMap> viewMaps) {
+        return viewMaps.stream()
+                .map(viewMap -> viewMap.getViewKey().getName() + "=" + viewMap.toRawValue())
+                .collect(Collectors.toSet());
+    }
+}
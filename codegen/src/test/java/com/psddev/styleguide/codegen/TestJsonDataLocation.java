@@ -0,0 +1,117 @@
+package com.psddev.styleguide.codegen;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestJsonDataLocation {
+
+    private JsonFile file;
+
+    @Before
+    public void before() {
+        JsonDirectory directory = TestUtils.getJsonDirectoryForClass(TestDataUrlSimple.class);
+        file = new JsonFile(directory, directory.getPath().resolve("Test.json"));
+    }
+
+    @Test
+    public void testPackedLocation() {
+
+        long code = JsonDataLocation.encode(file, 12, 34, 567);
+        assertTrue(code > 0);
+
+        JsonDataLocation location = new JsonDataLocation(file, code);
+        assertEquals(Long.valueOf(12), location.getLineNumber());
+        assertEquals(Long.valueOf(34), location.getColumnNumber());
+        assertEquals(Long.valueOf(567), location.getStreamOffset());
+    }
+
+    @Test
+    public void testUnknownLocation() {
+
+        JsonDataLocation location = new JsonDataLocation(file, JsonDataLocation.encode(file, 1, -1, -1));
+        assertEquals(Long.valueOf(1), location.getLineNumber());
+        assertNull(location.getColumnNumber());
+        assertNull(location.getStreamOffset());
+
+        location = new JsonDataLocation(file, JsonDataLocation.UNKNOWN);
+        assertNull(location.getLineNumber());
+    }
+
+    @Test
+    public void testOverflowLocation() {
+
+        long code = JsonDataLocation.encode(file, 1, 5000000, 5000000000L);
+        assertTrue(code < 0);
+
+        JsonDataLocation location = new JsonDataLocation(file, code);
+        assertEquals(Long.valueOf(1), location.getLineNumber());
+        assertEquals(Long.valueOf(5000000), location.getColumnNumber());
+        assertEquals(Long.valueOf(5000000000L), location.getStreamOffset());
+    }
+
+    @Test
+    public void testLongMinifiedLine() throws Exception {
+
+        int keyCount = 50000;
+
+        // every key after the padding is past the largest column that can be packed
+        StringBuilder json = new StringBuilder("{\"padding\":\"");
+        for (int i = 0; i < 1 << 20; ++i) {
+            json.append('x');
+        }
+        json.append('"');
+        for (int i = 0; i < keyCount; ++i) {
+            json.append(",\"key").append(i).append("\":").append(i);
+        }
+        json.append('}');
+
+        Path tempDirectory = Files.createTempDirectory(getClass().getSimpleName());
+
+        try {
+            Files.write(tempDirectory.resolve("Long.json"), json.toString().getBytes(StandardCharsets.UTF_8));
+
+            for (JsonParserBackend backend : new JsonParserBackend[] { JsonParserBackend.UTF8, JsonParserBackend.JAVAX }) {
+
+                ViewClassGeneratorContext context = TestUtils.getViewClassGeneratorContextForPath(tempDirectory);
+                context.setParserBackend(backend);
+
+                JsonFile longFile = new JsonDirectory(context).getFiles().iterator().next();
+                JsonMap map = (JsonMap) longFile.parse();
+
+                assertEquals(keyCount + 1, map.getValues().size());
+
+                JsonDataLocation location = map.getKey("key" + (keyCount - 1)).getLocation();
+                assertEquals(Long.valueOf(1), location.getLineNumber());
+                assertTrue(location.getColumnNumber() > 1 << 20);
+                assertTrue(location.getStreamOffset() > 1 << 20);
+            }
+
+        } finally {
+            FileUtils.deleteDirectory(tempDirectory.toFile());
+        }
+    }
+
+    @Test
+    public void testOrdering() {
+
+        JsonDataLocation first = new JsonDataLocation(file, JsonDataLocation.encode(file, 1, 10, 9));
+        JsonDataLocation second = new JsonDataLocation(file, JsonDataLocation.encode(file, 2, 1, 20));
+        JsonDataLocation overflow = new JsonDataLocation(file, JsonDataLocation.encode(file, 3, 1, 1L << 40));
+        JsonDataLocation unknown = new JsonDataLocation(file, JsonDataLocation.UNKNOWN);
+
+        assertTrue(first.compareTo(second) < 0);
+        assertTrue(second.compareTo(overflow) < 0);
+        assertTrue(overflow.compareTo(unknown) < 0);
+        assertEquals(first, new JsonDataLocation(file, JsonDataLocation.encode(file, 1, 10, 9)));
+        assertEquals(first.hashCode(), new JsonDataLocation(file, JsonDataLocation.encode(file, 1, 10, 9)).hashCode());
+    }
+}
@@ -0,0 +1,59 @@
+package com.psddev.styleguide.codegen;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestJsonDataUrlChain {
+
+    @Test
+    public void testAppend() throws Exception {
+
+        JsonDataUrlChain a = JsonDataUrlChain.EMPTY.append(Paths.get("a.json"));
+        JsonDataUrlChain ab = a.append(Paths.get("b/b.json"));
+        JsonDataUrlChain ac = a.append(Paths.get("c.json"));
+
+        // appending never changes the chain appended to
+        assertEquals(0, JsonDataUrlChain.EMPTY.size());
+        assertEquals("[]", JsonDataUrlChain.EMPTY.toString());
+        assertEquals("[a.json]", a.toString());
+        assertEquals("[a.json, b/b.json]", ab.toString());
+        assertEquals("[a.json, c.json]", ac.toString());
+
+        assertTrue(ab.contains(Paths.get("a.json")));
+        assertTrue(ab.contains(Paths.get("b/b.json")));
+        assertFalse(ab.contains(Paths.get("c.json")));
+        assertFalse(a.contains(Paths.get("b/b.json")));
+
+        assertTrue(ac.containsAny(Arrays.asList(Paths.get("x.json"), Paths.get("c.json"))));
+        assertFalse(ac.containsAny(Collections.singleton(Paths.get("x.json"))));
+        assertFalse(JsonDataUrlChain.EMPTY.containsAny(Collections.singleton(Paths.get("a.json"))));
+    }
+
+    @Test
+    public void testLongChain() throws Exception {
+
+        // enough paths to saturate the filter, so lookups must walk the chain
+        JsonDataUrlChain chain = JsonDataUrlChain.EMPTY;
+
+        for (int i = 0; i < 200; ++i) {
+            chain = chain.append(Paths.get("path" + i + ".json"));
+        }
+
+        assertEquals(200, chain.size());
+
+        for (int i = 0; i < 200; ++i) {
+            Path path = Paths.get("path" + i + ".json");
+            assertTrue(chain.contains(path));
+        }
+
+        assertFalse(chain.contains(Paths.get("path200.json")));
+    }
+}
@@ -0,0 +1,86 @@
+package com.psddev.styleguide.codegen;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TestJsonDirectoryIndex {
+
+    private Path tempDirectory;
+
+    private JsonDirectoryIndex index;
+
+    @Before
+    public void before() throws Exception {
+        tempDirectory = Files.createTempDirectory(getClass().getSimpleName()).toRealPath();
+
+        for (String path : new String[] {
+                "_config.json",
+                "Article.json",
+                "module/_config.json",
+                "module/_wrapper.json",
+                "module/nested/Nested.json",
+                "package/package.json",
+                "package/Package.json",
+                "excluded/_wrapper.json" }) {
+
+            Path file = tempDirectory.resolve(path);
+            Files.createDirectories(file.getParent());
+            Files.write(file, "{}".getBytes(StandardCharsets.UTF_8));
+        }
+
+        index = new JsonDirectoryIndex(JsonDirectoryOverlay.create(Collections.singleton(tempDirectory)));
+
+        new JsonDirectoryScanner(
+                tempDirectory,
+                ExcludedPathMatcher.compile(Collections.singleton("excluded")),
+                null,
+                index).scan(new ViewClassGeneratorContext());
+    }
+
+    @After
+    public void after() throws Exception {
+        FileUtils.deleteDirectory(tempDirectory.toFile());
+    }
+
+    @Test
+    public void testLookups() throws Exception {
+
+        assertEquals(Collections.singletonList(path("_config.json")), index.getConfigFiles(path("")));
+        assertEquals(Arrays.asList(path("module/_config.json"), path("_config.json")), index.getConfigFiles(path("module/nested")));
+
+        assertNull(index.getWrapperJsonFile(path("")));
+        assertEquals(path("module/_wrapper.json"), index.getWrapperJsonFile(path("module/nested")));
+
+        assertNull(index.getPackageJsonDirectory(path("module")));
+        assertEquals(path("package"), index.getPackageJsonDirectory(path("package")));
+    }
+
+    @Test
+    public void testWalkedDirectoriesAreNotChecked() throws Exception {
+
+        Files.write(tempDirectory.resolve("package/_wrapper.json"), "{}".getBytes(StandardCharsets.UTF_8));
+
+        assertNull(index.getWrapperJsonFile(path("package")));
+    }
+
+    @Test
+    public void testPrunedDirectoriesAreChecked() throws Exception {
+        assertEquals(path("excluded/_wrapper.json"), index.getWrapperJsonFile(path("excluded")));
+    }
+
+    private static Path path(String path) {
+        return Paths.get(path);
+    }
+}
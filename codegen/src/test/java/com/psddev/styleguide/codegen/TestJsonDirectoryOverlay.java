@@ -0,0 +1,115 @@
+package com.psddev.styleguide.codegen;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class TestJsonDirectoryOverlay {
+
+    private Path tempDirectory;
+
+    private Path baseDirectory;
+
+    private Path projectDirectory;
+
+    @Before
+    public void before() throws Exception {
+        tempDirectory = Files.createTempDirectory(getClass().getSimpleName()).toRealPath();
+        baseDirectory = tempDirectory.resolve("base/styleguide");
+        projectDirectory = tempDirectory.resolve("project/styleguide");
+
+        write("base/styleguide/Article.json", "base");
+        write("base/styleguide/Shared.json", "base");
+        write("base/src/main/webapp/Article.hbs", "base");
+        write("base/src/main/webapp/Ignored.json", "base");
+        write("project/styleguide/Shared.json", "project");
+        write("project/styleguide/module/Module.json", "project");
+        write("project/src/main/resources/module/Module.hbs", "project");
+    }
+
+    @After
+    public void after() throws Exception {
+        FileUtils.deleteDirectory(tempDirectory.toFile());
+    }
+
+    @Test
+    public void testSingleDirectory() throws Exception {
+
+        JsonDirectoryOverlay overlay = JsonDirectoryOverlay.create(Collections.singleton(projectDirectory));
+
+        assertEquals(Collections.singletonList(projectDirectory), overlay.getJsonDirectories());
+        assertEquals(projectDirectory, overlay.getRoot());
+        assertEquals(projectDirectory.resolve("Missing.json"), overlay.resolve(Paths.get("Missing.json")));
+    }
+
+    @Test
+    public void testResolve() throws Exception {
+
+        JsonDirectoryOverlay overlay = JsonDirectoryOverlay.create(Arrays.asList(baseDirectory, projectDirectory));
+
+        assertEquals(baseDirectory, overlay.getRoot());
+        assertEquals(Arrays.asList(baseDirectory, projectDirectory), overlay.getJsonDirectories());
+
+        // later directories shadow earlier ones
+        assertEquals(projectDirectory.resolve("Shared.json"), overlay.resolve(Paths.get("Shared.json")));
+        assertEquals(baseDirectory.resolve("Article.json"), overlay.resolve(Paths.get("Article.json")));
+        assertEquals(projectDirectory.resolve("module/Module.json"), overlay.resolve(Paths.get("module/Module.json")));
+
+        // only templates are visible from the template directories
+        assertEquals(tempDirectory.resolve("base/src/main/webapp/Article.hbs"), overlay.resolve(Paths.get("Article.hbs")));
+        assertEquals(tempDirectory.resolve("project/src/main/resources/module/Module.hbs"), overlay.resolve(Paths.get("module/Module.hbs")));
+        assertFalse(overlay.exists(Paths.get("Ignored.json")));
+
+        assertEquals(Paths.get("module/Module.json"), overlay.relativize(projectDirectory.resolve("module/Module.json")));
+        assertNull(overlay.relativize(tempDirectory.resolve("base/src/main/webapp/Article.hbs")));
+    }
+
+    @Test
+    public void testJsonDirectoryFiles() throws Exception {
+
+        ViewClassGeneratorContext context = new ViewClassGeneratorContext();
+        context.setJsonDirectories(new LinkedHashSet<>(Arrays.asList(baseDirectory, projectDirectory)));
+
+        JsonDirectory directory = new JsonDirectory(context);
+
+        Set<Path> paths = directory.getFiles().stream()
+                .map(JsonFile::getRelativePath)
+                .collect(Collectors.toSet());
+
+        assertEquals(new HashSet<>(Arrays.asList(
+                Paths.get("Article.json"),
+                Paths.get("Shared.json"),
+                Paths.get("module/Module.json"))), paths);
+
+        for (JsonFile file : directory.getFiles()) {
+            if (file.getRelativePath().equals(Paths.get("Shared.json"))) {
+                assertEquals(projectDirectory.resolve("Shared.json"), file.getRealPath());
+            }
+        }
+
+        // nothing is copied
+        assertFalse(Files.exists(baseDirectory.resolve("module")));
+    }
+
+    private void write(String path, String content) throws Exception {
+        Path file = tempDirectory.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
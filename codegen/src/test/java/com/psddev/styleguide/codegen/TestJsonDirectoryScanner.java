@@ -0,0 +1,140 @@
+package com.psddev.styleguide.codegen;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestJsonDirectoryScanner {
+
+    private Path tempDirectory;
+
+    @Before
+    public void before() throws Exception {
+        tempDirectory = Files.createTempDirectory(getClass().getSimpleName()).toRealPath();
+
+        for (String path : new String[] {
+                "Article.json",
+                "_config.json",
+                "package.json",
+                "notes.txt",
+                "module/Module.json",
+                "excluded/Excluded.json",
+                "module/excluded/Excluded.json",
+                "bower_components/lib/Bower.json",
+                "node_modules/lib/Lib.json",
+                "node_modules/lib/node_modules/project/Nested.json",
+                "node_modules/project/Project.json",
+                "node_modules/project/module/ProjectModule.json",
+                "node_modules/project/node_modules/dependency/Dependency.json",
+                "node_modules/@scope/project/Scoped.json",
+                "node_modules/@scope/other/Other.json" }) {
+
+            Path file = tempDirectory.resolve(path);
+            Files.createDirectories(file.getParent());
+            Files.write(file, "{}".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @After
+    public void after() throws Exception {
+        FileUtils.deleteDirectory(tempDirectory.toFile());
+    }
+
+    @Test
+    public void testWithoutProject() throws Exception {
+        assertScan((String) null,
+                "Article.json",
+                "module/Module.json");
+    }
+
+    @Test
+    public void testProject() throws Exception {
+        assertScan("/node_modules/project/",
+                "Article.json",
+                "module/Module.json",
+                "node_modules/project/Project.json",
+                "node_modules/project/module/ProjectModule.json",
+                "node_modules/project/node_modules/dependency/Dependency.json");
+    }
+
+    @Test
+    public void testScopedProject() throws Exception {
+        assertScan("/node_modules/@scope/project/",
+                "Article.json",
+                "module/Module.json",
+                "node_modules/@scope/project/Scoped.json");
+    }
+
+    @Test
+    public void testPatterns() throws Exception {
+        assertScan(Arrays.asList("/module/", "*ticle.json", "lib/**"), "/node_modules/project/",
+                "excluded/Excluded.json",
+                "node_modules/project/Project.json",
+                "node_modules/project/module/ProjectModule.json",
+                "node_modules/project/node_modules/dependency/Dependency.json");
+    }
+
+    @Test
+    public void testJsonDirectoryFiles() throws Exception {
+
+        Files.write(tempDirectory.resolve(JsonDirectory.NAME_FILE_NAME), "project\n".getBytes(StandardCharsets.UTF_8));
+
+        ViewClassGeneratorContext context = new ViewClassGeneratorContext();
+        context.setJsonDirectories(Collections.singleton(tempDirectory));
+        context.setExcludedPaths(Collections.singleton("excluded"));
+
+        Set<Path> paths = new JsonDirectory(context).getFiles().stream()
+                .map(JsonFile::getRelativePath)
+                .collect(Collectors.toSet());
+
+        assertEquals(toPaths(
+                "Article.json",
+                "module/Module.json",
+                "node_modules/project/Project.json",
+                "node_modules/project/module/ProjectModule.json",
+                "node_modules/project/node_modules/dependency/Dependency.json"), paths);
+    }
+
+    private void assertScan(String projectPath, String... expected) {
+        assertScan(Collections.singleton("excluded"), projectPath, expected);
+    }
+
+    private void assertScan(Collection<String> excludedPaths, String projectPath, String... expected) {
+
+        Set<String> patterns = new LinkedHashSet<>(excludedPaths);
+        patterns.add(JsonDirectory.CONFIG_FILE_NAME);
+        patterns.add(JsonDirectory.PACKAGE_JSON_FILE_NAME);
+        patterns.add(JsonDirectory.BOWER_COMPONENTS_DIRECTORY_NAME);
+
+        JsonDirectoryScanner scanner = new JsonDirectoryScanner(tempDirectory, ExcludedPathMatcher.compile(patterns), projectPath);
+
+        ViewClassGeneratorContext serialContext = new ViewClassGeneratorContext();
+
+        ViewClassGeneratorContext parallelContext = new ViewClassGeneratorContext();
+        parallelContext.setParallelism(4);
+
+        assertEquals(toPaths(expected), relativize(scanner.scan(serialContext)));
+        assertEquals(toPaths(expected), relativize(scanner.scan(parallelContext)));
+    }
+
+    private Set<Path> relativize(Set<Path> paths) {
+        return paths.stream().map(tempDirectory::relativize).collect(Collectors.toSet());
+    }
+
+    private Set<Path> toPaths(String... paths) {
+        return Arrays.stream(paths).map(tempDirectory.getFileSystem()::getPath).collect(Collectors.toSet());
+    }
+}
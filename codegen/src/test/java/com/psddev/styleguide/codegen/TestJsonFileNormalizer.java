@@ -0,0 +1,125 @@
+package com.psddev.styleguide.codegen;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestJsonFileNormalizer {
+
+    @Test
+    public void testSharedSubtrees() throws Exception {
+
+        JsonDirectory directory = TestUtils.getJsonDirectoryForClass(TestDataUrlSimple.class);
+
+        JsonFile file = directory.getFiles().stream()
+                .filter(jsonFile -> jsonFile.getRelativePath().toString().equals("Main.json"))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+
+        JsonMap parsed = (JsonMap) file.parse();
+        JsonMap normalized = (JsonMap) new JsonFileNormalizer(file).normalize();
+
+        // maps containing paths that change are copied
+        assertNotSame(parsed, normalized);
+        assertNotSame(parsed.getValue("direct"), normalized.getValue("direct"));
+        assertEquals("/Main.hbs", normalized.getRawValue(JsonSpecialKey.TEMPLATE_KEY));
+        assertEquals("/data/Data.json", normalized.getValueAs(JsonMap.class, "direct").getRawValue(JsonSpecialKey.DATA_URL_KEY));
+
+        // maps with nothing to change are shared
+        assertSame(parsed.getValue("directoryRelative"), normalized.getValue("directoryRelative"));
+
+        // and the parsed value is left untouched
+        assertEquals("Main.hbs", parsed.getRawValue(JsonSpecialKey.TEMPLATE_KEY));
+        assertEquals("data/Data.json", parsed.getValueAs(JsonMap.class, "direct").getRawValue(JsonSpecialKey.DATA_URL_KEY));
+
+        // keys keep their original order
+        assertEquals(parsed.getValues().keySet().toString(), normalized.getValues().keySet().toString());
+    }
+
+    @Test
+    public void testFusedNormalization() throws Exception {
+
+        for (Class<?> testClass : new Class<?>[] { TestDataUrlSimple.class, TestDataUrlComplex.class, TestDataUrlOutsideBaseDirectory.class }) {
+
+            Map<String, String> expected = describeFiles(TestUtils.getViewClassGeneratorContextForClass(testClass));
+
+            ViewClassGeneratorContext fusedContext = TestUtils.getViewClassGeneratorContextForClass(testClass);
+            fusedContext.setFusedNormalization(true);
+
+            assertEquals(expected, describeFiles(fusedContext));
+        }
+    }
+
+    @Test
+    public void testFusedNormalizationWithParseCache() throws Exception {
+
+        Path cacheDirectory = Files.createTempDirectory(getClass().getSimpleName());
+
+        try {
+            Map<String, String> expected = describeFiles(TestUtils.getViewClassGeneratorContextForClass(TestDataUrlComplex.class));
+
+            // the first run parses and caches the files, the second reads them from the cache
+            for (int i = 0; i < 2; ++i) {
+
+                ViewClassGeneratorContext fusedContext = TestUtils.getViewClassGeneratorContextForClass(TestDataUrlComplex.class);
+                fusedContext.setFusedNormalization(true);
+                fusedContext.setParseCacheDirectory(cacheDirectory);
+
+                assertEquals(expected, describeFiles(fusedContext));
+            }
+
+        } finally {
+            FileUtils.deleteDirectory(cacheDirectory.toFile());
+        }
+    }
+
+    @Test
+    public void testSpecialKeys() throws Exception {
+
+        JsonDirectory directory = TestUtils.getJsonDirectoryForClass(TestDataUrlSimple.class);
+
+        JsonFile file = directory.getFiles().stream()
+                .filter(jsonFile -> jsonFile.getRelativePath().toString().equals("Main.json"))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+
+        assertTrue(file.getSpecialKeys().isEmpty());
+
+        file.normalize();
+
+        assertEquals(EnumSet.of(JsonSpecialKey.TEMPLATE_KEY, JsonSpecialKey.DATA_URL_KEY), file.getSpecialKeys());
+        assertFalse(file.getSpecialKeys().contains(JsonSpecialKey.WRAPPER_KEY));
+    }
+
+    /*
+     * Normalizes every file, describing the normalized values, errors, and
+     * special keys of each.
+     */
+    private static Map<String, String> describeFiles(ViewClassGeneratorContext context) {
+
+        Map<String, String> descriptions = new TreeMap<>();
+
+        for (JsonFile file : new JsonDirectory(context).getFiles()) {
+
+            JsonValue normalized = file.normalize();
+
+            descriptions.put(file.getRelativePath().toString(), TestUtils.describeValue(normalized)
+                    + " " + file.getErrors().stream().map(JsonFileError::getMessage).collect(Collectors.toList())
+                    + " " + file.getSpecialKeys());
+        }
+
+        return descriptions;
+    }
+}
@@ -0,0 +1,110 @@
+package com.psddev.styleguide.codegen;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestJsonFileParseCache {
+
+    private Path tempDirectory;
+    private Path jsonDirectory;
+    private Path cacheDirectory;
+
+    @Before
+    public void before() throws Exception {
+        tempDirectory = Files.createTempDirectory(getClass().getSimpleName());
+        jsonDirectory = tempDirectory.resolve("styleguide");
+        cacheDirectory = tempDirectory.resolve("cache");
+
+        // work on a copy so the files can be modified
+        FileUtils.copyDirectory(TestUtils.getJsonDirectoryPathForClass(TestDataUrlOverrides.class).toFile(), jsonDirectory.toFile());
+    }
+
+    @After
+    public void after() throws Exception {
+        FileUtils.deleteDirectory(tempDirectory.toFile());
+    }
+
+    @Test
+    public void testParseCache() throws Exception {
+
+        ViewClassGenerator uncachedGenerator = createGenerator(null);
+        Map<Path, String> uncachedClasses = uncachedGenerator.getGeneratedClasses();
+
+        // first run populates the cache
+        ViewClassGenerator coldGenerator = createGenerator(cacheDirectory);
+        Map<Path, String> coldClasses = coldGenerator.getGeneratedClasses();
+
+        JsonFileParseCache coldCache = coldGenerator.getContext().getParseCache();
+        assertEquals(0, coldCache.getHitCount());
+        assertEquals(5, coldCache.getMissCount());
+
+        // second run is served entirely from the cache
+        ViewClassGenerator warmGenerator = createGenerator(cacheDirectory);
+        Map<Path, String> warmClasses = warmGenerator.getGeneratedClasses();
+
+        JsonFileParseCache warmCache = warmGenerator.getContext().getParseCache();
+        assertEquals(5, warmCache.getHitCount());
+        assertEquals(0, warmCache.getMissCount());
+
+        assertEquals(uncachedClasses, coldClasses);
+        assertEquals(uncachedClasses, warmClasses);
+    }
+
+    @Test
+    public void testParseCacheInvalidation() throws Exception {
+
+        createGenerator(cacheDirectory).getGeneratedClasses();
+
+        Path override1 = jsonDirectory.resolve("override1.json");
+        Files.write(override1, "{\n    \"_template\": \"templates/parent\",\n    \"child\": {\n        \"_dataUrl\": \"/data.json\",\n        \"foo6\": \"bar6\"\n    }\n}\n".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(override1, FileTime.fromMillis(Files.getLastModifiedTime(override1).toMillis() + 10000));
+
+        ViewClassGenerator generator = createGenerator(cacheDirectory);
+        Map<Path, String> classes = generator.getGeneratedClasses();
+
+        // only the modified file is parsed again
+        JsonFileParseCache cache = generator.getContext().getParseCache();
+        assertEquals(4, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        assertEquals(createGenerator(null).getGeneratedClasses(), classes);
+        assertTrue(classes.values().stream().anyMatch(source -> source.contains("getFoo6")));
+    }
+
+    @Test
+    public void testParseCacheLocations() throws Exception {
+
+        ViewClassGeneratorContext context = createContext(cacheDirectory);
+        Path path = jsonDirectory.resolve("default.json");
+
+        JsonValue parsed = new JsonFile(new JsonDirectory(context), path).parse();
+        JsonValue cached = new JsonFile(new JsonDirectory(context), path).parse();
+
+        assertEquals(1, context.getParseCache().getHitCount());
+
+        TestUtils.assertSameValue(parsed, cached);
+    }
+
+    private ViewClassGeneratorContext createContext(Path cacheDirectory) {
+
+        ViewClassGeneratorContext context = TestUtils.getViewClassGeneratorContextForPath(jsonDirectory);
+        context.setParseCacheDirectory(cacheDirectory);
+
+        return context;
+    }
+
+    private ViewClassGenerator createGenerator(Path cacheDirectory) {
+        return TestUtils.getDefaultGenerator(createContext(cacheDirectory));
+    }
+}
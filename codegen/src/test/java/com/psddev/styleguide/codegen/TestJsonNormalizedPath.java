@@ -0,0 +1,44 @@
+package com.psddev.styleguide.codegen;
+
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestJsonNormalizedPath {
+
+    @Test
+    public void testNormalizedPaths() throws Exception {
+
+        JsonDirectory directory = TestUtils.getJsonDirectoryForClass(TestDataUrlSimple.class);
+
+        JsonFile main = new JsonFile(directory, directory.getPath().resolve("Main.json"));
+        JsonFile data = new JsonFile(directory, directory.getPath().resolve("data/Data.json"));
+
+        JsonNormalizedPath relative = directory.getNormalizedPath(main, "./data/Data.json", false);
+        assertEquals(Paths.get("data/Data.json"), relative.getPath());
+        assertEquals("/data/Data.json", relative.getAbsolutePath());
+        assertFalse(relative.isExternal());
+
+        // the same raw path from the same directory is only normalized once
+        assertSame(relative, directory.getNormalizedPath(main, "./data/Data.json", false));
+
+        // but relative paths from other directories are distinct
+        JsonNormalizedPath fromData = directory.getNormalizedPath(data, "./data/Data.json", false);
+        assertNotSame(relative, fromData);
+        assertEquals(Paths.get("data/data/Data.json"), fromData.getPath());
+
+        // while absolute paths are shared by every directory
+        assertSame(directory.getNormalizedPath(main, "/Main.hbs", false), directory.getNormalizedPath(data, "/Main.hbs", false));
+        assertEquals(Paths.get("Main.hbs"), directory.getNormalizedPath(data, "../Main.hbs", false).getPath());
+
+        JsonNormalizedPath external = directory.getNormalizedPath(main, "../Main.hbs", false);
+        assertTrue(external.isExternal());
+        assertEquals(external.getPath(), directory.getNormalizedPath(main, Paths.get("../Main.hbs"), false));
+    }
+}
@@ -0,0 +1,152 @@
+package com.psddev.styleguide.codegen;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestJsonParserBackend {
+
+    private JsonFile file;
+
+    @Before
+    public void before() {
+        JsonDirectory directory = TestUtils.getJsonDirectoryForClass(TestDataUrlSimple.class);
+        file = new JsonFile(directory, directory.getPath().resolve("Test.json"));
+    }
+
+    @Test
+    public void testUtf8Locations() throws Exception {
+
+        JsonMap root = (JsonMap) parse(JsonParserBackend.UTF8, "{\n  \"a\": 1,\r\n  \"b\": [\"é\", true]\n}");
+
+        assertLocation(1, 2, 1, root.getLocation());
+
+        Map.Entry<JsonKey, JsonValue> a = root.getValues().entrySet().iterator().next();
+        assertLocation(2, 6, 7, a.getKey().getLocation());
+        assertLocation(2, 9, 10, a.getValue().getLocation());
+        assertEquals(1L, a.getValue().toRawValue());
+
+        JsonList b = (JsonList) root.getValue("b");
+        assertLocation(3, 6, 18, root.getKey("b").getLocation());
+        assertLocation(3, 9, 21, b.getLocation());
+        assertLocation(3, 12, 24, b.getValues().get(0).getLocation());
+        assertLocation(3, 18, 30, b.getValues().get(1).getLocation());
+        assertEquals("é", b.getValues().get(0).toRawValue());
+    }
+
+    @Test
+    public void testUtf8Values() throws Exception {
+
+        JsonList list = (JsonList) parse(JsonParserBackend.UTF8,
+                "[\"a\\\"b\\\\c\\/d\\u00e9\\n\", -0, 123456789012345678901, 1.5, 1.0e1, -2E-2, false, null, {}, []]");
+
+        assertEquals("a\"b\\c/dé\n", list.getValues().get(0).toRawValue());
+        assertEquals(0L, list.getValues().get(1).toRawValue());
+        assertEquals(new java.math.BigDecimal("123456789012345678901").longValue(), list.getValues().get(2).toRawValue());
+        assertEquals(1.5, list.getValues().get(3).toRawValue());
+        assertEquals(10L, list.getValues().get(4).toRawValue());
+        assertEquals(-0.02, list.getValues().get(5).toRawValue());
+        assertEquals(false, list.getValues().get(6).toRawValue());
+        assertEquals(null, list.getValues().get(7).toRawValue());
+        assertTrue(list.getValues().get(8) instanceof JsonMap);
+        assertTrue(list.getValues().get(9) instanceof JsonList);
+    }
+
+    @Test
+    public void testUtf8Errors() throws Exception {
+        for (String json : new String[] {
+                "",
+                "\"root\"",
+                "{\"a\" 1}",
+                "{\"a\": 1,}",
+                "[1 2]",
+                "[01]",
+                "[1.]",
+                "[tru]",
+                "[\"unterminated",
+                "[\"bad \\x escape\"]",
+                "[\"control \u0001 char\"]",
+                "{\"a\": }" }) {
+
+            try {
+                parse(JsonParserBackend.UTF8, json);
+                fail("Expected a parse error for: " + json);
+
+            } catch (JsonParserBackendException e) {
+                assertNotNull(e.getLocation());
+            }
+        }
+    }
+
+    @Test
+    public void testSameValuesAsJavax() throws Exception {
+
+        try (Stream<Path> paths = Files.walk(TestUtils.getTestResourcesPath())) {
+
+            for (Path path : (Iterable<Path>) paths.filter(path -> path.toString().endsWith(".json"))::iterator) {
+
+                byte[] bytes = Files.readAllBytes(path);
+
+                Object expected = parseAndDescribe(JsonParserBackend.JAVAX, bytes);
+                Object actual = parseAndDescribe(JsonParserBackend.UTF8, bytes);
+
+                assertEquals(path.toString(), expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testSameLocationsAsJavax() throws Exception {
+
+        for (String json : new String[] {
+                // CRLF line endings, including blank lines and trailing ones
+                "{\r\n  \"a\": 1,\r\n\r\n  \"b\": [true, null]\r\n}\r\n",
+                // mixed line endings
+                "[\n1,\r\n2,\r3\n]",
+                // non-BMP characters, which take two chars and four bytes
+                "{\"\uD83D\uDE00\": \"\uD83D\uDE00 smile\", \"after\": [\"\uD834\uDD1E\", 1.5]}",
+                // multi-byte BMP characters
+                "{\"caf\u00e9\": \"na\u00efve \u65e5\u672c\", \"x\": false}",
+                // escapes, including escaped surrogate pairs
+                "{\"a\\\"b\": \"\\u00e9\\n\\t\\\\\\/\", \"c\": \"\\uD83D\\uDE00\", \"d\": -0.5e-3}",
+                // tabs and other whitespace
+                "\t{\t\"a\"\t:\t[ {} ,\t[] ]\t}" }) {
+
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+
+            assertEquals(json, parseAndDescribe(JsonParserBackend.JAVAX, bytes), parseAndDescribe(JsonParserBackend.UTF8, bytes));
+        }
+    }
+
+    private JsonValue parse(JsonParserBackend backend, String json) throws IOException {
+        return backend.parse(file, new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // returns a description of the value, or the exception class if the file is invalid
+    private Object parseAndDescribe(JsonParserBackend backend, byte[] bytes) throws IOException {
+        try {
+            return TestUtils.describeValue(backend.parse(file, new ByteArrayInputStream(bytes)));
+
+        } catch (JsonParserBackendException e) {
+            return JsonParserBackendException.class;
+        }
+    }
+
+    private static void assertLocation(long line, long column, long offset, JsonDataLocation location) {
+        assertEquals(Long.valueOf(line), location.getLineNumber());
+        assertEquals(Long.valueOf(column), location.getColumnNumber());
+        assertEquals(Long.valueOf(offset), location.getStreamOffset());
+    }
+}
@@ -0,0 +1,87 @@
+package com.psddev.styleguide.codegen;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestJsonSpecialKeyMask {
+
+    @Test
+    public void testForAlias() throws Exception {
+
+        assertEquals(JsonSpecialKey.DATA_URL_KEY, JsonSpecialKey.forAlias("_include"));
+        assertEquals(JsonSpecialKey.DATA_URL_KEY, JsonSpecialKey.forAlias("_dataUrl"));
+        assertNull(JsonSpecialKey.forAlias("dataUrl"));
+        assertNull(JsonSpecialKey.forAlias("_%sNotes"));
+        assertEquals(0, JsonSpecialKey.FIELD_NOTES_KEY_PATTERN.getMask());
+    }
+
+    @Test
+    public void testParsedMasks() throws Exception {
+
+        JsonDirectory directory = TestUtils.getJsonDirectoryForClass(TestDataUrlSimple.class);
+
+        JsonFile file = directory.getFiles().stream()
+                .filter(jsonFile -> jsonFile.getRelativePath().toString().equals("Main.json"))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+
+        JsonMap main = (JsonMap) new JsonFileParser(file).parse();
+
+        assertEquals(JsonSpecialKey.TEMPLATE_KEY.getMask() | JsonSpecialKey.DATA_URL_KEY.getMask(), main.getSpecialKeyMask());
+        assertEquals(JsonSpecialKey.TEMPLATE_KEY.getMask(), main.getValue("templateTest").getSpecialKeyMask());
+
+        assertTrue(main.containsKeyAnywhere(JsonSpecialKey.DATA_URL_KEY));
+        assertTrue(main.containsKeyAnywhere("_dataUrl"));
+        assertFalse(main.containsKeyAnywhere("_include"));
+        assertFalse(main.containsKeyAnywhere(JsonSpecialKey.WRAPPER_KEY));
+
+        // the tape keeps the same masks
+        JsonMap tape = (JsonMap) JsonTape.copyOf(file, main);
+
+        assertEquals(main.getSpecialKeyMask(), tape.getSpecialKeyMask());
+        assertEquals(main.getValue("direct").getSpecialKeyMask(), tape.getValue("direct").getSpecialKeyMask());
+        assertFalse(tape.containsKeyAnywhere("_include"));
+    }
+
+    @Test
+    public void testBuiltMasks() throws Exception {
+
+        JsonMap dataUrlMap = createMap("_dataUrl", new JsonString(null, "Data.json"));
+        JsonList list = new JsonList(null, Arrays.asList(new JsonString(null, "value"), dataUrlMap));
+        JsonMap map = createMap("list", list);
+
+        assertEquals(JsonSpecialKey.DATA_URL_KEY.getMask(), list.getSpecialKeyMask());
+        assertEquals(JsonSpecialKey.DATA_URL_KEY.getMask(), map.getSpecialKeyMask());
+        assertFalse(map.containsDelegateMap());
+
+        // merging the values of maps into a new one keeps their summaries
+        Map<JsonKey, JsonValue> merged = new LinkedHashMap<>(map.getValues());
+        merged.put(new JsonKey("_template", null), new JsonString(null, "Foo.hbs"));
+        JsonMap mergedMap = new JsonMap(null, merged);
+
+        assertEquals(JsonSpecialKey.DATA_URL_KEY.getMask() | JsonSpecialKey.TEMPLATE_KEY.getMask(), mergedMap.getSpecialKeyMask());
+
+        // delegate maps are summarized as well
+        JsonDelegateMap delegateMap = new JsonDelegateMap(null, Collections.emptyMap(), null);
+        JsonMap parent = createMap("items", new JsonList(null, Collections.singletonList(delegateMap)));
+
+        assertTrue(delegateMap.containsDelegateMap());
+        assertTrue(parent.containsDelegateMap());
+        assertEquals(0, parent.getSpecialKeyMask());
+    }
+
+    private static JsonMap createMap(String name, JsonValue value) {
+        Map<JsonKey, JsonValue> values = new LinkedHashMap<>();
+        values.put(new JsonKey(name, null), value);
+        return new JsonMap(null, values);
+    }
+}
@@ -0,0 +1,61 @@
+package com.psddev.styleguide.codegen;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class TestJsonStringPool {
+
+    @Test
+    public void testIntern() {
+
+        JsonStringPool pool = new JsonStringPool();
+
+        String title = pool.intern(new String("title"));
+        assertSame(title, pool.intern(new String("title")));
+
+        String shortValue = pool.internValue(new String("Lorem ipsum"));
+        assertSame(shortValue, pool.internValue(new String("Lorem ipsum")));
+
+        StringBuilder longValue = new StringBuilder();
+        while (longValue.length() <= JsonStringPool.MAX_VALUE_LENGTH) {
+            longValue.append("Lorem ipsum ");
+        }
+        assertNotSame(pool.internValue(longValue.toString()), pool.internValue(longValue.toString()));
+
+        assertEquals(2, pool.size());
+    }
+
+    @Test
+    public void testSharedKeysAndPaths() {
+
+        JsonDirectory directory = TestUtils.getJsonDirectoryForClass(TestDataUrlSimple.class);
+
+        JsonFile file = directory.getFiles().stream()
+                .filter(jsonFile -> jsonFile.getRelativePath().toString().equals("Main.json"))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+
+        JsonMap main = (JsonMap) file.normalize();
+
+        List<JsonMap> maps = main.getValues().values().stream()
+                .filter(JsonMap.class::isInstance)
+                .map(JsonMap.class::cast)
+                .collect(Collectors.toList());
+
+        JsonKey direct = maps.get(0).getValues().keySet().iterator().next();
+        JsonKey directoryRelative = maps.get(2).getValues().keySet().iterator().next();
+        assertEquals("_dataUrl", direct.getName());
+        assertSame(direct.getName(), directoryRelative.getName());
+
+        JsonString template = (JsonString) main.getValue(JsonSpecialKey.TEMPLATE_KEY);
+        JsonString nestedTemplate = (JsonString) maps.get(maps.size() - 1).getValue(JsonSpecialKey.TEMPLATE_KEY);
+        assertEquals("/Main.hbs", template.toRawValue());
+        assertSame(template.toRawValue(), nestedTemplate.toRawValue());
+    }
+}
@@ -0,0 +1,90 @@
+package com.psddev.styleguide.codegen;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestJsonTape {
+
+    @Test
+    public void testSameValues() throws Exception {
+
+        JsonDirectory directory = TestUtils.getJsonDirectoryForClass(TestDataUrlComplex.class);
+
+        for (JsonFile file : directory.getFiles()) {
+
+            JsonValue parsed = new JsonFileParser(file).parse();
+            JsonValue tape = JsonTape.copyOf(file, parsed);
+
+            TestUtils.assertSameValue(parsed, tape);
+        }
+    }
+
+    @Test
+    public void testLookups() throws Exception {
+
+        JsonDirectory directory = TestUtils.getJsonDirectoryForClass(TestDataUrlSimple.class);
+
+        JsonFile file = directory.getFiles().stream()
+                .filter(jsonFile -> jsonFile.getRelativePath().toString().equals("Main.json"))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+
+        JsonMap main = (JsonMap) JsonTape.copyOf(file, new JsonFileParser(file).parse());
+
+        assertTrue(main.containsKey(JsonSpecialKey.TEMPLATE_KEY));
+        assertEquals("Main.hbs", main.getRawValue(JsonSpecialKey.TEMPLATE_KEY));
+        assertFalse(main.containsKey(JsonSpecialKey.DATA_URL_KEY));
+        assertTrue(main.containsKeyAnywhere(JsonSpecialKey.DATA_URL_KEY));
+        assertFalse(main.containsKeyAnywhere("missing"));
+        assertNull(main.getValue("missing"));
+
+        JsonMap direct = main.getValueAs(JsonMap.class, "direct");
+        assertEquals("data/Data.json", direct.getRawValue(JsonSpecialKey.DATA_URL_KEY));
+        assertEquals(main.getKey("direct").getLocation(), main.getKey("direct").getLocation());
+
+        // the entries are only materialized once per view
+        assertSame(main.getValues(), main.getValues());
+        assertSame(main.getValues().get(main.getKey("direct")), main.getValue("direct"));
+
+        try {
+            direct.getValues().clear();
+            fail("Tape values must be immutable");
+
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testCompactGeneration() throws Exception {
+
+        ViewClassGeneratorContext context = TestUtils.getViewClassGeneratorContextForClass(TestDataUrlComplex.class);
+        List<ViewClassDefinition> expected = ViewClassDefinition.createDefinitions(context, new JsonDirectory(context).resolveViewMaps());
+
+        ViewClassGeneratorContext compactContext = TestUtils.getViewClassGeneratorContextForClass(TestDataUrlComplex.class);
+        compactContext.setCompactJsonTrees(true);
+        List<ViewClassDefinition> actual = ViewClassDefinition.createDefinitions(compactContext, new JsonDirectory(compactContext).resolveViewMaps());
+
+        assertEquals(expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); ++i) {
+            assertEquals(expected.get(i).getFullyQualifiedClassName(), actual.get(i).getFullyQualifiedClassName());
+            assertEquals(getFieldNames(expected.get(i)), getFieldNames(actual.get(i)));
+        }
+    }
+
+    private static List<String> getFieldNames(ViewClassDefinition definition) {
+        return definition.getFieldDefinitions().stream()
+                .map(ViewClassFieldDefinition::getFieldName)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,114 @@
+package com.psddev.styleguide.codegen;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestParallelProcessing {
+
+    @Test
+    public void testParallelProcessing() throws Exception {
+
+        for (Class<?> klass : new Class<?>[] {
+                TestArrayJsonFile.class,
+                TestDataUrlListReference.class,
+                TestDataUrlOverrides.class,
+                TestMultipleDataUrls.class,
+                TestPackageJsonExistence.class,
+                TestRepeatDataUrl.class,
+                TestStrictTypes.class,
+                TestWrapperJsonDelegate.class }) {
+
+            ViewClassGenerator serialGenerator = TestUtils.getDefaultGeneratorForClass(klass);
+
+            ViewClassGenerator parallelGenerator = TestUtils.getDefaultGeneratorForClass(klass);
+            parallelGenerator.getContext().setParallelism(4);
+
+            Map<Path, String> serialClasses = serialGenerator.getGeneratedClasses();
+            Map<Path, String> parallelClasses = parallelGenerator.getGeneratedClasses();
+
+            // verify the parallel output is exactly the same as the serial output
+            Assert.assertEquals(serialClasses, parallelClasses);
+        }
+    }
+
+    @Test
+    public void testParallelWriting() throws Exception {
+
+        Path tempDirectory = Files.createTempDirectory(getClass().getSimpleName());
+
+        try {
+            ViewClassGeneratorContext context = TestUtils.getViewClassGeneratorContextForClass(TestWrapperJsonDelegate.class);
+            context.setJavaSourceDirectory(tempDirectory);
+            context.setParallelism(4);
+
+            ViewClassGenerator generator = new ViewClassGenerator(context);
+            generator.disableLogColors();
+
+            Map<Path, String> classes = generator.getGeneratedClasses();
+            List<Path> written = generator.generateClasses();
+
+            // verify every file is written, and reported in sorted order
+            Assert.assertEquals(new ArrayList<>(classes.keySet()), written);
+
+            for (Map.Entry<Path, String> entry : classes.entrySet()) {
+                Assert.assertEquals(entry.getValue(), new String(Files.readAllBytes(entry.getKey()), StandardCharsets.UTF_8));
+            }
+
+        } finally {
+            FileUtils.deleteDirectory(tempDirectory.toFile());
+        }
+    }
+
+    @Test
+    public void testParallelismPool() throws Exception {
+
+        ViewClassGeneratorContext context = new ViewClassGeneratorContext();
+
+        context.setParallelism(4);
+        ForkJoinPool pool = context.getForkJoinPool();
+
+        // the same parallelism reuses the pool
+        context.setParallelism(4);
+        Assert.assertSame(pool, context.getForkJoinPool());
+
+        // a different one replaces it and shuts down the old one
+        context.setParallelism(2);
+        Assert.assertTrue(pool.isShutdown());
+        Assert.assertEquals(2, context.getForkJoinPool().getParallelism());
+
+        ForkJoinPool replacement = context.getForkJoinPool();
+        context.close();
+        Assert.assertTrue(replacement.isShutdown());
+        Assert.assertNull(context.getForkJoinPool());
+
+        // pools set directly are left alone
+        ForkJoinPool external = new ForkJoinPool(2);
+        try {
+            context.setForkJoinPool(external);
+            context.close();
+            Assert.assertFalse(external.isShutdown());
+
+        } finally {
+            external.shutdown();
+        }
+    }
+
+    @Test(expected = ViewClassGeneratorException.class)
+    public void testParallelProcessingErrors() throws Exception {
+
+        JsonDirectory directory = TestUtils.getJsonDirectoryForClass(TestDataUrlCyclicReference.class);
+        directory.getContext().setParallelism(4);
+
+        // Should throw an error
+        directory.resolveViewMaps();
+    }
+}
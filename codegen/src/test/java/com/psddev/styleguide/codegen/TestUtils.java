@@ -3,7 +3,13 @@ package com.psddev.styleguide.codegen;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 
 public class TestUtils {
 
@@ -14,8 +20,10 @@ public class TestUtils {
     }
 
     public static ViewClassGeneratorContext getViewClassGeneratorContextForClass(Class<?> klass) {
+        return getViewClassGeneratorContextForPath(getJsonDirectoryPathForClass(klass));
+    }
 
-        Path jsonDirectoryPath = getJsonDirectoryPathForClass(klass);
+    public static ViewClassGeneratorContext getViewClassGeneratorContextForPath(Path jsonDirectoryPath) {
 
         ViewClassGeneratorContext context = new ViewClassGeneratorContext();
         context.setJsonDirectories(Collections.singleton(jsonDirectoryPath));
@@ -34,13 +42,91 @@ public class TestUtils {
     }
 
     public static ViewClassGenerator getDefaultGeneratorForClass(Class<?> klass) {
-        ViewClassGenerator generator = new ViewClassGenerator(getViewClassGeneratorContextForClass(klass));
+        return getDefaultGenerator(getViewClassGeneratorContextForClass(klass));
+    }
+
+    public static ViewClassGenerator getDefaultGeneratorForPath(Path jsonDirectoryPath) {
+        return getDefaultGenerator(getViewClassGeneratorContextForPath(jsonDirectoryPath));
+    }
+
+    public static ViewClassGenerator getDefaultGenerator(ViewClassGeneratorContext context) {
+        ViewClassGenerator generator = new ViewClassGenerator(context);
 
         generator.disableLogColors();
 
         return generator;
     }
 
+    /**
+     * Asserts that two parsed JSON trees have the same structure, values,
+     * and locations, regardless of how either of them is represented.
+     */
+    public static void assertSameValue(JsonValue expected, JsonValue actual) {
+
+        assertNotNull(actual);
+        assertEquals(getValueClass(expected), getValueClass(actual));
+        assertEquals(expected.getLocation(), actual.getLocation());
+
+        if (expected instanceof JsonMap) {
+            Map<JsonKey, JsonValue> expectedValues = ((JsonMap) expected).getValues();
+            Map<JsonKey, JsonValue> actualValues = ((JsonMap) actual).getValues();
+
+            assertEquals(expectedValues.size(), actualValues.size());
+
+            Iterator<Map.Entry<JsonKey, JsonValue>> actualEntries = actualValues.entrySet().iterator();
+            for (Map.Entry<JsonKey, JsonValue> entry : expectedValues.entrySet()) {
+                Map.Entry<JsonKey, JsonValue> actualEntry = actualEntries.next();
+                assertEquals(entry.getKey().getName(), actualEntry.getKey().getName());
+                assertEquals(entry.getKey().getLocation(), actualEntry.getKey().getLocation());
+                assertSameValue(entry.getValue(), actualEntry.getValue());
+                assertSameValue(entry.getValue(), ((JsonMap) actual).getValue(entry.getKey().getName()));
+            }
+
+        } else if (expected instanceof JsonList) {
+            List<JsonValue> expectedValues = ((JsonList) expected).getValues();
+            List<JsonValue> actualValues = ((JsonList) actual).getValues();
+
+            assertEquals(expectedValues.size(), actualValues.size());
+
+            for (int i = 0; i < expectedValues.size(); ++i) {
+                assertSameValue(expectedValues.get(i), actualValues.get(i));
+            }
+
+        } else {
+            assertEquals(expected.toRawValue(), actual.toRawValue());
+        }
+    }
+
+    // maps and lists may be views over another representation, such as a tape
+    private static Class<?> getValueClass(JsonValue value) {
+        return value instanceof JsonMap ? JsonMap.class : value instanceof JsonList ? JsonList.class : value.getClass();
+    }
+
+    /**
+     * Describes a parsed JSON tree, including the type and the location of
+     * every key and value, so that trees can be compared as strings.
+     */
+    public static String describeValue(JsonValue value) {
+
+        if (value instanceof JsonMap) {
+            return ((JsonMap) value).getValues().entrySet().stream()
+                    .map(entry -> entry.getKey().getName() + "@" + entry.getKey().getLocation() + "=" + describeValue(entry.getValue()))
+                    .collect(Collectors.joining(", ", "{", "}@" + value.getLocation()));
+
+        } else if (value instanceof JsonList) {
+            return ((JsonList) value).getValues().stream()
+                    .map(TestUtils::describeValue)
+                    .collect(Collectors.joining(", ", "[", "]@" + value.getLocation()));
+
+        } else if (value != null) {
+            Object rawValue = value.toRawValue();
+            return value.getTypeLabel() + ":" + (rawValue != null ? rawValue.getClass().getSimpleName() : null) + ":" + rawValue + "@" + value.getLocation();
+
+        } else {
+            return "null";
+        }
+    }
+
     static Path getTestResourcesPath() {
 
         Path modulePath;
@@ -0,0 +1,159 @@
+package com.psddev.styleguide.codegen;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestViewClassGeneratorDaemon {
+
+    private Path tempDirectory;
+    private Path jsonDirectory;
+    private Path outputDirectory;
+    private Path tokenFile;
+
+    private ViewClassGeneratorDaemon daemon;
+    private Thread daemonThread;
+
+    @Before
+    public void before() throws Exception {
+        tempDirectory = Files.createTempDirectory(getClass().getSimpleName());
+        jsonDirectory = tempDirectory.resolve("styleguide");
+        outputDirectory = tempDirectory.resolve("output");
+        tokenFile = tempDirectory.resolve("daemon.token");
+
+        // work on a copy so the files can be modified
+        FileUtils.copyDirectory(TestUtils.getJsonDirectoryPathForClass(TestWrapperJsonDelegate.class).toFile(), jsonDirectory.toFile());
+
+        daemon = new ViewClassGeneratorDaemon(0, tokenFile);
+        daemonThread = new Thread(daemon::start);
+        daemonThread.start();
+    }
+
+    @After
+    public void after() throws Exception {
+        daemon.close();
+        daemonThread.join();
+        FileUtils.deleteDirectory(tempDirectory.toFile());
+    }
+
+    @Test
+    public void testGenerateClasses() throws Exception {
+
+        ViewClassGeneratorClient client = new ViewClassGeneratorClient(daemon.getPort(), tokenFile);
+
+        Map<Path, String> expected = createGenerator().getGeneratedClasses();
+
+        assertEquals(new ArrayList<>(expected.keySet()), client.generateClasses(getArguments()));
+
+        for (Map.Entry<Path, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), new String(Files.readAllBytes(entry.getKey()), StandardCharsets.UTF_8));
+        }
+
+        // nothing changed, so nothing is written
+        assertEquals(Collections.emptyList(), client.generateClasses(getArguments()));
+
+        // only the classes affected by a change are written
+        Files.write(jsonDirectory.resolve("module/list/ListModule.json"),
+                "{\n    \"_template\": \"ListModule.hbs\",\n    \"title\": \"Module Title\",\n    \"items\": [\"One\", \"Two\"]\n}".getBytes(StandardCharsets.UTF_8));
+
+        List<Path> written = client.generateClasses(getArguments());
+
+        assertTrue(!written.isEmpty() && written.size() < expected.size());
+        assertTrue(createGenerator().getGeneratedClasses().keySet().containsAll(written));
+
+        // deleted output files are written again
+        FileUtils.deleteDirectory(outputDirectory.toFile());
+
+        assertEquals(createGenerator().getGeneratedClasses().size(), client.generateClasses(getArguments()).size());
+    }
+
+    @Test
+    public void testErrors() throws Exception {
+
+        ViewClassGeneratorClient client = new ViewClassGeneratorClient(daemon.getPort(), tokenFile);
+
+        Files.write(jsonDirectory.resolve("module/list/ListModule.json"), "{".getBytes(StandardCharsets.UTF_8));
+
+        try {
+            client.generateClasses(getArguments());
+            fail("Expected the daemon to fail to generate the classes!");
+
+        } catch (ViewClassGeneratorException e) {
+            assertTrue(e.getMessage().contains("error"));
+        }
+
+        // the daemon still works after an error
+        Files.write(jsonDirectory.resolve("module/list/ListModule.json"), "{\n    \"_template\": \"ListModule.hbs\"\n}".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(createGenerator().getGeneratedClasses().size(), client.generateClasses(getArguments()).size());
+    }
+
+    @Test(expected = ViewClassGeneratorException.class)
+    public void testInvalidToken() throws Exception {
+
+        Path invalidTokenFile = tempDirectory.resolve("invalid.token");
+        Files.write(invalidTokenFile, "invalid".getBytes(StandardCharsets.UTF_8));
+
+        new ViewClassGeneratorClient(daemon.getPort(), invalidTokenFile).generateClasses(getArguments());
+    }
+
+    @Test(expected = IOException.class)
+    public void testDaemonNotRunning() throws Exception {
+
+        int port = daemon.getPort();
+        daemon.close();
+
+        new ViewClassGeneratorClient(port, tokenFile).generateClasses(getArguments());
+    }
+
+    @Test
+    public void testRelativeArguments() throws Exception {
+
+        Path workingDirectory = Paths.get("").toAbsolutePath();
+
+        ViewClassGeneratorCliArguments arguments = new ViewClassGeneratorCliArguments(new String[] {
+                "--json-dir=" + workingDirectory.relativize(jsonDirectory),
+                "--build-dir=" + workingDirectory.relativize(outputDirectory),
+                "--daemon-port=" + daemon.getPort() });
+
+        List<String> absoluteArguments = arguments.toAbsoluteArguments();
+
+        assertTrue(absoluteArguments.contains("--json-dir=" + jsonDirectory.toAbsolutePath().normalize()));
+        assertTrue(absoluteArguments.contains("--build-dir=" + outputDirectory.toAbsolutePath().normalize()));
+        assertTrue(absoluteArguments.stream().noneMatch(ViewClassGeneratorCliArguments::isDaemonArgument));
+
+        ViewClassGeneratorClient client = new ViewClassGeneratorClient(daemon.getPort(), tokenFile);
+
+        assertEquals(createGenerator().getGeneratedClasses().size(), client.generateClasses(absoluteArguments).size());
+    }
+
+    private List<String> getArguments() {
+        return Arrays.asList(
+                "--json-dir=" + jsonDirectory,
+                "--build-dir=" + outputDirectory);
+    }
+
+    private ViewClassGenerator createGenerator() {
+
+        ViewClassGeneratorContext context = TestUtils.getViewClassGeneratorContextForPath(jsonDirectory);
+        context.setJavaSourceDirectory(outputDirectory);
+
+        return TestUtils.getDefaultGenerator(context);
+    }
+}
@@ -0,0 +1,92 @@
+package com.psddev.styleguide.codegen;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.psddev.dari.util.ObjectUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestViewClassGeneratorMetrics {
+
+    private Path tempDirectory;
+
+    @Before
+    public void before() throws Exception {
+        tempDirectory = Files.createTempDirectory(getClass().getSimpleName());
+    }
+
+    @After
+    public void after() throws Exception {
+        FileUtils.deleteDirectory(tempDirectory.toFile());
+    }
+
+    @Test
+    public void testCounters() throws Exception {
+
+        ViewClassGenerator generator = TestUtils.getDefaultGeneratorForClass(TestDataUrlOverrides.class);
+
+        Map<Path, String> classes = generator.getGeneratedClasses();
+
+        ViewClassGeneratorMetrics metrics = generator.getContext().getMetrics();
+
+        Path jsonDirectory = TestUtils.getJsonDirectoryPathForClass(TestDataUrlOverrides.class);
+        long jsonBytes = 0;
+        for (String fileName : new String[] { "data.json", "default.json", "override1.json", "override2.json", "override3.json" }) {
+            jsonBytes += Files.size(jsonDirectory.resolve(fileName));
+        }
+
+        assertEquals(5, metrics.getCount(ViewClassGeneratorMetrics.Counter.FILES_SCANNED));
+        assertEquals(5, metrics.getCount(ViewClassGeneratorMetrics.Counter.FILES_PARSED));
+        assertEquals(jsonBytes, metrics.getCount(ViewClassGeneratorMetrics.Counter.BYTES_READ));
+        assertEquals(6, metrics.getCount(ViewClassGeneratorMetrics.Counter.DATA_URL_FETCHES));
+        assertEquals(classes.size(), metrics.getCount(ViewClassGeneratorMetrics.Counter.SOURCES_GENERATED));
+        assertEquals(generator.getContext().getClassDefinitions().size(), metrics.getCount(ViewClassGeneratorMetrics.Counter.CLASS_DEFINITIONS));
+
+        // metrics start over with each generation
+        generator.getGeneratedClasses();
+
+        assertEquals(5, metrics.getCount(ViewClassGeneratorMetrics.Counter.FILES_PARSED));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testProfileReport() throws Exception {
+
+        ViewClassGeneratorContext context = TestUtils.getViewClassGeneratorContextForClass(TestDataUrlOverrides.class);
+        context.setJavaSourceDirectory(tempDirectory.resolve("output"));
+
+        Path reportFile = tempDirectory.resolve("reports").resolve("profile.json");
+
+        ViewClassGenerator generator = new ViewClassGenerator(context);
+        generator.disableLogColors();
+        generator.setProfileReport(reportFile);
+
+        List<Path> written = generator.generateClasses();
+
+        Map<String, Object> report = (Map<String, Object>) ObjectUtils.fromJson(new String(Files.readAllBytes(reportFile), StandardCharsets.UTF_8));
+
+        Map<String, Object> phases = (Map<String, Object>) report.get("phases");
+
+        for (String phase : new String[] { "scanning", "parsing", "normalizing", "resolving", "defining", "validating", "generating", "writing" }) {
+            Map<String, Object> phaseReport = (Map<String, Object>) phases.get(phase);
+            assertEquals(1, ((Number) phaseReport.get("count")).longValue());
+            assertTrue(phaseReport.containsKey("millis"));
+            assertTrue(phaseReport.containsKey("allocatedBytes"));
+        }
+
+        Map<String, Object> counters = (Map<String, Object>) report.get("counters");
+
+        assertEquals(written.size(), ((Number) counters.get("filesWritten")).longValue());
+        assertEquals(5, ((Number) counters.get("filesScanned")).longValue());
+    }
+}
@@ -0,0 +1,145 @@
+package com.psddev.styleguide.codegen;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestViewClassOutputManifest {
+
+    private Path tempDirectory;
+    private Path outputDirectory;
+    private Path manifestFile;
+
+    @Before
+    public void before() throws Exception {
+        tempDirectory = Files.createTempDirectory(getClass().getSimpleName());
+        outputDirectory = tempDirectory.resolve("output");
+        manifestFile = tempDirectory.resolve("cache").resolve("output-manifest.bin");
+    }
+
+    @After
+    public void after() throws Exception {
+        FileUtils.deleteDirectory(tempDirectory.toFile());
+    }
+
+    @Test
+    public void testUnchangedFilesSkipped() throws Exception {
+
+        List<Path> written = createGenerator().generateClasses();
+
+        assertFalse(written.isEmpty());
+        assertTrue(Files.exists(manifestFile));
+
+        // nothing changed, so nothing is written
+        assertEquals(Collections.emptyList(), createGenerator().generateClasses());
+
+        // a file modified outside of the generator is written again
+        Path modified = written.get(0);
+        String source = new String(Files.readAllBytes(modified), StandardCharsets.UTF_8);
+        Files.write(modified, "// modified".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(Collections.singletonList(modified), createGenerator().generateClasses());
+        assertEquals(source, new String(Files.readAllBytes(modified), StandardCharsets.UTF_8));
+
+        // as is a deleted file
+        Files.delete(modified);
+
+        assertEquals(Collections.singletonList(modified), createGenerator().generateClasses());
+
+        // without the manifest every file is written
+        Files.delete(manifestFile);
+
+        assertEquals(written, createGenerator().generateClasses());
+    }
+
+    @Test
+    public void testReusedGenerator() throws Exception {
+
+        ViewClassGenerator generator = createGenerator();
+
+        List<Path> written = generator.generateClasses();
+
+        // a file deleted between runs of the same generator is written again
+        Path deleted = written.get(0);
+        Files.delete(deleted);
+
+        assertEquals(Collections.singletonList(deleted), generator.generateClasses());
+        assertTrue(Files.exists(deleted));
+    }
+
+    @Test
+    public void testFailedWrite() throws Exception {
+
+        List<Path> written = createGenerator().generateClasses();
+
+        // a directory in place of the file makes the write fail
+        Path failed = written.get(0);
+        Files.delete(failed);
+        Files.createDirectory(failed);
+
+        assertFalse(createGenerator().generateClasses().contains(failed));
+
+        // the failed file isn't recorded, so it's written once it can be
+        Files.delete(failed);
+
+        assertEquals(Collections.singletonList(failed), createGenerator().generateClasses());
+    }
+
+    @Test
+    public void testCorruptManifest() throws Exception {
+
+        List<Path> written = createGenerator().generateClasses();
+
+        Files.write(manifestFile, "corrupt".getBytes(StandardCharsets.UTF_8));
+
+        // treated as if there was no manifest
+        assertEquals(written, createGenerator().generateClasses());
+        assertEquals(Collections.emptyList(), createGenerator().generateClasses());
+    }
+
+    @Test
+    public void testInMemoryManifest() throws Exception {
+
+        Path sourceFile = tempDirectory.resolve("Foo.java");
+        Files.write(sourceFile, "class Foo {}".getBytes(StandardCharsets.UTF_8));
+
+        ViewClassOutputManifest manifest = new ViewClassOutputManifest();
+
+        assertFalse(manifest.contains(sourceFile));
+
+        manifest.record(sourceFile, "class Foo {}");
+
+        assertTrue(manifest.contains(sourceFile));
+        assertTrue(manifest.isUnchanged(sourceFile, "class Foo {}"));
+        assertFalse(manifest.isUnchanged(sourceFile, "class Foo { }"));
+        assertFalse(manifest.isUnchanged(sourceFile, "class Bar {}"));
+
+        manifest.retain(new ArrayList<>());
+
+        assertFalse(manifest.contains(sourceFile));
+    }
+
+    private ViewClassGenerator createGenerator() {
+
+        ViewClassGeneratorContext context = TestUtils.getViewClassGeneratorContextForClass(TestWrapperJsonDelegate.class);
+        context.setJavaSourceDirectory(outputDirectory);
+
+        ViewClassGenerator generator = new ViewClassGenerator(context);
+        generator.disableLogColors();
+        generator.setOutputManifestFile(manifestFile);
+
+        return generator;
+    }
+}
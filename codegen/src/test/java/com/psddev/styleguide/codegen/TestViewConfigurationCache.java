@@ -0,0 +1,89 @@
+package com.psddev.styleguide.codegen;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class TestViewConfigurationCache {
+
+    private Path tempDirectory;
+
+    @Before
+    public void before() throws Exception {
+        tempDirectory = Files.createTempDirectory(getClass().getSimpleName()).toRealPath();
+
+        writeConfig("_config.json", "com.example");
+        writeConfig("module/_config.json", "com.example.module");
+        Files.createDirectories(tempDirectory.resolve("module/nested"));
+    }
+
+    @After
+    public void after() throws Exception {
+        FileUtils.deleteDirectory(tempDirectory.toFile());
+    }
+
+    @Test
+    public void testCache() throws Exception {
+
+        ViewConfigurationCache cache = new ViewConfigurationCache();
+        ViewClassGeneratorMetrics metrics = new ViewClassGeneratorMetrics();
+        Path configFile = tempDirectory.resolve("_config.json");
+
+        ViewConfiguration config = cache.get(configFile, configFile, metrics);
+
+        assertEquals("com.example", config.getJavaPackage());
+        assertSame(config, cache.get(configFile, configFile, metrics));
+        assertEquals(1, metrics.getCount(ViewClassGeneratorMetrics.Counter.CONFIG_FILES_READ));
+
+        writeConfig("_config.json", "com.example.changed");
+
+        ViewConfiguration changedConfig = cache.get(configFile, configFile, metrics);
+
+        assertNotSame(config, changedConfig);
+        assertEquals("com.example.changed", changedConfig.getJavaPackage());
+        assertEquals(2, metrics.getCount(ViewClassGeneratorMetrics.Counter.CONFIG_FILES_READ));
+    }
+
+    @Test
+    public void testSharedAcrossDirectories() throws Exception {
+
+        ViewClassGeneratorContext context = new ViewClassGeneratorContext();
+        context.setJsonDirectories(Collections.singleton(tempDirectory));
+
+        JsonDirectory directory = new JsonDirectory(context);
+
+        List<ViewConfiguration> viewConfigs = directory.getViewConfigurations(Paths.get("module/nested"));
+
+        assertEquals(2, viewConfigs.size());
+        assertEquals("com.example.module", viewConfigs.get(0).getJavaPackage());
+        assertEquals("com.example", viewConfigs.get(1).getJavaPackage());
+
+        // the chain is shared within the directory
+        assertSame(viewConfigs, directory.getViewConfigurations(Paths.get("module/nested")));
+
+        // and the configurations across directories
+        List<ViewConfiguration> otherViewConfigs = new JsonDirectory(context).getViewConfigurations(Paths.get("module"));
+
+        assertSame(viewConfigs.get(0), otherViewConfigs.get(0));
+        assertSame(viewConfigs.get(1), otherViewConfigs.get(1));
+        assertEquals(2, context.getMetrics().getCount(ViewClassGeneratorMetrics.Counter.CONFIG_FILES_READ));
+    }
+
+    private void writeConfig(String path, String javaPackage) throws Exception {
+        Path file = tempDirectory.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, ("{\"javaPackage\":\"" + javaPackage + "\"}").getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,10 +1,14 @@
 package com.psddev.styleguide.maven.plugin;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugins.annotations.Parameter;
 
+import com.psddev.styleguide.codegen.ViewClassGenerator;
+
 abstract class AbstractStyleguideMojo extends AbstractMojo {
 
     /**
@@ -22,4 +26,154 @@ abstract class AbstractStyleguideMojo extends AbstractMojo {
             property = "javaSourcesOutputDirectory",
             defaultValue = "${project.build.directory}" + "/" + "generated-sources/styleguide")
     protected File javaSourcesOutputDirectory;
+
+    /**
+     * The number of threads used to process the JSON files and to generate
+     * and write the view classes. A value of 1 disables concurrent
+     * processing.
+     */
+    @Parameter(
+            property = "styleguideParallelism",
+            defaultValue = "1")
+    protected int parallelism;
+
+    /**
+     * The directory where parsed JSON files are cached between builds.
+     */
+    @Parameter(
+            property = "parseCacheDirectory",
+            defaultValue = "${project.build.directory}" + "/" + "styleguide-cache")
+    protected File parseCacheDirectory;
+
+    /**
+     * The parser used to parse the JSON files, either "utf8" or "javax". If
+     * not set, the default parser is used.
+     */
+    @Parameter(property = "styleguideJsonParser")
+    protected String jsonParser;
+
+    /**
+     * Whether the parsed JSON files should be kept in a compact flat
+     * representation that uses less memory.
+     */
+    @Parameter(
+            property = "styleguideCompactJsonTrees",
+            defaultValue = "false")
+    protected boolean compactJsonTrees;
+
+    /**
+     * Whether the JSON files should be normalized while they are parsed
+     * rather than in a separate pass.
+     */
+    @Parameter(
+            property = "styleguideFusedNormalization",
+            defaultValue = "false")
+    protected boolean fusedNormalization;
+
+    /**
+     * The file where a manifest of the generated java source files is kept
+     * between builds so that unchanged files aren't written again.
+     */
+    @Parameter(
+            property = "styleguideOutputManifest",
+            defaultValue = "${project.build.directory}" + "/" + "styleguide-cache/output-manifest.bin")
+    protected File outputManifest;
+
+    /**
+     * Whether to log the time spent in, and the work done by, each phase of
+     * the view class generation.
+     */
+    @Parameter(
+            property = "styleguideProfile",
+            defaultValue = "false")
+    protected boolean profile;
+
+    /**
+     * The file where a JSON report of the time spent in, and the work done
+     * by, each phase of the view class generation should be written. Setting
+     * it also enables profiling.
+     */
+    @Parameter(property = "styleguideProfileReport")
+    protected File profileReport;
+
+    /**
+     * The port of a running view class generator daemon that should generate
+     * the classes instead of this build. If it can't be reached, the classes
+     * are generated by this build as usual.
+     */
+    @Parameter(property = "styleguideDaemonPort")
+    protected Integer daemonPort;
+
+    /**
+     * Creates a view class generator configured with this mojo's parameters.
+     *
+     * @return a new view class generator.
+     */
+    protected ViewClassGenerator createViewClassGenerator() {
+
+        ViewClassGenerator generator = ViewClassGenerator.createInstance(
+                styleguideDirectory.toPath(),
+                javaSourcesOutputDirectory.toPath());
+
+        generator.setParallelism(parallelism);
+
+        if (parseCacheDirectory != null) {
+            generator.setParseCacheDirectory(parseCacheDirectory.toPath());
+        }
+
+        generator.setJsonParser(jsonParser);
+        generator.setCompactJsonTrees(compactJsonTrees);
+        generator.setFusedNormalization(fusedNormalization);
+
+        if (outputManifest != null) {
+            generator.setOutputManifestFile(outputManifest.toPath());
+        }
+
+        generator.setProfile(profile);
+
+        if (profileReport != null) {
+            generator.setProfileReport(profileReport.toPath());
+        }
+
+        return generator;
+    }
+
+    /**
+     * Creates the view class generator command line arguments equivalent to
+     * this mojo's parameters, for sending to a daemon.
+     *
+     * @return the command line arguments.
+     */
+    protected List<String> createViewClassGeneratorArguments() {
+
+        List<String> arguments = new ArrayList<>();
+
+        arguments.add("--json-dir=" + styleguideDirectory.getAbsolutePath());
+        arguments.add("--build-dir=" + javaSourcesOutputDirectory.getAbsolutePath());
+
+        arguments.add("--parallelism=" + parallelism);
+
+        if (parseCacheDirectory != null) {
+            arguments.add("--parse-cache-dir=" + parseCacheDirectory.getAbsolutePath());
+        }
+
+        if (jsonParser != null) {
+            arguments.add("--json-parser=" + jsonParser);
+        }
+
+        arguments.add("--compact-json-trees=" + compactJsonTrees);
+        arguments.add("--fused-normalization=" + fusedNormalization);
+
+        if (outputManifest != null) {
+            arguments.add("--output-manifest=" + outputManifest.getAbsolutePath());
+        }
+
+        arguments.add("--profile=" + profile);
+
+        if (profileReport != null) {
+            arguments.add("--profile-report=" + profileReport.getAbsolutePath());
+        }
+
+        return arguments;
+    }
 }
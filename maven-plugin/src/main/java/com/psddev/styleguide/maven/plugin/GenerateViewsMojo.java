@@ -1,7 +1,6 @@
 package com.psddev.styleguide.maven.plugin;
 
-import java.nio.file.Path;
-import java.util.List;
+import java.io.IOException;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -11,6 +10,8 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 
 import com.psddev.styleguide.codegen.ViewClassGenerator;
+import com.psddev.styleguide.codegen.ViewClassGeneratorClient;
+import com.psddev.styleguide.codegen.ViewClassGeneratorException;
 
 @Mojo(name = "generate-views", defaultPhase = LifecyclePhase.PROCESS_RESOURCES)
 class GenerateViewsMojo extends AbstractStyleguideMojo {
@@ -26,9 +27,25 @@ class GenerateViewsMojo extends AbstractStyleguideMojo {
 
         project.addCompileSourceRoot(javaSourcesOutputDirectory.getPath());
 
-        List<Path> generateClasses = ViewClassGenerator.createInstance(
-                styleguideDirectory.toPath(),
-                javaSourcesOutputDirectory.toPath())
-                .generateClasses();
+        if (daemonPort != null) {
+            try {
+                new ViewClassGeneratorClient(daemonPort).generateClasses(createViewClassGeneratorArguments(), log -> {
+                    for (String line : log.split("\\r?\\n")) {
+                        getLog().info(line);
+                    }
+                });
+                return;
+
+            } catch (IOException e) {
+                getLog().warn("Could not connect to the view class generator daemon, generating classes locally. Cause: " + e.getMessage());
+
+            } catch (ViewClassGeneratorException e) {
+                getLog().warn("The view class generator daemon failed to generate the classes, generating classes locally. Cause: " + e.getMessage());
+            }
+        }
+
+        try (ViewClassGenerator generator = createViewClassGenerator()) {
+            generator.generateClasses();
+        }
     }
 }
@@ -12,9 +12,8 @@ class WatchMojo extends AbstractStyleguideMojo {
 
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
-        ViewClassGenerator.createInstance(
-                styleguideDirectory.toPath(),
-                javaSourcesOutputDirectory.toPath())
-                .watch();
+        try (ViewClassGenerator generator = createViewClassGenerator()) {
+            generator.watch();
+        }
     }
 }